@@ -0,0 +1,327 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.inference;
+
+import ai.djl.Device;
+import ai.djl.Model;
+import ai.djl.metric.Unit;
+import ai.djl.translate.Batchifier;
+import ai.djl.translate.LengthBuckets;
+import ai.djl.translate.TranslateException;
+import ai.djl.translate.Translator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToLongFunction;
+
+/**
+ * A {@link Predictor} that combines concurrent requests into batches.
+ *
+ * <p>Calls to {@link #predict(Object)}, {@link #batchPredict(List)} and their asynchronous variants
+ * from any number of threads are queued. A background thread takes the oldest request and waits up
+ * to the max delay for more requests, until the batch reaches the max batch size. The batch runs as
+ * one forward pass through the {@link Batchifier} of the translator, and each caller receives its
+ * own result.
+ *
+ * <p>With {@link #setLengthBuckets(LengthBuckets, ToLongFunction)}, the collected requests are
+ * split by length bucket, and each bucket runs as its own batch. This keeps a long request from
+ * inflating the padding of short ones.
+ *
+ * <p>If {@link ai.djl.metric.Metrics} are set, the predictor also records the time each request
+ * waited in the queue as {@code QueueWait} and the size of each batch as {@code BatchSize}.
+ *
+ * <p>The predictor must be closed to stop its thread. Requests that are still queued at that time
+ * fail with an {@link IllegalStateException}.
+ *
+ * @param <I> the input type
+ * @param <O> the output type
+ */
+public class BatchingPredictor<I, O> extends Predictor<I, O> {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchingPredictor.class);
+
+    private int maxBatchSize;
+    private long maxDelayNanos;
+    private BlockingQueue<Request<I, O>> queue;
+    private Request<I, O> stop;
+    private Thread worker;
+    private AtomicBoolean running;
+    private volatile LengthBuckets buckets;
+    private ToLongFunction<I> lengthOf;
+
+    /**
+     * Creates a new instance of {@code BatchingPredictor}.
+     *
+     * @param model the model on which the predictions are based
+     * @param translator the translator to be used
+     * @param device the device for prediction
+     * @param copy whether to copy the parameters to the parameter store. If the device changes, it
+     *     will copy regardless
+     * @param maxBatchSize the maximum number of requests in a batch
+     * @param maxDelay the maximum time to wait for more requests after the first one is queued
+     * @param unit the unit of the delay
+     */
+    public BatchingPredictor(
+            Model model,
+            Translator<I, O> translator,
+            Device device,
+            boolean copy,
+            int maxBatchSize,
+            long maxDelay,
+            TimeUnit unit) {
+        super(model, translator, device, copy);
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be at least 1");
+        }
+        this.maxBatchSize = maxBatchSize;
+        maxDelayNanos = unit.toNanos(maxDelay);
+        queue = new LinkedBlockingQueue<>();
+        stop = new Request<>(null);
+        running = new AtomicBoolean(true);
+        worker = new Thread(this::run, "batching-predictor-" + model.getName());
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public O predict(I input) throws TranslateException {
+        return await(submit(input));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<O> batchPredict(List<I> inputs) throws TranslateException {
+        List<CompletableFuture<O>> futures = new ArrayList<>(inputs.size());
+        for (I input : inputs) {
+            futures.add(submit(input));
+        }
+        List<O> ret = new ArrayList<>(futures.size());
+        for (CompletableFuture<O> future : futures) {
+            ret.add(await(future));
+        }
+        return ret;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<O> predictAsync(I input) {
+        return submit(input);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<List<O>> batchPredictAsync(List<I> inputs) {
+        List<CompletableFuture<O>> futures = new ArrayList<>(inputs.size());
+        for (I input : inputs) {
+            futures.add(submit(input));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(
+                        v -> {
+                            List<O> ret = new ArrayList<>(futures.size());
+                            for (CompletableFuture<O> future : futures) {
+                                ret.add(future.join());
+                            }
+                            return ret;
+                        });
+    }
+
+    /**
+     * Sets the length buckets that split the collected requests into batches.
+     *
+     * <p>Use the same buckets in a {@link ai.djl.translate.PaddingStackBatchifier} of the
+     * translator, so each batch is padded to the bound of its bucket.
+     *
+     * @param buckets the length buckets, or {@code null} to run all collected requests together
+     * @param lengthOf the function that returns the length of an input
+     */
+    public void setLengthBuckets(LengthBuckets buckets, ToLongFunction<I> lengthOf) {
+        this.lengthOf = lengthOf;
+        this.buckets = buckets;
+    }
+
+    /**
+     * Returns the maximum number of requests in a batch.
+     *
+     * @return the maximum number of requests in a batch
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        if (running.getAndSet(false)) {
+            queue.add(stop);
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (Request<I, O> request : queue) {
+                if (request != stop) {
+                    request.future.completeExceptionally(
+                            new IllegalStateException("The predictor is closed"));
+                }
+            }
+            queue.clear();
+        }
+        super.close();
+    }
+
+    CompletableFuture<O> submit(I input) {
+        if (!running.get()) {
+            throw new IllegalStateException("The predictor is closed");
+        }
+        Request<I, O> request = new Request<>(input);
+        queue.add(request);
+        if (!running.get() && queue.remove(request)) {
+            // closed concurrently, the worker won't see this request
+            throw new IllegalStateException("The predictor is closed");
+        }
+        return request.future;
+    }
+
+    private void run() {
+        List<Request<I, O>> batch = new ArrayList<>(maxBatchSize);
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                Request<I, O> first = queue.take();
+                if (first == stop) {
+                    break;
+                }
+                batch.add(first);
+                long deadline = first.timestamp + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Request<I, O> request =
+                            remaining > 0
+                                    ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                                    : queue.poll();
+                    if (request == null) {
+                        break;
+                    } else if (request == stop) {
+                        stopping = true;
+                        break;
+                    }
+                    batch.add(request);
+                }
+            } catch (InterruptedException e) {
+                stopping = true;
+            }
+            if (!batch.isEmpty()) {
+                process(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private void process(List<Request<I, O>> batch) {
+        LengthBuckets lb = buckets;
+        if (lb == null || batch.size() == 1) {
+            processBatch(batch);
+            return;
+        }
+        long[] lengths = new long[batch.size()];
+        try {
+            for (int i = 0; i < lengths.length; ++i) {
+                lengths[i] = lengthOf.applyAsLong(batch.get(i).input);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to get the input lengths, running without buckets", e);
+            processBatch(batch);
+            return;
+        } catch (Error e) {
+            // don't leave the callers waiting, the error still stops the worker
+            for (Request<I, O> request : batch) {
+                request.future.completeExceptionally(e);
+            }
+            throw e;
+        }
+        for (int[] group : lb.group(lengths, maxBatchSize)) {
+            List<Request<I, O>> requests = new ArrayList<>(group.length);
+            for (int i : group) {
+                requests.add(batch.get(i));
+            }
+            processBatch(requests);
+        }
+    }
+
+    private void processBatch(List<Request<I, O>> batch) {
+        if (metrics != null) {
+            long now = System.nanoTime();
+            for (Request<I, O> request : batch) {
+                long wait = (now - request.timestamp) / 1000;
+                metrics.addMetric("QueueWait", wait, Unit.MICROSECONDS, dimension);
+            }
+            metrics.addMetric("BatchSize", batch.size(), Unit.COUNT, dimension);
+        }
+        List<I> inputs = new ArrayList<>(batch.size());
+        for (Request<I, O> request : batch) {
+            inputs.add(request.input);
+        }
+        try {
+            List<O> outputs = super.batchPredict(inputs);
+            for (int i = 0; i < batch.size(); ++i) {
+                batch.get(i).future.complete(outputs.get(i));
+            }
+        } catch (Throwable t) { // NOPMD
+            logger.debug("Batch of {} requests failed", batch.size(), t);
+            for (Request<I, O> request : batch) {
+                request.future.completeExceptionally(t);
+            }
+        }
+    }
+
+    @SuppressWarnings("PMD.PreserveStackTrace")
+    private O await(CompletableFuture<O> future) throws TranslateException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TranslateException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TranslateException) {
+                throw (TranslateException) cause;
+            }
+            throw new TranslateException(cause);
+        }
+    }
+
+    private static final class Request<I, O> {
+
+        I input;
+        CompletableFuture<O> future;
+        long timestamp;
+
+        Request(I input) {
+            this.input = input;
+            future = new CompletableFuture<>();
+            timestamp = System.nanoTime();
+        }
+    }
+}
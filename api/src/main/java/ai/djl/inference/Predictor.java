@@ -27,6 +27,8 @@ import ai.djl.ndarray.NDManager;
 import ai.djl.nn.Block;
 import ai.djl.training.ParameterStore;
 import ai.djl.translate.Batchifier;
+import ai.djl.translate.HostBatchTranslator;
+import ai.djl.translate.StackBatchifier;
 import ai.djl.translate.TranslateException;
 import ai.djl.translate.Translator;
 import ai.djl.translate.TranslatorContext;
@@ -40,7 +42,11 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 /**
  * The {@code Predictor} interface provides a session for model inference.
@@ -99,6 +105,10 @@ public class Predictor<I, O> implements AutoCloseable {
     protected ParameterStore parameterStore;
     protected Dimension dimension;
 
+    private PredictorPipeline pipeline;
+    private boolean closed;
+    private Set<CompletableFuture<?>> pending = ConcurrentHashMap.newKeySet();
+
     /**
      * Creates a new instance of {@code BasePredictor} with the given {@link Model} and {@link
      * Translator}.
@@ -202,6 +212,85 @@ public class Predictor<I, O> implements AutoCloseable {
         }
     }
 
+    /**
+     * Predicts an item for inference without blocking the calling thread.
+     *
+     * <p>The pre-processing, inference and post-processing of the input run as separate stages, see
+     * {@link #setPipelineExecutors(Executor, Executor, Executor)}, so that the pre-processing of an
+     * input overlaps the inference of the inputs submitted before it.
+     *
+     * @param input the input
+     * @return a future of the output object defined by the user, it completes exceptionally with a
+     *     {@link TranslateException} if an error occurs during prediction
+     * @throws IllegalStateException if the predictor is closed
+     */
+    public CompletableFuture<O> predictAsync(I input) {
+        return batchPredictAsync(Collections.singletonList(input)).thenApply(l -> l.get(0));
+    }
+
+    /**
+     * Predicts a batch for inference without blocking the calling thread.
+     *
+     * <p>If the translator does not support batching, each input runs through the pipeline on its
+     * own.
+     *
+     * @param inputs a list of inputs
+     * @return a future of the list of output objects defined by the user
+     * @throws IllegalStateException if the predictor is closed
+     * @see #predictAsync(Object)
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<List<O>> batchPredictAsync(List<I> inputs) {
+        if (inputs.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        Translator<I[], O[]> batchTranslator = translator.toBatchTranslator();
+        if (batchTranslator == null) {
+            List<CompletableFuture<O>> futures = new ArrayList<>(inputs.size());
+            for (I input : inputs) {
+                futures.add(new AsyncPrediction<>(translator, input, 1).submit());
+            }
+            return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                    .thenApply(
+                            v -> {
+                                List<O> ret = new ArrayList<>(futures.size());
+                                for (CompletableFuture<O> future : futures) {
+                                    ret.add(future.join());
+                                }
+                                return ret;
+                            });
+        }
+
+        I[] empty = (I[]) Array.newInstance(inputs.get(0).getClass(), 0);
+        I[] in = inputs.toArray(empty);
+        return new AsyncPrediction<>(batchTranslator, in, inputs.size())
+                .submit()
+                .thenApply(Arrays::asList);
+    }
+
+    /**
+     * Sets the executors of the stages of {@link #predictAsync(Object)} and {@link
+     * #batchPredictAsync(List)}.
+     *
+     * <p>By default, each stage runs on its own thread with a bounded queue. A stage with a full
+     * queue blocks the stage that feeds it. The given executors are not shut down when the
+     * predictor is closed.
+     *
+     * @param preprocess the executor of {@link Translator#processInput(TranslatorContext, Object)}
+     * @param inference the executor of the forward pass of the block
+     * @param postprocess the executor of {@link Translator#processOutput(TranslatorContext,
+     *     NDList)}
+     * @throws IllegalStateException if the predictor is closed
+     */
+    public void setPipelineExecutors(
+            Executor preprocess, Executor inference, Executor postprocess) {
+        PredictorPipeline previous =
+                swapPipeline(new PredictorPipeline(preprocess, inference, postprocess));
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
     /**
      * Predicts an item for inference.
      *
@@ -290,6 +379,33 @@ public class Predictor<I, O> implements AutoCloseable {
         this.metrics = metrics;
     }
 
+    private synchronized PredictorPipeline getPipeline() {
+        if (closed) {
+            throw new IllegalStateException("The predictor is closed");
+        }
+        if (pipeline == null) {
+            pipeline = PredictorPipeline.newDefault("predictor-" + model.getName());
+        }
+        return pipeline;
+    }
+
+    private synchronized PredictorPipeline swapPipeline(PredictorPipeline next) {
+        if (closed) {
+            throw new IllegalStateException("The predictor is closed");
+        }
+        PredictorPipeline previous = pipeline;
+        pipeline = next;
+        return previous;
+    }
+
+    @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+    private synchronized void prepareOnce(TranslatorContext ctx) throws Exception {
+        if (!prepared) {
+            translator.prepare(ctx);
+            prepared = true;
+        }
+    }
+
     private void waitToRead(NDList list) {
         for (NDArray array : list) {
             if (array instanceof LazyNDArray) {
@@ -298,14 +414,24 @@ public class Predictor<I, O> implements AutoCloseable {
         }
     }
 
-    @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+    @SuppressWarnings({"PMD.SignatureDeclareThrowsException", "unchecked"})
     private NDList processInputs(TranslatorContext ctx, List<I> inputs) throws Exception {
         int batchSize = inputs.size();
+        Batchifier batchifier = translator.getBatchifier();
+        if (translator instanceof HostBatchTranslator && batchifier instanceof StackBatchifier) {
+            HostBatchTranslator<I, O> t = (HostBatchTranslator<I, O>) translator;
+            return ((StackBatchifier) batchifier)
+                    .batchify(
+                            ctx.getNDManager(),
+                            t.getInputDescriptors(ctx),
+                            batchSize,
+                            (index, slots) -> t.processInput(ctx, inputs.get(index), slots));
+        }
         NDList[] preprocessed = new NDList[batchSize];
         for (int i = 0; i < batchSize; ++i) {
             preprocessed[i] = translator.processInput(ctx, inputs.get(i));
         }
-        return translator.getBatchifier().batchify(preprocessed);
+        return batchifier.batchify(preprocessed);
     }
 
     private void preprocessEnd(NDList list, int batchSize) {
@@ -339,9 +465,27 @@ public class Predictor<I, O> implements AutoCloseable {
         }
     }
 
-    /** {@inheritDoc} */
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Waits for the pending asynchronous predictions to complete before the resources of the
+     * predictor are released.
+     */
     @Override
     public void close() {
+        PredictorPipeline previous;
+        synchronized (this) {
+            closed = true;
+            previous = pipeline;
+            pipeline = null;
+        }
+        // the stages use sub-managers of the manager, drain them before closing it
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]))
+                .handle((r, t) -> null)
+                .join();
+        if (previous != null) {
+            previous.close();
+        }
         manager.close();
     }
 
@@ -418,4 +562,96 @@ public class Predictor<I, O> implements AutoCloseable {
             attachments.put(key, value);
         }
     }
+
+    /** The stages of one asynchronous prediction, each one runs on the executor of its stage. */
+    private final class AsyncPrediction<X, Y> {
+
+        private Translator<X, Y> translator;
+        private X input;
+        private int batchSize;
+        private PredictorContext context;
+        private long begin;
+        private long timestamp;
+
+        AsyncPrediction(Translator<X, Y> translator, X input, int batchSize) {
+            this.translator = translator;
+            this.input = input;
+            this.batchSize = batchSize;
+        }
+
+        CompletableFuture<Y> submit() {
+            PredictorPipeline stages = getPipeline();
+            context = new PredictorContext();
+            CompletableFuture<Y> future =
+                    CompletableFuture.supplyAsync(this::preprocess, stages.getPreprocess())
+                            .thenApplyAsync(this::inference, stages.getInference())
+                            .thenApplyAsync(this::postprocess, stages.getPostprocess())
+                            .whenComplete((r, t) -> context.close());
+            pending.add(future);
+            future.whenComplete((r, t) -> pending.remove(future));
+            return future;
+        }
+
+        @SuppressWarnings("PMD.AvoidCatchingGenericException")
+        private NDList preprocess() {
+            begin = System.nanoTime();
+            timestamp = begin;
+            try {
+                prepareOnce(context);
+                NDList ndList = translator.processInput(context, input);
+                timestamp = stageEnd("Preprocess", ndList);
+                return ndList;
+            } catch (Exception e) {
+                throw wrap(e);
+            }
+        }
+
+        @SuppressWarnings("PMD.AvoidCatchingGenericException")
+        private NDList inference(NDList ndList) {
+            timestamp = System.nanoTime();
+            try {
+                NDList result = predictInternal(context, ndList);
+                timestamp = stageEnd("Inference", result);
+                return result;
+            } catch (Exception e) {
+                throw wrap(e);
+            }
+        }
+
+        @SuppressWarnings("PMD.AvoidCatchingGenericException")
+        private Y postprocess(NDList result) {
+            timestamp = System.nanoTime();
+            try {
+                Y output = translator.processOutput(context, result);
+                long end = stageEnd("Postprocess", null);
+                if (metrics != null) {
+                    long prediction = (end - begin) / 1000;
+                    metrics.addMetric("Prediction", prediction, Unit.MICROSECONDS, dimension);
+                }
+                return output;
+            } catch (Exception e) {
+                throw wrap(e);
+            }
+        }
+
+        private long stageEnd(String metricName, NDList list) {
+            if (metrics == null) {
+                return timestamp;
+            }
+            if (list != null) {
+                waitToRead(list);
+            }
+            long tmp = System.nanoTime();
+            long duration = (tmp - timestamp) / 1000 / batchSize;
+            metrics.addMetric(metricName, duration, Unit.MICROSECONDS, dimension);
+            return tmp;
+        }
+
+        private CompletionException wrap(Exception e) {
+            if (e instanceof TranslateException) {
+                return new CompletionException(e);
+            }
+            return new CompletionException(new TranslateException(e));
+        }
+    }
 }
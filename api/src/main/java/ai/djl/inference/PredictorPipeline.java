@@ -0,0 +1,128 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.inference;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The executors of the pre-processing, inference and post-processing stages of the asynchronous
+ * {@link Predictor} methods.
+ *
+ * <p>The default stages each run on one daemon thread with a queue of {@value #QUEUE_CAPACITY}
+ * tasks. A stage with a full queue blocks the stage before it, which limits the number of requests
+ * in flight.
+ *
+ * <p>Closing the default pipeline shuts its threads down and waits up to {@value
+ * #TERMINATION_TIMEOUT_SECONDS} seconds for the running tasks to finish.
+ */
+final class PredictorPipeline implements AutoCloseable {
+
+    private static final int QUEUE_CAPACITY = 32;
+    private static final long TERMINATION_TIMEOUT_SECONDS = 60;
+
+    private Executor preprocess;
+    private Executor inference;
+    private Executor postprocess;
+    private boolean owned;
+
+    PredictorPipeline(Executor preprocess, Executor inference, Executor postprocess) {
+        this.preprocess = preprocess;
+        this.inference = inference;
+        this.postprocess = postprocess;
+    }
+
+    /**
+     * Creates the default pipeline, with one thread per stage.
+     *
+     * @param name the name of the pipeline, used for the thread names
+     * @return the default pipeline
+     */
+    static PredictorPipeline newDefault(String name) {
+        PredictorPipeline pipeline =
+                new PredictorPipeline(
+                        newStage(name + "-preprocess"),
+                        newStage(name + "-inference"),
+                        newStage(name + "-postprocess"));
+        pipeline.owned = true;
+        return pipeline;
+    }
+
+    Executor getPreprocess() {
+        return preprocess;
+    }
+
+    Executor getInference() {
+        return inference;
+    }
+
+    Executor getPostprocess() {
+        return postprocess;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        if (!owned) {
+            return;
+        }
+        ExecutorService[] stages = {
+            (ExecutorService) preprocess, (ExecutorService) inference, (ExecutorService) postprocess
+        };
+        for (ExecutorService stage : stages) {
+            stage.shutdown();
+        }
+        try {
+            for (ExecutorService stage : stages) {
+                if (!stage.awaitTermination(TERMINATION_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    stage.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            for (ExecutorService stage : stages) {
+                stage.shutdownNow();
+            }
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ExecutorService newStage(String name) {
+        return new ThreadPoolExecutor(
+                1,
+                1,
+                0,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                r -> {
+                    Thread thread = new Thread(r, name);
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (r, e) -> {
+                    if (e.isShutdown()) {
+                        throw new RejectedExecutionException("The predictor is closed");
+                    }
+                    try {
+                        // wait for room in the queue instead of dropping the task
+                        e.getQueue().put(r);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException(ex);
+                    }
+                });
+    }
+}
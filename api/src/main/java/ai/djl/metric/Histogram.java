@@ -0,0 +1,264 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.metric;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size histogram of metric values with log-linear buckets.
+ *
+ * <p>Each power of two between 2<sup>-24</sup> and 2<sup>48</sup> is split into {@code 2^bits}
+ * linear buckets, for positive and negative values alike. Smaller magnitudes are counted as zero,
+ * larger ones go to the last bucket. With the default 4 bits, a percentile is within about 3% of
+ * the exact value. The memory used does not depend on the number of recorded values.
+ *
+ * <p>Recording is lock-free and can be done from any number of threads. The count, sum, minimum
+ * and maximum are exact, percentiles are estimated from the buckets.
+ */
+public class Histogram {
+
+    private static final int MIN_EXPONENT = -24;
+    private static final int MAX_EXPONENT = 47;
+
+    private int bits;
+    private int subBuckets;
+    private AtomicLongArray positive;
+    private AtomicLongArray negative;
+    private LongAdder count;
+    private DoubleAdder sum;
+    private AtomicLong min;
+    private AtomicLong max;
+
+    /** Constructs an empty {@code Histogram} with 16 buckets per power of two. */
+    public Histogram() {
+        this(4);
+    }
+
+    /**
+     * Constructs an empty {@code Histogram}.
+     *
+     * @param bits the number of mantissa bits used to split each power of two, from 1 to 10
+     */
+    public Histogram(int bits) {
+        if (bits < 1 || bits > 10) {
+            throw new IllegalArgumentException("bits must be between 1 and 10, got: " + bits);
+        }
+        this.bits = bits;
+        subBuckets = 1 << bits;
+        int size = (MAX_EXPONENT - MIN_EXPONENT + 1) * subBuckets + 1;
+        positive = new AtomicLongArray(size);
+        negative = new AtomicLongArray(size);
+        count = new LongAdder();
+        sum = new DoubleAdder();
+        min = new AtomicLong(Double.doubleToLongBits(Double.POSITIVE_INFINITY));
+        max = new AtomicLong(Double.doubleToLongBits(Double.NEGATIVE_INFINITY));
+    }
+
+    /**
+     * Records a value. {@code NaN} is ignored.
+     *
+     * @param value the value to record
+     */
+    public void record(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        int index = indexOf(Math.abs(value));
+        if (value < 0 && index > 0) {
+            negative.incrementAndGet(index);
+        } else {
+            positive.incrementAndGet(index);
+        }
+        sum.add(value);
+        count.increment();
+        updateMin(value);
+        updateMax(value);
+    }
+
+    /**
+     * Adds all values recorded by another histogram to this one.
+     *
+     * @param other the histogram to merge
+     * @throws IllegalArgumentException if the histograms do not use the same number of bits
+     */
+    public void merge(Histogram other) {
+        if (other.bits != bits) {
+            throw new IllegalArgumentException(
+                    "Cannot merge histograms with " + other.bits + " and " + bits + " bits");
+        }
+        for (int i = 0; i < positive.length(); ++i) {
+            long p = other.positive.get(i);
+            if (p != 0) {
+                positive.addAndGet(i, p);
+            }
+            long n = other.negative.get(i);
+            if (n != 0) {
+                negative.addAndGet(i, n);
+            }
+        }
+        sum.add(other.sum.sum());
+        count.add(other.count.sum());
+        updateMin(other.getMin());
+        updateMax(other.getMax());
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the sum of the recorded values.
+     *
+     * @return the sum of the recorded values
+     */
+    public double getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Returns the average of the recorded values, or {@code NaN} if the histogram is empty.
+     *
+     * @return the average of the recorded values
+     */
+    public double getMean() {
+        long n = count.sum();
+        if (n == 0) {
+            return Double.NaN;
+        }
+        return sum.sum() / n;
+    }
+
+    /**
+     * Returns the smallest recorded value, or positive infinity if the histogram is empty.
+     *
+     * @return the smallest recorded value
+     */
+    public double getMin() {
+        return Double.longBitsToDouble(min.get());
+    }
+
+    /**
+     * Returns the largest recorded value, or negative infinity if the histogram is empty.
+     *
+     * @return the largest recorded value
+     */
+    public double getMax() {
+        return Double.longBitsToDouble(max.get());
+    }
+
+    /**
+     * Returns an estimate of the value at the given percentile.
+     *
+     * <p>The value is the middle of the bucket that holds the sample of rank {@code count *
+     * percentile / 100}, bounded by the minimum and maximum recorded values.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the estimated value at the percentile, or {@code NaN} if the histogram is empty
+     */
+    public double percentile(double percentile) {
+        int size = positive.length();
+        long[] pos = new long[size];
+        long[] neg = new long[size];
+        long total = 0;
+        for (int i = 0; i < size; ++i) {
+            pos[i] = positive.get(i);
+            neg[i] = negative.get(i);
+            total += pos[i] + neg[i];
+        }
+        if (total == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) (total * percentile / 100);
+        rank = Math.max(0, Math.min(rank, total - 1));
+
+        double value = 0;
+        long seen = 0;
+        boolean found = false;
+        for (int i = size - 1; i > 0; --i) {
+            seen += neg[i];
+            if (seen > rank) {
+                value = -midpoint(i);
+                found = true;
+                break;
+            }
+        }
+        if (!found) {
+            for (int i = 0; i < size; ++i) {
+                seen += pos[i];
+                if (seen > rank) {
+                    value = midpoint(i);
+                    break;
+                }
+            }
+        }
+        return Math.max(getMin(), Math.min(value, getMax()));
+    }
+
+    /** Removes all recorded values. */
+    public void reset() {
+        for (int i = 0; i < positive.length(); ++i) {
+            positive.set(i, 0);
+            negative.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        min.set(Double.doubleToLongBits(Double.POSITIVE_INFINITY));
+        max.set(Double.doubleToLongBits(Double.NEGATIVE_INFINITY));
+    }
+
+    private int indexOf(double magnitude) {
+        int exponent = Math.getExponent(magnitude);
+        if (exponent < MIN_EXPONENT) {
+            return 0;
+        }
+        if (exponent > MAX_EXPONENT) {
+            return positive.length() - 1;
+        }
+        long mantissa = Double.doubleToRawLongBits(magnitude) >>> (52 - bits);
+        int sub = (int) (mantissa & (subBuckets - 1));
+        return 1 + (exponent - MIN_EXPONENT) * subBuckets + sub;
+    }
+
+    private double midpoint(int index) {
+        if (index == 0) {
+            return 0;
+        }
+        int exponent = (index - 1) / subBuckets + MIN_EXPONENT;
+        int sub = (index - 1) % subBuckets;
+        return Math.scalb(1 + (sub + 0.5) / subBuckets, exponent);
+    }
+
+    private void updateMin(double value) {
+        long current = min.get();
+        while (value < Double.longBitsToDouble(current)
+                && !min.compareAndSet(current, Double.doubleToLongBits(value))) {
+            current = min.get();
+        }
+    }
+
+    private void updateMax(double value) {
+        long current = max.get();
+        while (value > Double.longBitsToDouble(current)
+                && !max.compareAndSet(current, Double.doubleToLongBits(value))) {
+            current = max.get();
+        }
+    }
+}
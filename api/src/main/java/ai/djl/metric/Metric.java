@@ -115,6 +115,17 @@ public class Metric {
         return new Metric(name, value, unit, timestamp, dimensions);
     }
 
+    /**
+     * Returns a copy of the metric with a new name and value.
+     *
+     * @param name the new metric name
+     * @param value the new metric value
+     * @return a copy of the metric
+     */
+    public Metric copyOf(String name, Number value) {
+        return new Metric(name, value.toString(), unit, timestamp, dimensions);
+    }
+
     /**
      * Returns the name of the {@code Metric}.
      *
@@ -15,10 +15,12 @@ package ai.djl.metric;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
@@ -35,6 +37,11 @@ import java.util.stream.Collectors;
  * performance indicators (KPIs) during inference and training runs. These KPIs include various
  * latencies, CPU and GPU memory consumption, losses, etc.
  *
+ * <p>A metric can also be backed by a {@link Histogram} instead, see {@link #addHistogram(String)}
+ * and {@link #setHistogram(boolean)}. Its memory use is fixed no matter how many values are
+ * recorded, and its statistics are computed from the histogram buckets. Only the latest {@code
+ * Metric} of such a metric is kept.
+ *
  * <p>For more details about using the metrics, see the <a
  * href="https://github.com/deepjavalibrary/djl/blob/master/docs/how_to_collect_metrics.md">metrics
  * tutorial</a>.
@@ -42,12 +49,15 @@ import java.util.stream.Collectors;
 public class Metrics {
 
     private Map<String, List<Metric>> metrics;
+    private Map<String, HistogramMetric> histograms;
+    private boolean histogram;
     private int limit;
     private BiConsumer<Metrics, String> onLimit;
 
     /** Constructs an empty {@code Metrics} instance. */
     public Metrics() {
         metrics = new ConcurrentHashMap<>();
+        histograms = new ConcurrentHashMap<>();
     }
 
     /**
@@ -68,12 +78,72 @@ public class Metrics {
         this.onLimit = onLimit;
     }
 
+    /**
+     * Sets whether metrics that are not yet in the collection are backed by a {@link Histogram}.
+     *
+     * <p>This is useful to record metrics continuously, for example the timings of a {@link
+     * ai.djl.inference.Predictor} in production, without the memory growing with every sample.
+     *
+     * @param histogram {@code true} to record new metrics into histograms
+     */
+    public void setHistogram(boolean histogram) {
+        this.histogram = histogram;
+    }
+
+    /**
+     * Registers a metric that is recorded into a {@link Histogram}.
+     *
+     * <p>Values already recorded under this name as individual {@link Metric}s are moved into the
+     * histogram. The limit set by {@link #setLimit(int)} does not apply to histograms.
+     *
+     * @param name the metric name
+     * @return the histogram of the metric
+     */
+    public Histogram addHistogram(String name) {
+        return histograms.computeIfAbsent(
+                        name,
+                        k -> {
+                            HistogramMetric hm = new HistogramMetric();
+                            List<Metric> list = metrics.remove(k);
+                            if (list != null) {
+                                synchronized (list) {
+                                    for (Metric m : list) {
+                                        hm.add(m);
+                                    }
+                                }
+                            }
+                            return hm;
+                        })
+                .histogram;
+    }
+
+    /**
+     * Returns the {@link Histogram} of the specified metric.
+     *
+     * @param name the name of the metric
+     * @return the histogram, or {@code null} if the metric is not backed by a histogram
+     */
+    public Histogram getHistogram(String name) {
+        HistogramMetric hm = histograms.get(name);
+        return hm == null ? null : hm.histogram;
+    }
+
     /**
      * Adds a {@link Metric} to the collection.
      *
      * @param metric the {@link Metric} to be added
      */
     public void addMetric(Metric metric) {
+        String name = metric.getMetricName();
+        HistogramMetric hm = histograms.get(name);
+        if (hm == null && histogram && !metrics.containsKey(name)) {
+            addHistogram(name);
+            hm = histograms.get(name);
+        }
+        if (hm != null) {
+            hm.add(metric);
+            return;
+        }
         List<Metric> list =
                 metrics.computeIfAbsent(
                         metric.getMetricName(),
@@ -116,16 +186,23 @@ public class Metrics {
      * @return {@code true} if the metrics object has a metric with the given name
      */
     public boolean hasMetric(String name) {
-        return metrics.containsKey(name);
+        return metrics.containsKey(name) || histograms.containsKey(name);
     }
 
     /**
      * Returns all {@link Metric}s with the specified metric name.
      *
+     * <p>For a metric backed by a {@link Histogram}, only the latest {@code Metric} is returned.
+     *
      * @param name the name of the metric
      * @return a list of {@link Metric} with the specified metric name
      */
     public List<Metric> getMetric(String name) {
+        HistogramMetric hm = histograms.get(name);
+        if (hm != null) {
+            Metric latest = hm.latest.get();
+            return latest == null ? Collections.emptyList() : Collections.singletonList(latest);
+        }
         List<Metric> list = metrics.get(name);
         if (list == null) {
             return Collections.emptyList();
@@ -139,7 +216,12 @@ public class Metrics {
      * @return a set of {@link String} metric names
      */
     public Set<String> getMetricNames() {
-        return metrics.keySet();
+        if (histograms.isEmpty()) {
+            return metrics.keySet();
+        }
+        Set<String> names = new HashSet<>(metrics.keySet());
+        names.addAll(histograms.keySet());
+        return names;
     }
 
     /**
@@ -150,6 +232,10 @@ public class Metrics {
      * @throws IllegalArgumentException if the given name is not found
      */
     public Metric latestMetric(String name) {
+        HistogramMetric hm = histograms.get(name);
+        if (hm != null && hm.latest.get() != null) {
+            return hm.latest.get();
+        }
         List<Metric> list = metrics.get(name);
         if (list == null || list.isEmpty()) {
             throw new IllegalArgumentException("Could not find metric: " + name);
@@ -160,11 +246,22 @@ public class Metrics {
     /**
      * Returns a percentile {@link Metric} object for the specified metric name.
      *
+     * <p>For a metric backed by a {@link Histogram}, the value is estimated from the buckets.
+     *
      * @param metricName the name of the metric
      * @param percentile the percentile
      * @return the {@link Metric} object at specified {@code percentile}
      */
     public Metric percentile(String metricName, int percentile) {
+        HistogramMetric hm = histograms.get(metricName);
+        if (hm != null) {
+            Metric latest = hm.latest.get();
+            if (latest == null) {
+                throw new IllegalArgumentException("Metric name not found: " + metricName);
+            }
+            double value = hm.histogram.percentile(percentile);
+            return latest.copyOf(metricName + "_p" + percentile, value);
+        }
         List<Metric> metric = metrics.get(metricName);
         if (metric == null || metrics.isEmpty()) {
             throw new IllegalArgumentException("Metric name not found: " + metricName);
@@ -184,6 +281,10 @@ public class Metrics {
      * @return the average value of the specified metric
      */
     public double mean(String metricName) {
+        Histogram h = getHistogram(metricName);
+        if (h != null && h.getCount() > 0) {
+            return h.getMean();
+        }
         List<Metric> metric = metrics.get(metricName);
         if (metric == null || metrics.isEmpty()) {
             throw new IllegalArgumentException("Metric name not found: " + metricName);
@@ -191,4 +292,51 @@ public class Metrics {
 
         return metric.stream().collect(Collectors.averagingDouble(Metric::getValue));
     }
+
+    /**
+     * Returns the largest value of the specified metric.
+     *
+     * @param metricName the name of the metric
+     * @return the largest value of the specified metric
+     */
+    public double max(String metricName) {
+        Histogram h = getHistogram(metricName);
+        if (h != null && h.getCount() > 0) {
+            return h.getMax();
+        }
+        List<Metric> metric = metrics.get(metricName);
+        if (metric == null || metric.isEmpty()) {
+            throw new IllegalArgumentException("Metric name not found: " + metricName);
+        }
+
+        synchronized (metric) {
+            return metric.stream().mapToDouble(Metric::getValue).max().getAsDouble();
+        }
+    }
+
+    /**
+     * Returns the number of values recorded for the specified metric.
+     *
+     * @param metricName the name of the metric
+     * @return the number of values recorded, or 0 if the metric is not found
+     */
+    public long count(String metricName) {
+        Histogram h = getHistogram(metricName);
+        if (h != null) {
+            return h.getCount();
+        }
+        List<Metric> metric = metrics.get(metricName);
+        return metric == null ? 0 : metric.size();
+    }
+
+    private static final class HistogramMetric {
+
+        Histogram histogram = new Histogram();
+        AtomicReference<Metric> latest = new AtomicReference<>();
+
+        void add(Metric metric) {
+            histogram.record(metric.getValue());
+            latest.set(metric);
+        }
+    }
 }
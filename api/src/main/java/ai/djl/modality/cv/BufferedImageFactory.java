@@ -32,11 +32,18 @@ import java.awt.FontMetrics;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
 import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
@@ -239,45 +246,175 @@ public class BufferedImageFactory extends ImageFactory {
         public NDArray toNDArray(NDManager manager, Flag flag) {
             int width = image.getWidth();
             int height = image.getHeight();
-            int channel;
-            if (flag == Flag.GRAYSCALE) {
-                channel = 1;
+            int channel = flag == Flag.GRAYSCALE ? 1 : 3;
+
+            byte[] pixels = new byte[channel * height * width];
+            readPixels(channel, (index, value) -> pixels[index] = (byte) value);
+            ByteBuffer bb = manager.allocateDirect(pixels.length);
+            bb.put(pixels);
+            bb.rewind();
+            return manager.wrap(bb, new Shape(height, width, channel), DataType.UINT8);
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * <p>The pixels are read from the raster and written as floats into the buffer of the
+         * tensor directly, without an intermediate array for the common image types.
+         */
+        @Override
+        public NDArray toTensor(NDManager manager, Flag flag) {
+            int width = image.getWidth();
+            int height = image.getHeight();
+            int channel = flag == Flag.GRAYSCALE ? 1 : 3;
+            int area = height * width;
+
+            ByteBuffer bb = manager.allocateDirect(channel * area * 4);
+            FloatBuffer fb = bb.order(ByteOrder.nativeOrder()).asFloatBuffer();
+            Shape shape;
+            if ("TensorFlow".equals(manager.getEngine().getEngineName())) {
+                // TensorFlow keeps the HWC layout, see NDImageUtils.toTensor()
+                readPixels(channel, (index, value) -> fb.put(index, value / 255f));
+                shape = new Shape(height, width, channel);
+            } else if (channel == 1) {
+                readPixels(channel, (index, value) -> fb.put(index, value / 255f));
+                shape = new Shape(channel, height, width);
             } else {
-                channel = 3;
+                readPixels(
+                        channel,
+                        (index, value) -> fb.put(index % 3 * area + index / 3, value / 255f));
+                shape = new Shape(channel, height, width);
+            }
+            return manager.wrap(bb, shape, DataType.FLOAT32);
+        }
+
+        /**
+         * Reads the pixels in HWC layout with RGB or gray channels.
+         *
+         * <p>The common image types are read from their backing array directly. Other types go
+         * through {@link BufferedImage#getRGB(int, int, int, int, int[], int, int)}.
+         */
+        private void readPixels(int channel, PixelWriter out) {
+            int width = image.getWidth();
+            int height = image.getHeight();
+            Raster raster = image.getRaster();
+            DataBuffer buffer = raster.getDataBuffer();
+            int x0 = raster.getMinX() - raster.getSampleModelTranslateX();
+            int y0 = raster.getMinY() - raster.getSampleModelTranslateY();
+            switch (image.getType()) {
+                case BufferedImage.TYPE_BYTE_GRAY:
+                case BufferedImage.TYPE_3BYTE_BGR:
+                case BufferedImage.TYPE_4BYTE_ABGR:
+                    if (raster.getSampleModel() instanceof ComponentSampleModel
+                            && buffer instanceof DataBufferByte
+                            && buffer.getNumBanks() == 1) {
+                        ComponentSampleModel sm = (ComponentSampleModel) raster.getSampleModel();
+                        byte[] data = ((DataBufferByte) buffer).getData();
+                        int stride = sm.getScanlineStride();
+                        int pixelStride = sm.getPixelStride();
+                        int base = buffer.getOffset() + y0 * stride + x0 * pixelStride;
+                        int[] bands = sm.getBandOffsets();
+                        readBytes(data, base, stride, pixelStride, bands, out, channel);
+                        return;
+                    }
+                    if (image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+                        int[] data = new int[width * height];
+                        raster.getPixels(0, 0, width, height, data);
+                        int index = 0;
+                        for (int gray : data) {
+                            for (int c = 0; c < channel; ++c) {
+                                out.write(index++, gray & 0xFF);
+                            }
+                        }
+                        return;
+                    }
+                    break;
+                case BufferedImage.TYPE_INT_RGB:
+                case BufferedImage.TYPE_INT_ARGB:
+                    if (raster.getSampleModel() instanceof SinglePixelPackedSampleModel
+                            && buffer instanceof DataBufferInt) {
+                        SinglePixelPackedSampleModel sm =
+                                (SinglePixelPackedSampleModel) raster.getSampleModel();
+                        int[] data = ((DataBufferInt) buffer).getData();
+                        int stride = sm.getScanlineStride();
+                        int base = buffer.getOffset() + y0 * stride + x0;
+                        readInts(data, base, stride, out, channel);
+                        return;
+                    }
+                    break;
+                default:
+                    break;
             }
 
-            ByteBuffer bb = manager.allocateDirect(channel * height * width);
-            if (image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
-                int[] data = new int[width * height];
-                image.getData().getPixels(0, 0, width, height, data);
-                for (int gray : data) {
-                    byte b = (byte) gray;
-                    bb.put(b);
-                    if (flag != Flag.GRAYSCALE) {
-                        bb.put(b);
-                        bb.put(b);
+            // get an array of integer pixels in the default RGB color mode
+            int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+            readInts(pixels, 0, width, out, channel);
+        }
+
+        private void readBytes(
+                byte[] data,
+                int base,
+                int stride,
+                int pixelStride,
+                int[] bandOffsets,
+                PixelWriter out,
+                int channel) {
+            int width = image.getWidth();
+            int height = image.getHeight();
+            int index = 0;
+            if (bandOffsets.length == 1) {
+                // gray
+                for (int y = 0; y < height; ++y) {
+                    int pos = base + y * stride;
+                    for (int x = 0; x < width; ++x, pos += pixelStride) {
+                        int gray = data[pos] & 0xFF;
+                        for (int c = 0; c < channel; ++c) {
+                            out.write(index++, gray);
+                        }
                     }
                 }
-            } else {
-                // get an array of integer pixels in the default RGB color mode
-                int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
-                for (int rgb : pixels) {
+                return;
+            }
+            int r = bandOffsets[0];
+            int g = bandOffsets[1];
+            int b = bandOffsets[2];
+            for (int y = 0; y < height; ++y) {
+                int pos = base + y * stride;
+                for (int x = 0; x < width; ++x, pos += pixelStride) {
+                    int red = data[pos + r] & 0xFF;
+                    int green = data[pos + g] & 0xFF;
+                    int blue = data[pos + b] & 0xFF;
+                    index = writePixel(out, index, channel, red, green, blue);
+                }
+            }
+        }
+
+        private void readInts(int[] data, int base, int stride, PixelWriter out, int channel) {
+            int width = image.getWidth();
+            int height = image.getHeight();
+            int index = 0;
+            for (int y = 0; y < height; ++y) {
+                int pos = base + y * stride;
+                for (int x = 0; x < width; ++x) {
+                    int rgb = data[pos + x];
                     int red = (rgb >> 16) & 0xFF;
                     int green = (rgb >> 8) & 0xFF;
                     int blue = rgb & 0xFF;
-
-                    if (flag == Flag.GRAYSCALE) {
-                        int gray = Math.round(0.299f * red + 0.587f * green + 0.114f * blue);
-                        bb.put((byte) gray);
-                    } else {
-                        bb.put((byte) red);
-                        bb.put((byte) green);
-                        bb.put((byte) blue);
-                    }
+                    index = writePixel(out, index, channel, red, green, blue);
                 }
             }
-            bb.rewind();
-            return manager.create(bb, new Shape(height, width, channel), DataType.UINT8);
+        }
+
+        private int writePixel(
+                PixelWriter out, int index, int channel, int red, int green, int blue) {
+            if (channel == 1) {
+                out.write(index, Math.round(0.299f * red + 0.587f * green + 0.114f * blue));
+                return index + 1;
+            }
+            out.write(index, red);
+            out.write(index + 1, green);
+            out.write(index + 2, blue);
+            return index + 3;
         }
 
         /** {@inheritDoc} */
@@ -439,4 +576,10 @@ public class BufferedImageFactory extends ImageFactory {
             g.dispose();
         }
     }
+
+    /** Receives the channel values of the pixels of an image, in HWC order. */
+    private interface PixelWriter {
+
+        void write(int index, int value);
+    }
 }
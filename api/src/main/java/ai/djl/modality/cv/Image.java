@@ -15,6 +15,7 @@ package ai.djl.modality.cv;
 import ai.djl.modality.cv.output.BoundingBox;
 import ai.djl.modality.cv.output.DetectedObjects;
 import ai.djl.modality.cv.output.Joints;
+import ai.djl.modality.cv.util.NDImageUtils;
 import ai.djl.ndarray.NDArray;
 import ai.djl.ndarray.NDManager;
 
@@ -104,6 +105,23 @@ public interface Image {
      */
     NDArray toNDArray(NDManager manager, Flag flag);
 
+    /**
+     * Converts image to a float32 {@link NDArray} with values in [0, 1], like {@link
+     * ai.djl.modality.cv.transform.ToTensor} applied to {@link #toNDArray(NDManager, Flag)}.
+     *
+     * <p>The layout is CHW, except on TensorFlow which keeps HWC.
+     *
+     * @param manager a {@link NDManager} to create the new NDArray with
+     * @param flag the color mode
+     * @return {@link NDArray}
+     */
+    default NDArray toTensor(NDManager manager, Flag flag) {
+        NDArray array = toNDArray(manager, flag);
+        NDArray tensor = NDImageUtils.toTensor(array);
+        array.close();
+        return tensor;
+    }
+
     /**
      * Save the image to file.
      *
@@ -49,4 +49,18 @@ public class CenterCrop implements Transform {
         }
         return NDImageUtils.centerCrop(array, width, height);
     }
+
+    /** {@inheritDoc} */
+    @Override
+    public Transform fuse(Transform next) {
+        return FusedImageTransform.fuse(this, next);
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
 }
@@ -0,0 +1,341 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.modality.cv.transform;
+
+import ai.djl.modality.cv.Image;
+import ai.djl.modality.cv.util.NDImageUtils;
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.DataType;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.translate.Transform;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link Transform} that runs a chain of the standard image transforms in a single step.
+ *
+ * <p>The chain is an optional {@link CenterCrop}, an optional {@link Resize}, another optional
+ * {@link CenterCrop}, then {@link ToTensor} and an optional {@link Normalize}. Instead of running
+ * one engine operation per transform, the pixels are copied to the host once, a single loop samples
+ * the resized and cropped pixels, scales and normalizes them, and the result is created as one
+ * array. The input can be an image in HWC layout or a batch of images in NHWC layout.
+ *
+ * <p>The output has the layout that {@link ToTensor} produces on the engine: CHW (NCHW for a
+ * batch), or HWC (NHWC) on TensorFlow. Resizing follows the engine's convention as well: bilinear
+ * samples are taken at half-pixel centers, except on TensorFlow which samples at {@code x * scale}.
+ * Only {@link Image.Interpolation#NEAREST} and {@link Image.Interpolation#BILINEAR} can be fused.
+ * Inputs that are not uint8 or float32 images, and chains that do not reach {@link ToTensor}, are
+ * processed by the original transforms.
+ *
+ * <p>A {@code FusedImageTransform} is created by {@link Transform#fuse(Transform)}, usually through
+ * {@link ai.djl.translate.Pipeline#optimize()}.
+ */
+public class FusedImageTransform implements Transform {
+
+    private static final int EMPTY = 0;
+    private static final int PRE_CROP = 1;
+    private static final int RESIZE = 2;
+    private static final int POST_CROP = 3;
+    private static final int TO_TENSOR = 4;
+    private static final int NORMALIZE = 5;
+
+    private List<Transform> transforms;
+    private int stage;
+    private CenterCrop preCrop;
+    private Resize resize;
+    private CenterCrop postCrop;
+    private Normalize normalize;
+
+    private FusedImageTransform() {
+        transforms = new ArrayList<>();
+        stage = EMPTY;
+    }
+
+    private FusedImageTransform(FusedImageTransform other) {
+        transforms = new ArrayList<>(other.transforms);
+        stage = other.stage;
+        preCrop = other.preCrop;
+        resize = other.resize;
+        postCrop = other.postCrop;
+        normalize = other.normalize;
+    }
+
+    /**
+     * Returns a {@code FusedImageTransform} that applies two transforms in one step.
+     *
+     * @param first the transform to apply first
+     * @param next the transform to apply next
+     * @return the fused transform, or {@code null} if the transforms can't be fused
+     */
+    static Transform fuse(Transform first, Transform next) {
+        FusedImageTransform fused = new FusedImageTransform();
+        if (fused.append(first) && fused.append(next)) {
+            return fused;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the transforms that are fused, in the order they are applied.
+     *
+     * @return the fused transforms
+     */
+    public List<Transform> getTransforms() {
+        return Collections.unmodifiableList(transforms);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Transform fuse(Transform next) {
+        FusedImageTransform fused = new FusedImageTransform(this);
+        return fused.append(next) ? fused : null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public NDArray transform(NDArray array) {
+        Shape shape = array.getShape();
+        DataType dataType = array.getDataType();
+        int dim = shape.dimension();
+        if (stage < TO_TENSOR
+                || (dim != 3 && dim != 4)
+                || (dataType != DataType.UINT8 && dataType != DataType.FLOAT32)) {
+            return applyAll(array);
+        }
+        int channel = (int) shape.get(dim - 1);
+        if ((channel != 1 && channel != 3) || NDImageUtils.isCHW(shape)) {
+            return applyAll(array);
+        }
+        if (normalize != null) {
+            int size = normalize.getMean().length;
+            if (size != normalize.getStd().length || (size != 1 && size != channel)) {
+                return applyAll(array);
+            }
+        }
+
+        int batchSize = dim == 4 ? (int) shape.get(0) : 1;
+        int height = (int) shape.get(dim - 3);
+        int width = (int) shape.get(dim - 2);
+        NDManager manager = array.getManager();
+        boolean channelsLast = "TensorFlow".equals(manager.getEngine().getEngineName());
+
+        // the region of the input that is resized, and the region of the resized image to keep
+        int[] source = {0, 0, width, height};
+        if (preCrop != null) {
+            source = cropBox(preCrop, width, height);
+        }
+        int resizedWidth = resize == null ? source[2] : resize.getWidth();
+        int resizedHeight = resize == null ? source[3] : resize.getHeight();
+        int[] target = {0, 0, resizedWidth, resizedHeight};
+        if (postCrop != null) {
+            target = cropBox(postCrop, resizedWidth, resizedHeight);
+        }
+        int outWidth = target[2];
+        int outHeight = target[3];
+
+        boolean bilinear =
+                resize != null && resize.getInterpolation() == Image.Interpolation.BILINEAR;
+        Sampling xs = new Sampling(source[0], source[2], resizedWidth, target[0], outWidth);
+        Sampling ys = new Sampling(source[1], source[3], resizedHeight, target[1], outHeight);
+        if (resize != null) {
+            xs.compute(bilinear, !channelsLast);
+            ys.compute(bilinear, !channelsLast);
+        }
+
+        // (x / 255 - mean) / std as a single multiply-add per channel
+        float[] scale = new float[channel];
+        float[] shift = new float[channel];
+        for (int c = 0; c < channel; ++c) {
+            scale[c] = 1f / 255;
+            if (normalize != null) {
+                float mean = normalize.getMean()[normalize.getMean().length == 1 ? 0 : c];
+                float std = normalize.getStd()[normalize.getStd().length == 1 ? 0 : c];
+                scale[c] /= std;
+                shift[c] = mean / std;
+            }
+        }
+
+        float[] src = toFloats(array.toByteBuffer(true), dataType, (int) shape.size());
+        float[] out = new float[batchSize * channel * outHeight * outWidth];
+        int rowStride = width * channel;
+        int plane = outHeight * outWidth;
+        int index = 0;
+        for (int n = 0; n < batchSize; ++n) {
+            int image = n * height * rowStride;
+            for (int oy = 0; oy < outHeight; ++oy) {
+                int row0 = image + ys.index0[oy] * rowStride;
+                int row1 = image + ys.index1[oy] * rowStride;
+                float fy = ys.weight[oy];
+                for (int ox = 0; ox < outWidth; ++ox) {
+                    int col0 = xs.index0[ox] * channel;
+                    int col1 = xs.index1[ox] * channel;
+                    float fx = xs.weight[ox];
+                    for (int c = 0; c < channel; ++c) {
+                        float value = src[row0 + col0 + c];
+                        if (bilinear) {
+                            float top = value + (src[row0 + col1 + c] - value) * fx;
+                            float p10 = src[row1 + col0 + c];
+                            float bottom = p10 + (src[row1 + col1 + c] - p10) * fx;
+                            value = top + (bottom - top) * fy;
+                        }
+                        value = value * scale[c] - shift[c];
+                        if (channelsLast) {
+                            out[index++] = value;
+                        } else {
+                            out[(n * channel + c) * plane + oy * outWidth + ox] = value;
+                        }
+                    }
+                }
+            }
+        }
+
+        Shape outShape =
+                channelsLast
+                        ? new Shape(outHeight, outWidth, channel)
+                        : new Shape(channel, outHeight, outWidth);
+        if (dim == 4) {
+            outShape = new Shape(batchSize).addAll(outShape);
+        }
+        ByteBuffer bb = manager.allocateDirect(out.length * 4);
+        bb.order(ByteOrder.nativeOrder()).asFloatBuffer().put(out);
+        return manager.wrap(bb, outShape, DataType.FLOAT32);
+    }
+
+    private boolean append(Transform transform) {
+        Class<?> type = transform.getClass();
+        if (type == CenterCrop.class) {
+            if (stage < PRE_CROP) {
+                preCrop = (CenterCrop) transform;
+                stage = PRE_CROP;
+            } else if (stage == RESIZE) {
+                postCrop = (CenterCrop) transform;
+                stage = POST_CROP;
+            } else {
+                return false;
+            }
+        } else if (type == Resize.class) {
+            Image.Interpolation interpolation = ((Resize) transform).getInterpolation();
+            if (stage >= RESIZE
+                    || (interpolation != Image.Interpolation.NEAREST
+                            && interpolation != Image.Interpolation.BILINEAR)) {
+                return false;
+            }
+            resize = (Resize) transform;
+            stage = RESIZE;
+        } else if (type == ToTensor.class) {
+            if (stage >= TO_TENSOR) {
+                return false;
+            }
+            stage = TO_TENSOR;
+        } else if (type == Normalize.class) {
+            if (stage != TO_TENSOR) {
+                return false;
+            }
+            normalize = (Normalize) transform;
+            stage = NORMALIZE;
+        } else {
+            return false;
+        }
+        transforms.add(transform);
+        return true;
+    }
+
+    private NDArray applyAll(NDArray array) {
+        NDArray result = array;
+        for (Transform transform : transforms) {
+            result = transform.transform(result);
+        }
+        return result;
+    }
+
+    /** Returns {x, y, width, height} of the region {@link NDImageUtils#centerCrop} keeps. */
+    private static int[] cropBox(CenterCrop crop, int width, int height) {
+        int cropWidth = crop.getWidth();
+        int cropHeight = crop.getHeight();
+        if (cropWidth < 0) {
+            cropWidth = Math.min(width, height);
+            cropHeight = cropWidth;
+        }
+        int dw = (width - cropWidth) / 2;
+        int dh = (height - cropHeight) / 2;
+        return new int[] {
+            Math.max(dw, 0),
+            Math.max(dh, 0),
+            dw > 0 ? cropWidth : width,
+            dh > 0 ? cropHeight : height
+        };
+    }
+
+    private static float[] toFloats(ByteBuffer bb, DataType dataType, int size) {
+        bb.order(ByteOrder.nativeOrder());
+        float[] ret = new float[size];
+        if (dataType == DataType.FLOAT32) {
+            bb.asFloatBuffer().get(ret);
+        } else {
+            byte[] bytes = new byte[size];
+            bb.get(bytes);
+            for (int i = 0; i < size; ++i) {
+                ret[i] = bytes[i] & 0xFF;
+            }
+        }
+        return ret;
+    }
+
+    /** The input coordinates that each output coordinate along one axis is sampled from. */
+    private static final class Sampling {
+
+        int offset;
+        int length;
+        int resized;
+        int start;
+        int[] index0;
+        int[] index1;
+        float[] weight;
+
+        Sampling(int offset, int length, int resized, int start, int size) {
+            this.offset = offset;
+            this.length = length;
+            this.resized = resized;
+            this.start = start;
+            index0 = new int[size];
+            index1 = new int[size];
+            weight = new float[size];
+            for (int i = 0; i < size; ++i) {
+                index0[i] = offset + start + i;
+                index1[i] = index0[i];
+            }
+        }
+
+        void compute(boolean bilinear, boolean halfPixel) {
+            float scale = (float) length / resized;
+            for (int i = 0; i < index0.length; ++i) {
+                int pos = start + i;
+                if (!bilinear) {
+                    index0[i] = offset + Math.min((int) Math.floor(pos * scale), length - 1);
+                    index1[i] = index0[i];
+                    continue;
+                }
+                float in = halfPixel ? Math.max((pos + 0.5f) * scale - 0.5f, 0) : pos * scale;
+                int low = Math.min((int) Math.floor(in), length - 1);
+                index0[i] = offset + low;
+                index1[i] = offset + Math.min(low + 1, length - 1);
+                weight[i] = in - low;
+            }
+        }
+    }
+}
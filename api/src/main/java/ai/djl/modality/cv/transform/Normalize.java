@@ -38,4 +38,18 @@ public class Normalize implements Transform {
     public NDArray transform(NDArray array) {
         return NDImageUtils.normalize(array, mean, std);
     }
+
+    /** {@inheritDoc} */
+    @Override
+    public Transform fuse(Transform next) {
+        return FusedImageTransform.fuse(this, next);
+    }
+
+    float[] getMean() {
+        return mean;
+    }
+
+    float[] getStd() {
+        return std;
+    }
 }
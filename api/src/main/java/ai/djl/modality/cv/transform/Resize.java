@@ -62,4 +62,22 @@ public class Resize implements Transform {
     public NDArray transform(NDArray array) {
         return NDImageUtils.resize(array, width, height, interpolation);
     }
+
+    /** {@inheritDoc} */
+    @Override
+    public Transform fuse(Transform next) {
+        return FusedImageTransform.fuse(this, next);
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    Image.Interpolation getInterpolation() {
+        return interpolation;
+    }
 }
@@ -29,4 +29,10 @@ public class ToTensor implements Transform {
     public NDArray transform(NDArray array) {
         return NDImageUtils.toTensor(array);
     }
+
+    /** {@inheritDoc} */
+    @Override
+    public Transform fuse(Transform next) {
+        return FusedImageTransform.fuse(this, next);
+    }
 }
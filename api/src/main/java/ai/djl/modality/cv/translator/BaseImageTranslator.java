@@ -59,6 +59,9 @@ public abstract class BaseImageTranslator<T> implements Translator<Image, T> {
     public BaseImageTranslator(BaseBuilder<?> builder) {
         flag = builder.flag;
         pipeline = builder.pipeline;
+        if (builder.fusePipeline && pipeline != null) {
+            pipeline = pipeline.optimize();
+        }
         batchifier = builder.batchifier;
     }
 
@@ -88,6 +91,7 @@ public abstract class BaseImageTranslator<T> implements Translator<Image, T> {
         protected Image.Flag flag = Image.Flag.COLOR;
         protected Pipeline pipeline;
         protected Batchifier batchifier = Batchifier.STACK;
+        protected boolean fusePipeline;
 
         /**
          * Sets the optional {@link ai.djl.modality.cv.Image.Flag} (default is {@link
@@ -126,6 +130,21 @@ public abstract class BaseImageTranslator<T> implements Translator<Image, T> {
             return self();
         }
 
+        /**
+         * Sets whether to fuse the transforms of the {@link Pipeline} (default is {@code false}).
+         *
+         * <p>A fused pipeline runs the standard resize, crop, to tensor and normalize transforms in
+         * one step, see {@link Pipeline#optimize()}. The resized values can differ slightly from
+         * the engine's own resize operation.
+         *
+         * @param fusePipeline true to fuse the transforms of the pipeline
+         * @return this builder
+         */
+        public T optFusePipeline(boolean fusePipeline) {
+            this.fusePipeline = fusePipeline;
+            return self();
+        }
+
         /**
          * Sets the {@link Batchifier} for the {@link Translator}.
          *
@@ -200,6 +219,7 @@ public abstract class BaseImageTranslator<T> implements Translator<Image, T> {
             } else if ("-1,1".equals(range)) {
                 addTransform(a -> a.div(128f).sub(1));
             }
+            fusePipeline = ArgumentsUtil.booleanValue(arguments, "fusePipeline", false);
             if (arguments.containsKey("batchifier")) {
                 batchifier = Batchifier.fromString((String) arguments.get("batchifier"));
             }
@@ -18,10 +18,12 @@ import ai.djl.ndarray.types.DataType;
 import ai.djl.ndarray.types.Shape;
 import ai.djl.util.PairList;
 import ai.djl.util.RandomUtils;
+import ai.djl.util.ResourceIds;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.DoubleBuffer;
@@ -32,9 +34,11 @@ import java.nio.ShortBuffer;
 import java.nio.charset.Charset;
 import java.nio.file.Path;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -43,6 +47,8 @@ public abstract class BaseNDManager implements NDManager {
 
     private static final Logger logger = LoggerFactory.getLogger(BaseNDManager.class);
 
+    private static final boolean MEMORY_ACCOUNTING = Boolean.getBoolean("ai.djl.memory_accounting");
+
     protected NDManager parent;
     protected NDManager alternativeManager;
     protected String uid;
@@ -53,13 +59,19 @@ public abstract class BaseNDManager implements NDManager {
     protected AtomicBoolean closed = new AtomicBoolean(false);
     protected AtomicBoolean capped = new AtomicBoolean(false);
 
+    private LongAdder liveArrays = new LongAdder();
+    private LongAdder liveBytes = new LongAdder();
+    private Map<String, Long> arraySizes = new ConcurrentHashMap<>();
+    private Map<String, Long> arenaArraySizes = new ConcurrentHashMap<>();
+    private AtomicReference<MemoryLimit> memoryLimit = new AtomicReference<>();
+
     @SuppressWarnings("this-escape")
     protected BaseNDManager(NDManager parent, Device device) {
         this.parent = parent;
         this.device = device == null ? defaultDevice() : device;
         resources = new ConcurrentHashMap<>();
         tempResources = new ConcurrentHashMap<>();
-        uid = UUID.randomUUID().toString();
+        uid = ResourceIds.nextUid();
         Engine engine = getEngine().getAlternativeEngine();
         if (engine != null) {
             alternativeManager = engine.newBaseManager(Device.cpu());
@@ -105,7 +117,11 @@ public abstract class BaseNDManager implements NDManager {
     /** {@inheritDoc} */
     @Override
     public NDList load(Path path) {
-        throw new UnsupportedOperationException("Not supported!");
+        try {
+            return NDList.load(this, path);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to load " + path, e);
+        }
     }
 
     /** {@inheritDoc} */
@@ -277,6 +293,11 @@ public abstract class BaseNDManager implements NDManager {
                                                         .getResourceNDArrays().stream();
                                             } else if (r instanceof NDManager) {
                                                 return ((NDManager) r).getManagedArrays().stream();
+                                            } else if (r instanceof LeakDetector.Tracker) {
+                                                NDArray array = ((LeakDetector.Tracker) r).get();
+                                                return array == null
+                                                        ? Stream.empty()
+                                                        : Stream.of(array);
                                             } else {
                                                 return Stream.empty();
                                             }
@@ -288,6 +309,29 @@ public abstract class BaseNDManager implements NDManager {
                 .collect(Collectors.toList());
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public long getLiveArrayCount() {
+        return liveArrays.sum();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getLiveBytes() {
+        return liveBytes.sum();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setMemoryLimit(long limit, long timeout) {
+        MemoryLimit previous =
+                memoryLimit.getAndSet(limit > 0 ? new MemoryLimit(this, limit, timeout) : null);
+        if (previous != null) {
+            // wake up the threads waiting on the previous limit
+            previous.signal();
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public String toString() {
@@ -304,7 +348,7 @@ public abstract class BaseNDManager implements NDManager {
 
     /** {@inheritDoc} */
     @Override
-    public synchronized void attachInternal(String resourceId, AutoCloseable... resources) {
+    public void attachInternal(String resourceId, AutoCloseable... resources) {
         if (capped.get()) {
             throw new IllegalStateException("NDManager is capped for addition of resources.");
         }
@@ -316,26 +360,39 @@ public abstract class BaseNDManager implements NDManager {
 
     /** {@inheritDoc} */
     @Override
-    public synchronized void attachUncappedInternal(String resourceId, AutoCloseable resource) {
+    public void attachUncappedInternal(String resourceId, AutoCloseable resource) {
         if (closed.get()) {
             throw new IllegalStateException("NDManager has been closed already.");
         }
-        tempResources.compute(
-                resourceId,
-                (key, tempResource) -> {
-                    if (tempResource != null) {
-                        // This state occurs when this manager (manA) tempAttaches a resource that
-                        // is later
-                        // tempAttached to another manager (manB)
-                        // When manB is closed, it will use attach to return the resource to this
-                        // (manA)
-                        // In that case, it should stay as a tempResource in this (manA)
-                        tempResource.detached = false;
-                    } else {
-                        resources.put(resourceId, resource);
-                    }
-                    return tempResource;
-                });
+        // lock free, the maps are only updated with atomic per key operations
+        TempResource tempResource =
+                tempResources.computeIfPresent(
+                        resourceId,
+                        (key, temp) -> {
+                            // This state occurs when this manager (manA) tempAttaches a resource
+                            // that is later tempAttached to another manager (manB)
+                            // When manB is closed, it will use attach to return the resource to
+                            // this (manA)
+                            // In that case, it should stay as a tempResource in this (manA)
+                            temp.detached = false;
+                            return temp;
+                        });
+        AutoCloseable attached = resource;
+        LeakDetector leakDetector = LeakDetector.getInstance();
+        if (leakDetector.isEnabled() && resource instanceof NDArray) {
+            // only keep a weak reference to the arrays tracked by the leak detector
+            attached = leakDetector.getAttached(resourceId, resource, this);
+        }
+        if (tempResource == null && resources.put(resourceId, attached) == null) {
+            if (closed.get()) {
+                // closed concurrently, close() may have missed the resource
+                resources.remove(resourceId);
+                throw new IllegalStateException("NDManager has been closed already.");
+            }
+            if (resource instanceof NDArray) {
+                addArray(resourceId, (NDArray) resource);
+            }
+        }
     }
 
     /** {@inheritDoc} */
@@ -354,7 +411,7 @@ public abstract class BaseNDManager implements NDManager {
 
     /** {@inheritDoc} */
     @Override
-    public synchronized void detachInternal(String resourceId) {
+    public void detachInternal(String resourceId) {
         if (closed.get()) {
             // This may happen in the middle of BaseNDManager.close()
             return;
@@ -365,7 +422,12 @@ public abstract class BaseNDManager implements NDManager {
                     tempResource.detached = true;
                     return tempResource;
                 });
-        resources.remove(resourceId);
+        AutoCloseable removed = resources.remove(resourceId);
+        if (removed instanceof NDArray || removed instanceof LeakDetector.Tracker) {
+            removeArray(resourceId);
+        } else if (removed == null) {
+            removeArenaArray(resourceId);
+        }
     }
 
     /** {@inheritDoc} */
@@ -403,7 +465,133 @@ public abstract class BaseNDManager implements NDManager {
             parent.detachInternal(uid);
             resources.clear();
             tempResources.clear();
+            // the sub-managers removed their own arrays, the remaining ones belong to this manager
+            updateCounters(-liveArrays.sum(), -liveBytes.sum());
+            arraySizes.clear();
+            arenaArraySizes.clear();
+        }
+    }
+
+    /**
+     * Returns the size of an array for the memory accounting.
+     *
+     * @param array the array
+     * @return the size of the array in bytes
+     */
+    protected long getByteSize(NDArray array) {
+        long size = array.getShape().size();
+        return size <= 0 ? 0 : size * array.getDataType().getNumOfBytes();
+    }
+
+    /**
+     * Counts an array that is owned by an arena {@link NDScope} instead of this manager.
+     *
+     * <p>The array is counted by {@link #getLiveArrayCount()} and {@link #getLiveBytes()} and
+     * checked against the memory limit until it is closed or escapes the arena.
+     *
+     * @param array the array created in an arena
+     */
+    void addArenaArray(NDArray array) {
+        if (closed.get()) {
+            return;
         }
+        String uid = array.getUid();
+        long bytes = isMemoryAccounted() ? getByteSize(array) : 0;
+        arenaArraySizes.put(uid, bytes);
+        MemoryLimit exceeded = updateCounters(1, bytes);
+        if (exceeded != null && !exceeded.await()) {
+            removeArenaArray(uid);
+            array.close();
+            throw new IllegalStateException(
+                    "Creating "
+                            + bytes
+                            + " bytes in an arena of "
+                            + getName()
+                            + " exceeds the memory limit of "
+                            + exceeded.getLimit()
+                            + " bytes");
+        }
+    }
+
+    /**
+     * Stops counting an array that was added with {@link #addArenaArray(NDArray)}.
+     *
+     * @param resourceId the uid of the array
+     */
+    void removeArenaArray(String resourceId) {
+        Long bytes = arenaArraySizes.remove(resourceId);
+        if (bytes != null) {
+            updateCounters(-1, -bytes);
+        }
+    }
+
+    private void addArray(String resourceId, NDArray array) {
+        long bytes = 0;
+        if (isMemoryAccounted()) {
+            bytes = getByteSize(array);
+            arraySizes.put(resourceId, bytes);
+        }
+        MemoryLimit exceeded = updateCounters(1, bytes);
+        if (exceeded != null && !exceeded.await()) {
+            resources.remove(resourceId);
+            removeArray(resourceId);
+            array.close();
+            throw new IllegalStateException(
+                    "Attaching "
+                            + bytes
+                            + " bytes to "
+                            + getName()
+                            + " exceeds the memory limit of "
+                            + exceeded.getLimit()
+                            + " bytes");
+        }
+    }
+
+    private void removeArray(String resourceId) {
+        Long bytes = arraySizes.remove(resourceId);
+        updateCounters(-1, bytes == null ? 0 : -bytes);
+    }
+
+    /**
+     * Adds to the counters of this manager and its parents.
+     *
+     * @return the first limit that is exceeded after the update, if the bytes increased
+     */
+    private MemoryLimit updateCounters(long arrays, long bytes) {
+        MemoryLimit exceeded = null;
+        for (BaseNDManager m = this; m != null; m = m.getBaseParent()) {
+            m.liveArrays.add(arrays);
+            if (bytes == 0) {
+                continue;
+            }
+            m.liveBytes.add(bytes);
+            MemoryLimit limit = m.memoryLimit.get();
+            if (limit != null) {
+                if (bytes < 0) {
+                    limit.signal();
+                } else if (exceeded == null && m.liveBytes.sum() > limit.getLimit()) {
+                    exceeded = limit;
+                }
+            }
+        }
+        return exceeded;
+    }
+
+    private boolean isMemoryAccounted() {
+        for (BaseNDManager m = this; m != null; m = m.getBaseParent()) {
+            if (m.memoryLimit.get() != null) {
+                return true;
+            }
+        }
+        return MEMORY_ACCOUNTING;
+    }
+
+    MemoryLimit getMemoryLimit() {
+        return memoryLimit.get();
+    }
+
+    private BaseNDManager getBaseParent() {
+        return parent instanceof BaseNDManager && parent != this ? (BaseNDManager) parent : null;
     }
 
     /**
@@ -417,7 +605,7 @@ public abstract class BaseNDManager implements NDManager {
             sb.append("    ");
         }
         sb.append("\\--- NDManager(")
-                .append(uid.substring(24))
+                .append(uid)
                 .append(") resource count: ")
                 .append(resources.size());
 
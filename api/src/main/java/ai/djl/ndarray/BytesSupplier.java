@@ -12,7 +12,9 @@
  */
 package ai.djl.ndarray;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
 
 /** Represents a supplier of {@code byte[]}. */
@@ -58,6 +60,22 @@ public interface BytesSupplier {
      */
     ByteBuffer toByteBuffer();
 
+    /**
+     * Writes the {@code byte[]} presentation of the object to a channel.
+     *
+     * <p>Implementations can stream the data instead of copying it into a single {@code byte[]}
+     * first.
+     *
+     * @param channel the channel to write to
+     * @throws IOException if failed to write to the channel
+     */
+    default void writeTo(WritableByteChannel channel) throws IOException {
+        ByteBuffer bb = toByteBuffer();
+        while (bb.hasRemaining()) {
+            channel.write(bb);
+        }
+    }
+
     /**
      * Wraps a byte array into a {code BytesSupplier}.
      *
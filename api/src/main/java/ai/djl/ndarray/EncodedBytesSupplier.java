@@ -0,0 +1,53 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.ndarray;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/** A {@link BytesSupplier} that encodes an {@link NDList} only when its data is requested. */
+final class EncodedBytesSupplier implements BytesSupplier {
+
+    private NDList list;
+    private NDList.Encoding encoding;
+
+    EncodedBytesSupplier(NDList list, NDList.Encoding encoding) {
+        this.list = list;
+        this.encoding = encoding;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public byte[] getAsBytes() {
+        return list.encode(encoding);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Object getAsObject() {
+        return list;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(getAsBytes());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        list.encode(channel, encoding);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.ndarray;
+
+import ai.djl.ndarray.types.DataType;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.util.ResourceIds;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * An {@link NDArray} view of data in host memory.
+ *
+ * <p>The view holds a region of a {@link ByteBuffer}, usually a slice of a batch that was copied
+ * from the engine once. Reading the data, for example with {@link #toFloatArray()}, does not run
+ * any engine operation. The first operation that needs the engine creates an array of the view's
+ * manager from the data, which is then reused for further operations.
+ */
+public class HostNDArray extends NDArrayAdapter {
+
+    private ByteBuffer data;
+
+    /**
+     * Constructs a {@code HostNDArray} over the remaining bytes of a buffer.
+     *
+     * @param manager the manager of the array, also used to create the engine array when needed
+     * @param data the data in native byte order, it is not copied
+     * @param shape the {@link Shape} of the array
+     * @param dataType the {@link DataType} of the array
+     */
+    public HostNDArray(NDManager manager, ByteBuffer data, Shape shape, DataType dataType) {
+        super(manager, manager, shape, dataType, ResourceIds.nextUid());
+        this.data = data.slice().order(ByteOrder.nativeOrder());
+        manager.attachInternal(uid, this);
+    }
+
+    /**
+     * Returns views of the samples of a batched array, after copying it to the host once.
+     *
+     * <p>Sample {@code i} covers the {@code i}-th entry along axis 0 of {@code batch}.
+     *
+     * @param batch the batched array
+     * @return one view per entry along axis 0
+     */
+    public static HostNDArray[] split(NDArray batch) {
+        Shape shape = batch.getShape();
+        int batchSize = Math.toIntExact(shape.get(0));
+        Shape sampleShape = shape.slice(1);
+        DataType dataType = batch.getDataType();
+        int sampleBytes = Math.toIntExact(sampleShape.size() * dataType.getNumOfBytes());
+
+        ByteBuffer host = batch.toByteBuffer();
+        int start = host.position();
+        HostNDArray[] views = new HostNDArray[batchSize];
+        for (int i = 0; i < batchSize; ++i) {
+            ByteBuffer bb = host.duplicate();
+            bb.position(start + i * sampleBytes);
+            bb.limit(start + (i + 1) * sampleBytes);
+            views[i] = new HostNDArray(batch.getManager(), bb, sampleShape, dataType);
+            views[i].setName(batch.getName());
+        }
+        return views;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ByteBuffer toByteBuffer() {
+        if (isClosed) {
+            throw new IllegalStateException("Native resource has been release already.");
+        }
+        return data.duplicate().order(ByteOrder.nativeOrder());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void set(Buffer buffer) {
+        int size = Math.toIntExact(shape.size());
+        BaseNDManager.validateBuffer(buffer, dataType, size);
+        BaseNDManager.copyBuffer(buffer, toByteBuffer());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void intern(NDArray replaced) {
+        data = replaced.toByteBuffer().slice().order(ByteOrder.nativeOrder());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void detach() {
+        manager.detachInternal(getUid());
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.ndarray;
+
+import ai.djl.metric.Metrics;
+import ai.djl.metric.Unit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reports {@link NDArray}s that become unreachable without being closed.
+ *
+ * <p>An array that is not closed keeps its native memory until its {@link NDManager} is closed,
+ * which for the manager of a model is usually never. While the detector is on, a manager only holds
+ * a weak reference to the arrays tracked by their engine, so a forgotten array can be garbage
+ * collected. The detector logs each of them and, if enabled, frees its native memory right away
+ * instead of when the manager is closed.
+ *
+ * <p>The detector is configured with system properties:
+ *
+ * <ul>
+ *   <li>{@code ai.djl.leak_detection=true} turns it on, it can also be turned on with {@link
+ *       #setEnabled(boolean)}
+ *   <li>{@code ai.djl.leak_detection.sample_rate} is the fraction of allocations whose stack trace
+ *       is recorded and logged with the leak, 0.01 by default
+ *   <li>{@code ai.djl.leak_detection.release=true} frees the leaked arrays
+ * </ul>
+ *
+ * <p>When it is off, the only cost is a check of a flag when an array is created.
+ */
+public final class LeakDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeakDetector.class);
+
+    private static final LeakDetector INSTANCE = new LeakDetector();
+
+    private AtomicBoolean enabled;
+    private AtomicBoolean releaseLeaks;
+    private double sampleRate;
+    private Map<String, Tracker> trackers;
+    private ReferenceQueue<NDArray> queue;
+    private AtomicBoolean started;
+    private LongAdder leaked;
+    private LongAdder released;
+
+    private LeakDetector() {
+        enabled = new AtomicBoolean(Boolean.getBoolean("ai.djl.leak_detection"));
+        releaseLeaks = new AtomicBoolean(Boolean.getBoolean("ai.djl.leak_detection.release"));
+        sampleRate =
+                Double.parseDouble(System.getProperty("ai.djl.leak_detection.sample_rate", "0.01"));
+        trackers = new ConcurrentHashMap<>();
+        queue = new ReferenceQueue<>();
+        started = new AtomicBoolean();
+        leaked = new LongAdder();
+        released = new LongAdder();
+    }
+
+    /**
+     * Returns the leak detector.
+     *
+     * @return the leak detector
+     */
+    public static LeakDetector getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns whether new arrays are tracked.
+     *
+     * @return whether new arrays are tracked
+     */
+    public boolean isEnabled() {
+        return enabled.get();
+    }
+
+    /**
+     * Turns the tracking of new arrays on or off.
+     *
+     * @param enabled whether to track new arrays
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled.set(enabled);
+    }
+
+    /**
+     * Sets whether the native memory of a leaked array is freed as soon as the leak is detected.
+     *
+     * @param releaseLeaks whether to free the leaked arrays
+     */
+    public void setReleaseLeaks(boolean releaseLeaks) {
+        this.releaseLeaks.set(releaseLeaks);
+    }
+
+    /**
+     * Returns the number of arrays that became unreachable without being closed.
+     *
+     * @return the number of leaked arrays
+     */
+    public long getLeakCount() {
+        return leaked.sum();
+    }
+
+    /**
+     * Returns the number of leaked arrays whose native memory was freed by the detector.
+     *
+     * @return the number of freed arrays
+     */
+    public long getReleasedCount() {
+        return released.sum();
+    }
+
+    /**
+     * Adds the {@code LeakedArrays} and {@code ReleasedLeakedArrays} counts to the metrics.
+     *
+     * @param metrics the metrics to add to
+     */
+    public void addMetrics(Metrics metrics) {
+        metrics.addMetric("LeakedArrays", leaked.sum(), Unit.COUNT);
+        metrics.addMetric("ReleasedLeakedArrays", released.sum(), Unit.COUNT);
+    }
+
+    /**
+     * Tracks a new array, must be called by the engine before the array is attached to its manager.
+     *
+     * <p>The release function frees the native memory of the array. It must not reference the
+     * array, otherwise the array never becomes unreachable.
+     *
+     * @param array the new array
+     * @param release the function that frees the native memory of the array
+     */
+    public void track(NDArray array, Runnable release) {
+        if (!started.getAndSet(true)) {
+            Thread thread = new Thread(this::run, "djl-leak-detector");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        Exception allocation = null;
+        if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            allocation = new Exception("Allocated at:");
+        }
+        String uid = array.getUid();
+        trackers.put(uid, new Tracker(array, uid, release, allocation, queue));
+    }
+
+    /**
+     * Stops tracking an array, must be called by the engine when the array is closed.
+     *
+     * @param uid the unique id of the array
+     */
+    public void untrack(String uid) {
+        Tracker tracker = trackers.remove(uid);
+        if (tracker != null) {
+            tracker.clear();
+        }
+    }
+
+    /**
+     * Returns what a manager holds for an attached resource, the {@link Tracker} of the resource if
+     * it is tracked or else the resource itself.
+     */
+    AutoCloseable getAttached(String uid, AutoCloseable resource, BaseNDManager manager) {
+        Tracker tracker = trackers.get(uid);
+        if (tracker == null) {
+            return resource;
+        }
+        tracker.manager.set(manager);
+        return tracker;
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private void run() {
+        while (true) {
+            try {
+                Reference<? extends NDArray> reference = queue.remove();
+                Tracker tracker = (Tracker) reference;
+                if (!trackers.remove(tracker.uid, tracker)) {
+                    continue;
+                }
+                leaked.increment();
+                if (tracker.allocation != null) {
+                    logger.warn(
+                            "NDArray {} was not closed before it became unreachable.",
+                            tracker.uid,
+                            tracker.allocation);
+                } else {
+                    logger.warn(
+                            "NDArray {} was not closed before it became unreachable. Increase"
+                                    + " ai.djl.leak_detection.sample_rate to see where it was"
+                                    + " allocated.",
+                            tracker.uid);
+                }
+                if (releaseLeaks.get()) {
+                    BaseNDManager manager = tracker.manager.get();
+                    if (manager != null) {
+                        manager.detachInternal(tracker.uid);
+                    }
+                    if (tracker.release()) {
+                        released.increment();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Failed to release a leaked NDArray.", e);
+            }
+        }
+    }
+
+    /**
+     * What a manager holds for a tracked array. Closing it closes the array, or frees its native
+     * memory if the array was already garbage collected.
+     */
+    static final class Tracker extends WeakReference<NDArray> implements AutoCloseable {
+
+        String uid;
+        Exception allocation;
+        AtomicReference<BaseNDManager> manager;
+        private AtomicReference<Runnable> release;
+
+        Tracker(
+                NDArray array,
+                String uid,
+                Runnable release,
+                Exception allocation,
+                ReferenceQueue<NDArray> queue) {
+            super(array, queue);
+            this.uid = uid;
+            this.allocation = allocation;
+            this.release = new AtomicReference<>(release);
+            manager = new AtomicReference<>();
+        }
+
+        /**
+         * Frees the native memory of the garbage collected array.
+         *
+         * @return {@code false} if it was already freed
+         */
+        boolean release() {
+            Runnable runnable = release.getAndSet(null);
+            if (runnable == null) {
+                return false;
+            }
+            runnable.run();
+            return true;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() {
+            NDArray array = get();
+            if (array != null) {
+                array.close();
+            } else {
+                release();
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.ndarray;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/** The memory limit of a {@link BaseNDManager}, with the condition its allocations wait on. */
+final class MemoryLimit {
+
+    private BaseNDManager manager;
+    private long limit;
+    private long timeout;
+    private ReentrantLock lock;
+    private Condition released;
+
+    MemoryLimit(BaseNDManager manager, long limit, long timeout) {
+        this.manager = manager;
+        this.limit = limit;
+        this.timeout = timeout;
+        lock = new ReentrantLock();
+        released = lock.newCondition();
+    }
+
+    long getLimit() {
+        return limit;
+    }
+
+    /**
+     * Waits until arrays of the manager are released and it is back under the limit.
+     *
+     * @return {@code false} if the manager is still over the limit after the timeout
+     */
+    boolean await() {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeout);
+        lock.lock();
+        try {
+            while (manager.getMemoryLimit() == this && manager.getLiveBytes() > limit) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = released.awaitNanos(remaining);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Wakes up the allocations waiting for the limit. */
+    void signal() {
+        lock.lock();
+        try {
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
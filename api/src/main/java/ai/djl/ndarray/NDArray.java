@@ -21,6 +21,7 @@ import ai.djl.ndarray.types.Shape;
 import ai.djl.ndarray.types.SparseFormat;
 import ai.djl.util.Float16Utils;
 
+import java.io.IOException;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.DoubleBuffer;
@@ -28,6 +29,7 @@ import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 import java.nio.LongBuffer;
 import java.nio.ShortBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
@@ -350,6 +352,37 @@ public interface NDArray extends NDResource, BytesSupplier {
         return ret;
     }
 
+    /**
+     * Converts this {@code NDArray} to a {@code ByteBuffer}.
+     *
+     * <p>If {@code tryDirect} is {@code true}, an engine that keeps the data in native memory can
+     * return a read-only direct buffer over that memory instead of a copy on the Java heap. Such a
+     * buffer is only valid until this {@code NDArray} is closed or modified in place.
+     *
+     * @param tryDirect whether to return a view of the native memory if the engine supports it
+     * @return a {@code ByteBuffer} in the byte order of the data
+     */
+    default ByteBuffer toByteBuffer(boolean tryDirect) {
+        return toByteBuffer();
+    }
+
+    /**
+     * Writes the data of this {@code NDArray} to a channel.
+     *
+     * <p>The data is read with {@link #toByteBuffer(boolean)}, so it is not copied to the Java heap
+     * if the engine supports direct buffers.
+     *
+     * @param channel the channel to write to
+     * @throws IOException if failed to write to the channel
+     */
+    @Override
+    default void writeTo(WritableByteChannel channel) throws IOException {
+        ByteBuffer bb = toByteBuffer(true);
+        while (bb.hasRemaining()) {
+            channel.write(bb);
+        }
+    }
+
     /**
      * Converts this {@code NDArray} to a byte array.
      *
@@ -21,6 +21,7 @@ import ai.djl.util.Pair;
 import com.google.gson.JsonObject;
 import com.google.gson.annotations.SerializedName;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
@@ -32,7 +33,12 @@ import java.io.PushbackInputStream;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -55,6 +61,8 @@ public class NDList extends ArrayList<NDArray> implements NDResource, BytesSuppl
 
     private static final long serialVersionUID = 1L;
 
+    private static final int SAFETENSORS_ALIGNMENT = 64;
+
     /** Constructs an empty NDList. */
     public NDList() {}
 
@@ -168,6 +176,34 @@ public class NDList extends ArrayList<NDArray> implements NDResource, BytesSuppl
         }
     }
 
+    /**
+     * Loads an NDList from a file in any of the formats of {@link #decode(NDManager, InputStream)}.
+     *
+     * <p>A safetensors file is memory-mapped instead of read, see {@link SafetensorsFile}. The
+     * arrays of an npz file are decoded in parallel, see {@link NpzFile}.
+     *
+     * @param manager manager assigned to {@link NDArray}
+     * @param path the path to the file
+     * @return {@code NDList}
+     * @throws IOException if the file can not be read
+     */
+    public static NDList load(NDManager manager, Path path) throws IOException {
+        try (InputStream is = new BufferedInputStream(Files.newInputStream(path))) {
+            byte[] magic = new byte[9];
+            is.mark(magic.length);
+            new DataInputStream(is).readFully(magic);
+            if (magic[8] == '{') {
+                return SafetensorsFile.open(path).load(manager);
+            } else if (magic[0] == 'P' && magic[1] == 'K') {
+                try (NpzFile npz = NpzFile.open(path)) {
+                    return npz.load(manager);
+                }
+            }
+            is.reset();
+            return decode(manager, is);
+        }
+    }
+
     private static NDList decodeSafetensors(NDManager manager, InputStream is) throws IOException {
         DataInputStream dis;
         if (is instanceof DataInputStream) {
@@ -181,32 +217,22 @@ public class NDList extends ArrayList<NDArray> implements NDResource, BytesSuppl
         int len = Math.toIntExact(ByteBuffer.wrap(buf).order(ByteOrder.LITTLE_ENDIAN).getLong());
         buf = new byte[len];
         dis.readFully(buf);
-        String json = new String(buf, StandardCharsets.UTF_8);
-        // rust implementation sort by name, our implementation preserve the order.
-        JsonObject jsonObject = JsonUtils.GSON.fromJson(json, JsonObject.class);
-        List<Pair<String, SafeTensor>> list = new ArrayList<>();
-        int max = 0;
-        for (String key : jsonObject.keySet()) {
-            if ("__metadata__".equals(key)) {
-                continue;
-            }
-            SafeTensor value = JsonUtils.GSON.fromJson(jsonObject.get(key), SafeTensor.class);
-            if (value.offsets.length != 2) {
-                throw new IOException("Malformed safetensors metadata: " + json);
-            }
-            max = Math.max(max, value.offsets[1]);
-            list.add(new Pair<>(key, value));
+        List<Pair<String, SafeTensor>> list = parseSafetensorsHeader(buf);
+        long max = 0;
+        for (Pair<String, SafeTensor> pair : list) {
+            max = Math.max(max, pair.getValue().offsets[1]);
+        }
+        if (max > Integer.MAX_VALUE) {
+            throw new IOException(
+                    "The safetensors data is larger than 2 GB, use NDManager.load(Path) instead");
         }
-        buf = new byte[max];
+        buf = new byte[(int) max];
         dis.readFully(buf);
         NDList ret = new NDList(list.size());
         for (Pair<String, SafeTensor> pair : list) {
-            if ("__metadata__".equals(pair.getKey())) {
-                continue;
-            }
             SafeTensor st = pair.getValue();
             Shape shape = new Shape(st.shape);
-            ByteBuffer bb = ByteBuffer.wrap(buf, st.offsets[0], st.size());
+            ByteBuffer bb = ByteBuffer.wrap(buf, (int) st.offsets[0], (int) st.size());
             bb.order(ByteOrder.LITTLE_ENDIAN);
             DataType dataType = DataType.fromSafetensors(st.dtype);
             NDArray array = manager.create(bb, shape, dataType);
@@ -216,6 +242,34 @@ public class NDList extends ArrayList<NDArray> implements NDResource, BytesSuppl
         return ret;
     }
 
+    /**
+     * Parses the JSON header of the safetensors format.
+     *
+     * @param header the header
+     * @return the tensors in the order of the header
+     * @throws IOException if the header is malformed
+     */
+    static List<Pair<String, SafeTensor>> parseSafetensorsHeader(byte[] header) throws IOException {
+        String json = new String(header, StandardCharsets.UTF_8);
+        // rust implementation sort by name, our implementation preserve the order.
+        JsonObject jsonObject = JsonUtils.GSON.fromJson(json, JsonObject.class);
+        List<Pair<String, SafeTensor>> list = new ArrayList<>();
+        for (String key : jsonObject.keySet()) {
+            if ("__metadata__".equals(key)) {
+                continue;
+            }
+            SafeTensor value = JsonUtils.GSON.fromJson(jsonObject.get(key), SafeTensor.class);
+            if (value.offsets == null
+                    || value.offsets.length != 2
+                    || value.offsets[0] < 0
+                    || value.offsets[1] < value.offsets[0]) {
+                throw new IOException("Malformed safetensors metadata: " + json);
+            }
+            list.add(new Pair<>(key, value));
+        }
+        return list;
+    }
+
     private static NDList decodeNumpy(NDManager manager, InputStream is) throws IOException {
         NDList list = new NDList();
         ZipInputStream zis = new ZipInputStream(is);
@@ -455,33 +509,9 @@ public class NDList extends ArrayList<NDArray> implements NDResource, BytesSuppl
             zos.flush();
             return;
         } else if (encoding == Encoding.SAFETENSORS) {
-            Map<String, SafeTensor> map = new ConcurrentHashMap<>(size());
-            int i = 0;
-            int offset = 0;
-            for (NDArray nd : this) {
-                String name = nd.getName();
-                if (name == null) {
-                    name = "arr_" + i;
-                    ++i;
-                }
-                SafeTensor st = new SafeTensor();
-                st.dtype = nd.getDataType().asSafetensors();
-                st.shape = nd.getShape().getShape();
-                long size = nd.getDataType().getNumOfBytes() * nd.size();
-                int limit = offset + Math.toIntExact(size);
-                st.offsets = new int[] {offset, limit};
-                map.put(name, st);
-                offset = limit;
-            }
-            byte[] json = JsonUtils.GSON.toJson(map).getBytes(StandardCharsets.UTF_8);
-
-            ByteBuffer buf = ByteBuffer.allocate(8);
-            buf.order(ByteOrder.LITTLE_ENDIAN);
-            buf.putLong(0, json.length);
-            os.write(buf.array());
-            os.write(json);
+            os.write(encodeSafetensorsHeader());
             for (NDArray nd : this) {
-                os.write(nd.toByteArray());
+                NDSerializer.writeData(os, nd.toByteBuffer(true));
             }
             return;
         }
@@ -494,6 +524,59 @@ public class NDList extends ArrayList<NDArray> implements NDResource, BytesSuppl
         dos.flush();
     }
 
+    /**
+     * Writes the encoded NDList to a channel.
+     *
+     * <p>The data of the arrays is streamed to the channel without being copied into a {@code
+     * byte[]} first, and engines that support direct buffers don't copy it to the Java heap at all.
+     * The header and the data of each array are written with a single gathering write if the
+     * channel is a {@link GatheringByteChannel}, like a {@code FileChannel} or a {@code
+     * SocketChannel}. The NPZ format is compressed on the fly and still goes through a stream.
+     *
+     * @param channel the channel to be written to
+     * @param encoding encode mode, one of ndlist/npz/safetensor format
+     * @throws IOException if failed on IO operation
+     */
+    public void encode(WritableByteChannel channel, Encoding encoding) throws IOException {
+        if (encoding == Encoding.NPZ) {
+            OutputStream os = Channels.newOutputStream(channel);
+            encode(os, encoding);
+            os.flush();
+            return;
+        } else if (encoding == Encoding.SAFETENSORS) {
+            ByteBuffer header = ByteBuffer.wrap(encodeSafetensorsHeader());
+            for (NDArray nd : this) {
+                if (header.hasRemaining()) {
+                    NDSerializer.write(channel, header, nd.toByteBuffer(true));
+                } else {
+                    NDSerializer.write(channel, nd.toByteBuffer(true));
+                }
+            }
+            NDSerializer.write(channel, header);
+            return;
+        }
+
+        ByteBuffer count = ByteBuffer.allocate(4);
+        count.putInt(0, size());
+        NDSerializer.write(channel, count);
+        for (NDArray nd : this) {
+            NDSerializer.encode(nd, channel);
+        }
+    }
+
+    /**
+     * Returns a {@link BytesSupplier} that encodes the NDList when its data is requested.
+     *
+     * <p>Writing the supplier to a channel with {@link BytesSupplier#writeTo(WritableByteChannel)}
+     * streams the arrays without encoding them into a {@code byte[]}.
+     *
+     * @param encoding encode mode, one of ndlist/npz/safetensor format
+     * @return a {@link BytesSupplier} of the encoded NDList
+     */
+    public BytesSupplier toBytesSupplier(Encoding encoding) {
+        return new EncodedBytesSupplier(this, encoding);
+    }
+
     /** {@inheritDoc} */
     @Override
     public byte[] getAsBytes() {
@@ -506,6 +589,44 @@ public class NDList extends ArrayList<NDArray> implements NDResource, BytesSuppl
         return ByteBuffer.wrap(encode());
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        encode(channel, Encoding.ND_LIST);
+    }
+
+    private byte[] encodeSafetensorsHeader() {
+        Map<String, SafeTensor> map = new ConcurrentHashMap<>(size());
+        int i = 0;
+        long offset = 0;
+        for (NDArray nd : this) {
+            String name = nd.getName();
+            if (name == null) {
+                name = "arr_" + i;
+                ++i;
+            }
+            SafeTensor st = new SafeTensor();
+            st.dtype = nd.getDataType().asSafetensors();
+            st.shape = nd.getShape().getShape();
+            long limit = offset + nd.getDataType().getNumOfBytes() * nd.size();
+            st.offsets = new long[] {offset, limit};
+            map.put(name, st);
+            offset = limit;
+        }
+        byte[] json = JsonUtils.GSON.toJson(map).getBytes(StandardCharsets.UTF_8);
+        // pad the header with spaces so the data of a mapped file starts at an aligned address
+        int padding = -(8 + json.length) & (SAFETENSORS_ALIGNMENT - 1);
+
+        ByteBuffer buf = ByteBuffer.allocate(8 + json.length + padding);
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        buf.putLong(json.length + padding);
+        buf.put(json);
+        for (int j = 0; j < padding; ++j) {
+            buf.put((byte) ' ');
+        }
+        return buf.array();
+    }
+
     /**
      * Gets all of shapes in the {@code NDList}.
      *
@@ -550,14 +671,14 @@ public class NDList extends ArrayList<NDArray> implements NDResource, BytesSuppl
         SAFETENSORS
     }
 
-    private static final class SafeTensor {
+    static final class SafeTensor {
         String dtype;
         long[] shape;
 
         @SerializedName("data_offsets")
-        int[] offsets;
+        long[] offsets;
 
-        int size() {
+        long size() {
             return offsets[1] - offsets[0];
         }
     }
@@ -332,6 +332,35 @@ public interface NDManager extends AutoCloseable {
      */
     NDArray create(String[] data, Charset charset, Shape shape);
 
+    /**
+     * Creates a String {@link NDArray} from encoded strings that are stored one after another in a
+     * buffer.
+     *
+     * <p>Engines can build the array from the buffer in a single pass, without creating a {@code
+     * String} for each element.
+     *
+     * @param data the encoded strings, starting at the position of the buffer
+     * @param offsets the end offset of each string, relative to the position of the buffer
+     * @param charset the charset of the strings
+     * @param shape the shape of the String NDArray
+     * @return a new instance of {@code NDArray}
+     * @throws IllegalArgumentException if the offsets are negative, descending or exceed the data
+     */
+    default NDArray create(ByteBuffer data, int[] offsets, Charset charset, Shape shape) {
+        NDSerializer.checkOffsets(offsets, data.remaining());
+        String[] strings = new String[offsets.length];
+        int start = 0;
+        for (int i = 0; i < offsets.length; ++i) {
+            byte[] buf = new byte[offsets[i] - start];
+            ByteBuffer bb = data.duplicate();
+            bb.position(data.position() + start);
+            bb.get(buf);
+            strings[i] = new String(buf, charset);
+            start = offsets[i];
+        }
+        return create(strings, charset, shape);
+    }
+
     /**
      * Creates and initializes a 1D {@link NDArray}.
      *
@@ -523,6 +552,24 @@ public interface NDManager extends AutoCloseable {
         return array;
     }
 
+    /**
+     * Creates an instance of {@link NDArray} that may use the memory of a buffer without copying.
+     *
+     * <p>Unlike {@link #create(Buffer, Shape, DataType)}, which always copies the data, an engine
+     * can use a direct buffer, for example one from {@link #allocateDirect(int)}, as the memory of
+     * the array. Changes to the buffer are then visible in the array, so the buffer must not be
+     * modified or reused while the array, or an array derived from it, is in use. Engines that
+     * can't share the memory copy the data.
+     *
+     * @param data the data of the {@link NDArray}
+     * @param shape the {@link Shape} of the {@link NDArray}
+     * @param dataType the {@link DataType} of the {@link NDArray}
+     * @return a new instance of {@link NDArray}
+     */
+    default NDArray wrap(ByteBuffer data, Shape shape, DataType dataType) {
+        return create(data, shape, dataType);
+    }
+
     /**
      * Creates and initializes an instance of {@link NDArray} with specified {@link Shape} and float
      * array.
@@ -1577,6 +1624,62 @@ public interface NDManager extends AutoCloseable {
      */
     List<NDArray> getManagedArrays();
 
+    /**
+     * Returns the number of {@link NDArray}s attached to this manager and its sub-managers.
+     *
+     * <p>Unlike {@link #getManagedArrays()}, the count is kept up to date as arrays are attached and
+     * detached. Arrays that are only temporarily attached are not counted.
+     *
+     * @return the number of live arrays
+     */
+    default long getLiveArrayCount() {
+        return getManagedArrays().size();
+    }
+
+    /**
+     * Returns the size in bytes of the {@link NDArray}s attached to this manager and its
+     * sub-managers.
+     *
+     * <p>Sizes are only counted while this manager or one of its parents has a memory limit, see
+     * {@link #setMemoryLimit(long)}, or if the system property {@code ai.djl.memory_accounting} is
+     * {@code true}. Computing the size of an array may wait for the operation that creates it.
+     *
+     * @return the number of bytes held by the live arrays
+     */
+    default long getLiveBytes() {
+        long bytes = 0;
+        for (NDArray array : getManagedArrays()) {
+            bytes += array.getShape().size() * array.getDataType().getNumOfBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Limits the size of the arrays attached to this manager and its sub-managers.
+     *
+     * <p>An attach that exceeds the limit closes the new array and throws an {@link
+     * IllegalStateException}.
+     *
+     * @param limit the maximum number of bytes, or 0 to remove the limit
+     */
+    default void setMemoryLimit(long limit) {
+        setMemoryLimit(limit, 0);
+    }
+
+    /**
+     * Limits the size of the arrays attached to this manager and its sub-managers.
+     *
+     * <p>An attach that exceeds the limit waits up to the timeout for other threads to release
+     * arrays. If the limit is still exceeded, it closes the new array and throws an {@link
+     * IllegalStateException}.
+     *
+     * @param limit the maximum number of bytes, or 0 to remove the limit
+     * @param timeout the maximum time to wait in milliseconds, 0 to fail immediately
+     */
+    default void setMemoryLimit(long limit, long timeout) {
+        throw new UnsupportedOperationException("Not supported!");
+    }
+
     /**
      * Attaches a resource to this {@code NDManager}.
      *
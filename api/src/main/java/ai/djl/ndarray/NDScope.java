@@ -13,13 +13,26 @@
 package ai.djl.ndarray;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
 
 /**
  * A class that tracks {@link NDResource} objects created in the try-with-resource block and close
  * them automatically when out of the block scope.
  *
+ * <p>An arena scope, see {@link #NDScope(boolean)}, is meant for short lived blocks that create
+ * many arrays, like a decoding step. Engines that support it don't attach the arrays created inside
+ * an arena to their {@link NDManager}, the arena owns them and releases all of them at once when it
+ * is closed, along with the buffers from {@link NDManager#allocateDirect(int)} so they can be
+ * reused by the next arena. An array escapes the arena with {@link #unregister(NDArray)}, it is
+ * then attached to its manager like any other array. An array that is still used after the arena is
+ * closed must be unregistered. Closing the manager of an array that is owned by an arena does not
+ * close the array.
+ *
  * <p>This class has been derived from {@code org.bytedeco.javacpp.PointerScope} by Samuel Audet
  */
 public class NDScope implements AutoCloseable {
@@ -28,14 +41,43 @@ public class NDScope implements AutoCloseable {
             ThreadLocal.withInitial(ArrayDeque::new);
 
     private IdentityHashMap<NDArray, NDArray> resources;
+    private boolean arena;
+    private List<NDArray> arenaArrays;
+    private Set<NDArray> escaped;
+    private List<Runnable> releasers;
 
     /** Constructs a new {@code NDScope} instance. */
-    @SuppressWarnings("this-escape")
     public NDScope() {
-        resources = new IdentityHashMap<>();
+        this(false);
+    }
+
+    /**
+     * Constructs a new {@code NDScope} instance.
+     *
+     * @param arena whether the scope owns the arrays created inside it instead of their managers
+     */
+    @SuppressWarnings("this-escape")
+    public NDScope(boolean arena) {
+        this.arena = arena;
+        if (arena) {
+            arenaArrays = new ArrayList<>();
+            escaped = Collections.newSetFromMap(new IdentityHashMap<>());
+            releasers = new ArrayList<>();
+        } else {
+            resources = new IdentityHashMap<>();
+        }
         SCOPE_STACK.get().addLast(this);
     }
 
+    /**
+     * Returns whether this scope is an arena.
+     *
+     * @return whether this scope is an arena
+     */
+    public boolean isArena() {
+        return arena;
+    }
+
     /**
      * Registers {@link NDArray} object to this scope.
      *
@@ -46,7 +88,52 @@ public class NDScope implements AutoCloseable {
         if (queue.isEmpty()) {
             return;
         }
-        queue.getLast().resources.put(array, array);
+        NDScope scope = queue.getLast();
+        if (scope.arena) {
+            scope.arenaArrays.add(array);
+        } else {
+            scope.resources.put(array, array);
+        }
+    }
+
+    /**
+     * Registers a new {@link NDArray} to the current scope if it is an arena.
+     *
+     * <p>Engines call this when they create an array. If it returns {@code true}, the array must
+     * not be attached to its manager, the arena closes it. The array still counts towards the
+     * live arrays and the memory limit of its manager.
+     *
+     * @param array the new {@link NDArray}
+     * @return {@code true} if the array is owned by an arena
+     */
+    public static boolean registerInArena(NDArray array) {
+        Deque<NDScope> queue = SCOPE_STACK.get();
+        if (queue.isEmpty() || !queue.getLast().arena) {
+            return false;
+        }
+        queue.getLast().arenaArrays.add(array);
+        NDManager manager = array.getManager();
+        if (manager instanceof BaseNDManager) {
+            ((BaseNDManager) manager).addArenaArray(array);
+        }
+        return true;
+    }
+
+    /**
+     * Registers an action to run when the current arena is closed, after its arrays are released.
+     *
+     * <p>Engines use it to recycle the buffers used by the arrays of the arena.
+     *
+     * @param releaser the action to run
+     * @return {@code true} if there is an arena and the action was registered
+     */
+    public static boolean registerArenaReleaser(Runnable releaser) {
+        Deque<NDScope> queue = SCOPE_STACK.get();
+        if (queue.isEmpty() || !queue.getLast().arena) {
+            return false;
+        }
+        queue.getLast().releasers.add(releaser);
+        return true;
     }
 
     /**
@@ -59,7 +146,21 @@ public class NDScope implements AutoCloseable {
         if (queue.isEmpty()) {
             return;
         }
-        queue.getLast().resources.remove(array);
+        NDScope scope = queue.getLast();
+        if (!scope.arena) {
+            scope.resources.remove(array);
+        } else if (scope.escaped.add(array)) {
+            // hand the array over to its manager
+            NDManager manager = array.getManager();
+            if (manager instanceof BaseNDManager) {
+                ((BaseNDManager) manager).removeArenaArray(array.getUid());
+            }
+            if (manager != null
+                    && manager.isOpen()
+                    && !(manager instanceof NDManager.SystemNDManager)) {
+                manager.attachInternal(array.getUid(), array);
+            }
+        }
     }
 
     /**
@@ -85,8 +186,20 @@ public class NDScope implements AutoCloseable {
     /** {@inheritDoc} */
     @Override
     public void close() {
-        for (NDArray array : resources.keySet()) {
-            array.close();
+        if (arena) {
+            for (NDArray array : arenaArrays) {
+                if (!escaped.contains(array)) {
+                    array.close();
+                }
+            }
+            arenaArrays.clear();
+            escaped.clear();
+            releasers.forEach(Runnable::run);
+            releasers.clear();
+        } else {
+            for (NDArray array : resources.keySet()) {
+                array.close();
+            }
         }
         SCOPE_STACK.get().remove(this);
     }
@@ -15,6 +15,7 @@ package ai.djl.ndarray;
 
 import ai.djl.ndarray.types.DataType;
 import ai.djl.ndarray.types.Shape;
+import ai.djl.util.Pair;
 
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
@@ -24,15 +25,21 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.function.IntFunction;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /** A class contains encoding and decoding logic for NDArray. */
 final class NDSerializer {
 
-    private static final int VERSION = 3;
+    private static final int VERSION = 4;
+    // the last version that doesn't store strings as an offset table
+    private static final int NUMERIC_VERSION = 3;
 
     private static final int BUFFER_SIZE = 1024 * 1024;
     private static final String MAGIC_NUMBER = "NDAR";
@@ -67,9 +74,85 @@ final class NDSerializer {
         } else {
             dos = new DataOutputStream(os);
         }
+        ByteBuffer bb = writeHeader(array, dos);
+        if (bb != null) {
+            writeData(dos, bb);
+        }
+        dos.flush();
+    }
+
+    /**
+     * Writes the encoded {@link NDArray} to a channel.
+     *
+     * <p>The header and the data are written together with a gathering write if the channel
+     * supports it, and the data is not copied to the Java heap if the engine supports direct
+     * buffers.
+     *
+     * @param array the input {@link NDArray}
+     * @param channel the channel to write to
+     * @throws IOException if failed to write to the channel
+     */
+    static void encode(NDArray array, WritableByteChannel channel) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(128);
+        ByteBuffer bb;
+        try (DataOutputStream dos = new DataOutputStream(bos)) {
+            bb = writeHeader(array, dos);
+        }
+        ByteBuffer header = ByteBuffer.wrap(bos.toByteArray());
+        if (bb == null) {
+            write(channel, header);
+        } else {
+            write(channel, header, bb);
+        }
+    }
+
+    /**
+     * Writes buffers to a channel, with a single gathering write if the channel supports it.
+     *
+     * @param channel the channel to write to
+     * @param buffers the buffers to write
+     * @throws IOException if failed to write to the channel
+     */
+    static void write(WritableByteChannel channel, ByteBuffer... buffers) throws IOException {
+        if (channel instanceof GatheringByteChannel) {
+            GatheringByteChannel gathering = (GatheringByteChannel) channel;
+            long remaining = 0;
+            for (ByteBuffer bb : buffers) {
+                remaining += bb.remaining();
+            }
+            while (remaining > 0) {
+                remaining -= gathering.write(buffers);
+            }
+            return;
+        }
+        for (ByteBuffer bb : buffers) {
+            while (bb.hasRemaining()) {
+                channel.write(bb);
+            }
+        }
+    }
+
+    /**
+     * Writes the data of a buffer to a stream, a direct buffer is copied in small chunks.
+     *
+     * @param os the stream to write to
+     * @param bb the data to write
+     * @throws IOException if failed to write to the stream
+     */
+    static void writeData(OutputStream os, ByteBuffer bb) throws IOException {
+        if (bb.hasArray()) {
+            os.write(bb.array(), bb.arrayOffset() + bb.position(), bb.remaining());
+        } else {
+            write(Channels.newChannel(os), bb);
+        }
+    }
+
+    /** Writes the header of an array, returns its data or {@code null} for a string array. */
+    private static ByteBuffer writeHeader(NDArray array, DataOutputStream dos) throws IOException {
         // magic string for version identification
         dos.writeUTF(MAGIC_NUMBER);
-        dos.writeInt(VERSION);
+        // only string arrays need the newest version, older readers can load the rest
+        dos.writeInt(array.getDataType() == DataType.STRING ? VERSION : NUMERIC_VERSION);
         String name = array.getName();
         if (name == null) {
             dos.write(0);
@@ -84,39 +167,50 @@ final class NDSerializer {
         dos.write(shape.getEncoded());
 
         if (array.getDataType() == DataType.STRING) {
+            // an offset table followed by the UTF-8 bytes of all strings
             String[] data = array.toStringArray();
+            byte[][] bytes = new byte[data.length][];
             dos.writeInt(data.length);
-            for (String str : data) {
-                dos.writeUTF(str);
+            int offset = 0;
+            for (int i = 0; i < data.length; ++i) {
+                bytes[i] = data[i].getBytes(StandardCharsets.UTF_8);
+                offset = Math.addExact(offset, bytes[i].length);
+                dos.writeInt(offset);
             }
-            dos.flush();
-            return;
+            for (byte[] buf : bytes) {
+                dos.write(buf);
+            }
+            return null;
         }
 
-        ByteBuffer bb = array.toByteBuffer();
+        ByteBuffer bb = array.toByteBuffer(true);
         dos.write(bb.order() == ByteOrder.BIG_ENDIAN ? '>' : '<');
-        int length = bb.remaining();
-        dos.writeInt(length);
-
-        if (length > 0) {
-            if (bb.hasArray() && bb.remaining() == bb.array().length) {
-                dos.write(bb.array(), bb.position(), length);
-            } else {
-                if (length > BUFFER_SIZE) {
-                    byte[] buf = new byte[BUFFER_SIZE];
-                    while (length > BUFFER_SIZE) {
-                        bb.get(buf);
-                        dos.write(buf);
-                        length = bb.remaining();
-                    }
-                }
+        dos.writeInt(bb.remaining());
+        // don't move the position of a buffer the array may share
+        return bb.duplicate();
+    }
 
-                byte[] buf = new byte[length];
-                bb.get(buf);
-                dos.write(buf);
+    /**
+     * Checks that the end offsets of strings are ascending and within the data.
+     *
+     * @param offsets the end offset of each string
+     * @param capacity the number of bytes available for the strings
+     * @return the number of bytes of all strings
+     * @throws IllegalArgumentException if an offset is negative, descending or out of the data
+     */
+    static int checkOffsets(int[] offsets, int capacity) {
+        int start = 0;
+        for (int offset : offsets) {
+            if (offset < start) {
+                throw new IllegalArgumentException("Invalid string offset: " + offset);
             }
+            start = offset;
         }
-        dos.flush();
+        if (start > capacity) {
+            throw new IllegalArgumentException(
+                    "String offset " + start + " exceeds the data size " + capacity);
+        }
+        return start;
     }
 
     static void encodeAsNumpy(NDArray array, OutputStream os) throws IOException {
@@ -147,7 +241,7 @@ final class NDSerializer {
             os.write(' ');
         }
         os.write('\n');
-        os.write(array.toByteArray());
+        writeData(os, array.toByteBuffer(true));
     }
 
     static NDArray decode(NDManager manager, ByteBuffer bb) {
@@ -179,11 +273,23 @@ final class NDSerializer {
 
         if (dataType == DataType.STRING) {
             int size = bb.getInt();
-            String[] data = new String[size];
-            for (int i = 0; i < size; ++i) {
-                data[i] = readUTF(bb);
+            NDArray array;
+            if (version > 3) {
+                int[] offsets = new int[size];
+                bb.asIntBuffer().get(offsets);
+                bb.position(bb.position() + size * 4);
+                int length = checkOffsets(offsets, bb.remaining());
+                ByteBuffer data = bb.slice();
+                data.limit(length);
+                array = manager.create(data, offsets, StandardCharsets.UTF_8, shape);
+                bb.position(bb.position() + length);
+            } else {
+                String[] data = new String[size];
+                for (int i = 0; i < size; ++i) {
+                    data[i] = readUTF(bb);
+                }
+                array = manager.create(data, StandardCharsets.UTF_8, shape);
             }
-            NDArray array = manager.create(data, StandardCharsets.UTF_8, shape);
             array.setName(name);
             return array;
         }
@@ -248,6 +354,29 @@ final class NDSerializer {
         // Shape
         Shape shape = Shape.decode(dis);
 
+        if (dataType == DataType.STRING) {
+            int size = dis.readInt();
+            NDArray array;
+            if (version > 3) {
+                int[] offsets = new int[size];
+                for (int i = 0; i < size; ++i) {
+                    offsets[i] = dis.readInt();
+                }
+                int length = checkOffsets(offsets, Integer.MAX_VALUE);
+                ByteBuffer data = manager.allocateDirect(length);
+                readData(dis, data, length);
+                array = manager.create(data, offsets, StandardCharsets.UTF_8, shape);
+            } else {
+                String[] data = new String[size];
+                for (int i = 0; i < size; ++i) {
+                    data[i] = dis.readUTF();
+                }
+                array = manager.create(data, StandardCharsets.UTF_8, shape);
+            }
+            array.setName(name);
+            return array;
+        }
+
         // Data
         ByteOrder order;
         if (version > 2) {
@@ -260,12 +389,26 @@ final class NDSerializer {
         data.order(order);
         readData(dis, data, length);
 
-        NDArray array = manager.create(data, shape, dataType);
+        NDArray array = manager.wrap(data, shape, dataType);
         array.setName(name);
         return array;
     }
 
     static NDArray decodeNumpy(NDManager manager, InputStream is) throws IOException {
+        return readNumpy(is, manager::allocateDirect).create(manager);
+    }
+
+    /**
+     * Reads the header and data of an array in the numpy format without creating the {@link
+     * NDArray}.
+     *
+     * @param is the input stream of the numpy data
+     * @param allocator the function that allocates the buffer of the data
+     * @return the decoded data
+     * @throws IOException if the data can not be read
+     */
+    static NumpyData readNumpy(InputStream is, IntFunction<ByteBuffer> allocator)
+            throws IOException {
         DataInputStream dis;
         if (is instanceof DataInputStream) {
             dis = (DataInputStream) is;
@@ -294,13 +437,65 @@ final class NDSerializer {
         }
         buf = new byte[len];
         dis.readFully(buf);
+        Pair<String, Shape> header = parseNumpyHeader(buf);
+        DataType dataType = DataType.fromNumpy(header.getKey());
+        Shape shape = header.getValue();
+        len = Math.toIntExact(shape.size() * dataType.getNumOfBytes());
+        ByteBuffer data = allocator.apply(len);
+        data.order(getNumpyOrder(header.getKey()));
+        readData(dis, data, len);
+        return new NumpyData(shape, dataType, data);
+    }
+
+    /**
+     * Decodes an {@link NDArray} in the numpy format from a buffer, the data is passed to the
+     * manager without a copy on the Java heap.
+     *
+     * @param manager the manager of the array
+     * @param bb the buffer of the numpy data, for example a memory-mapped file
+     * @return the array
+     */
+    static NDArray decodeNumpy(NDManager manager, ByteBuffer bb) {
+        return readNumpy(bb).create(manager);
+    }
+
+    /**
+     * Reads the header of an array in the numpy format and slices its data from the buffer.
+     *
+     * @param bb the buffer of the numpy data
+     * @return the decoded data
+     */
+    static NumpyData readNumpy(ByteBuffer bb) {
+        byte[] buf = new byte[NUMPY_MAGIC.length];
+        bb.get(buf);
+        if (!Arrays.equals(buf, NUMPY_MAGIC)) {
+            throw new IllegalArgumentException("Malformed numpy data");
+        }
+        byte major = bb.get();
+        byte minor = bb.get();
+        if (major < 1 || major > 3 || minor != 0) {
+            throw new IllegalArgumentException("Unknown numpy version: " + major + '.' + minor);
+        }
+        bb.order(ByteOrder.LITTLE_ENDIAN);
+        int len = major == 1 ? bb.getShort() & 0xffff : bb.getInt();
+        buf = new byte[len];
+        bb.get(buf);
+        Pair<String, Shape> header = parseNumpyHeader(buf);
+        DataType dataType = DataType.fromNumpy(header.getKey());
+        Shape shape = header.getValue();
+        len = Math.toIntExact(shape.size() * dataType.getNumOfBytes());
+        ByteBuffer data = bb.slice();
+        data.limit(len);
+        data.order(getNumpyOrder(header.getKey()));
+        return new NumpyData(shape, dataType, data);
+    }
+
+    private static Pair<String, Shape> parseNumpyHeader(byte[] buf) {
         String header = new String(buf, StandardCharsets.UTF_8).trim();
         Matcher m = PATTERN.matcher(header);
         if (!m.find()) {
             throw new IllegalArgumentException("Invalid numpy header: " + header);
         }
-        String typeStr = m.group(1);
-        DataType dataType = DataType.fromNumpy(typeStr);
         String shapeStr = m.group(2);
         long[] longs;
         if (shapeStr.isEmpty()) {
@@ -309,22 +504,24 @@ final class NDSerializer {
             String[] tokens = shapeStr.split(", ?");
             longs = Arrays.stream(tokens).mapToLong(Long::parseLong).toArray();
         }
-        Shape shape = new Shape(longs);
-        len = Math.toIntExact(shape.size() * dataType.getNumOfBytes());
-        ByteBuffer data = manager.allocateDirect(len);
+        return new Pair<>(m.group(1), new Shape(longs));
+    }
+
+    private static ByteOrder getNumpyOrder(String typeStr) {
         char order = typeStr.charAt(0);
         if (order == '>') {
-            data.order(ByteOrder.BIG_ENDIAN);
+            return ByteOrder.BIG_ENDIAN;
         } else if (order == '<') {
-            data.order(ByteOrder.LITTLE_ENDIAN);
+            return ByteOrder.LITTLE_ENDIAN;
         }
-        readData(dis, data, len);
-
-        return manager.create(data, shape, dataType);
+        return ByteOrder.nativeOrder();
     }
 
     private static void readData(DataInputStream dis, ByteBuffer data, int len) throws IOException {
-        if (len > 0) {
+        if (data.hasArray()) {
+            dis.readFully(data.array(), data.arrayOffset() + data.position(), len);
+            data.rewind();
+        } else if (len > 0) {
             byte[] buf = new byte[BUFFER_SIZE];
             while (len > BUFFER_SIZE) {
                 dis.readFully(buf);
@@ -404,4 +601,28 @@ final class NDSerializer {
         }
         return new String(chars, 0, chararrCount);
     }
+
+    /** The shape, data type and data of an array decoded from the numpy format. */
+    static final class NumpyData {
+
+        private Shape shape;
+        private DataType dataType;
+        private ByteBuffer data;
+
+        NumpyData(Shape shape, DataType dataType, ByteBuffer data) {
+            this.shape = shape;
+            this.dataType = dataType;
+            this.data = data;
+        }
+
+        /**
+         * Creates the {@link NDArray} of the data.
+         *
+         * @param manager the manager of the array
+         * @return the array
+         */
+        NDArray create(NDManager manager) {
+            return manager.wrap(data, shape, dataType);
+        }
+    }
 }
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.ndarray;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A numpy {@code .npz} file whose arrays are read on demand.
+ *
+ * <p>Opening the file only reads the central directory of the zip archive, an array is decoded when
+ * it is requested with {@link #get(NDManager, String)}. Arrays that are stored uncompressed, which
+ * is what {@code numpy.savez} writes, are memory-mapped and passed to the engine without a copy on
+ * the Java heap. Compressed arrays, written by {@code numpy.savez_compressed}, are inflated from
+ * the file.
+ *
+ * <p>The arrays of one file can be decoded by several threads at the same time.
+ */
+public final class NpzFile implements AutoCloseable {
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int ZIP64_LOCATOR = 0x07064b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY = 0x06064b50;
+    private static final int MAX_COMMENT = 0xffff;
+
+    private Path path;
+    private Map<String, Entry> entries;
+    private ZipFile zipFile;
+
+    private NpzFile(Path path, Map<String, Entry> entries) {
+        this.path = path;
+        this.entries = entries;
+    }
+
+    /**
+     * Opens a {@code .npz} file.
+     *
+     * @param path the path to the file
+     * @return the opened file
+     * @throws IOException if the file can not be read or is not a zip archive
+     */
+    public static NpzFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer cd = readCentralDirectory(channel, path);
+            Map<String, Entry> entries = new LinkedHashMap<>();
+            while (cd.remaining() >= 46 && cd.getInt(cd.position()) == CENTRAL_HEADER) {
+                int start = cd.position();
+                int method = cd.getShort(start + 10) & 0xffff;
+                long compressedSize = cd.getInt(start + 20) & 0xffffffffL;
+                long size = cd.getInt(start + 24) & 0xffffffffL;
+                int nameLength = cd.getShort(start + 28) & 0xffff;
+                int extraLength = cd.getShort(start + 30) & 0xffff;
+                int commentLength = cd.getShort(start + 32) & 0xffff;
+                long offset = cd.getInt(start + 42) & 0xffffffffL;
+
+                byte[] buf = new byte[nameLength];
+                cd.position(start + 46);
+                cd.get(buf);
+                String entryName = new String(buf, StandardCharsets.UTF_8);
+                String name = entryName;
+
+                // zip64 extra field, the values are only present if the 32 bits field overflowed
+                int extra = start + 46 + nameLength;
+                int extraEnd = extra + extraLength;
+                while (extra + 4 <= extraEnd) {
+                    int id = cd.getShort(extra) & 0xffff;
+                    int length = cd.getShort(extra + 2) & 0xffff;
+                    if (id == 1) {
+                        int pos = extra + 4;
+                        if (size == 0xffffffffL) {
+                            pos += 8;
+                        }
+                        if (compressedSize == 0xffffffffL) {
+                            compressedSize = cd.getLong(pos);
+                            pos += 8;
+                        }
+                        if (offset == 0xffffffffL) {
+                            offset = cd.getLong(pos);
+                        }
+                        break;
+                    }
+                    extra += 4 + length;
+                }
+                cd.position(extraEnd + commentLength);
+
+                if (name.endsWith(".npy")) {
+                    name = name.substring(0, name.length() - 4);
+                }
+                ByteBuffer data = null;
+                if (method == ZipEntry.STORED) {
+                    data = mapEntry(channel, offset, compressedSize, name);
+                }
+                entries.put(name, new Entry(entryName, data));
+            }
+            return new NpzFile(path, entries);
+        }
+    }
+
+    /**
+     * Returns the names of the arrays in the order of the file, {@code arr_0}, {@code arr_1}, ...
+     * for arrays that were saved without a name.
+     *
+     * @return the names of the arrays
+     */
+    public List<String> getNames() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    /**
+     * Decodes an array of the file.
+     *
+     * @param manager the manager of the array
+     * @param name the name of the array
+     * @return the array
+     * @throws IOException if the array can not be read
+     */
+    public NDArray get(NDManager manager, String name) throws IOException {
+        return create(manager, name, read(name, manager::allocateDirect));
+    }
+
+    /**
+     * Decodes arrays of the file in parallel.
+     *
+     * <p>The data is read and decompressed in parallel, the arrays are created on the calling
+     * thread, so they are registered with its {@link NDScope}. Compressed arrays are inflated into
+     * heap buffers, which are copied once into the arrays, so no direct memory is allocated
+     * outside the arena of the calling thread.
+     *
+     * @param manager the manager of the arrays
+     * @param names the names of the arrays
+     * @return the arrays in the order of the names
+     * @throws IOException if an array can not be read
+     */
+    @SuppressWarnings("PMD.PreserveStackTrace")
+    public NDList load(NDManager manager, String... names) throws IOException {
+        NDSerializer.NumpyData[] decoded;
+        try {
+            decoded =
+                    Arrays.stream(names)
+                            .parallel()
+                            .map(this::readUnchecked)
+                            .toArray(NDSerializer.NumpyData[]::new);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        NDList list = new NDList(names.length);
+        for (int i = 0; i < names.length; ++i) {
+            list.add(create(manager, names[i], decoded[i]));
+        }
+        return list;
+    }
+
+    /**
+     * Decodes all arrays of the file in parallel.
+     *
+     * @param manager the manager of the arrays
+     * @return the arrays in the order of the file
+     * @throws IOException if an array can not be read
+     */
+    public NDList load(NDManager manager) throws IOException {
+        return load(manager, entries.keySet().toArray(new String[0]));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized void close() throws IOException {
+        if (zipFile != null) {
+            zipFile.close();
+            zipFile = null;
+        }
+    }
+
+    private NDSerializer.NumpyData read(String name, IntFunction<ByteBuffer> allocator)
+            throws IOException {
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            throw new IllegalArgumentException("No array named " + name);
+        }
+        if (entry.data != null) {
+            return NDSerializer.readNumpy(entry.data.duplicate());
+        }
+        ZipFile zip = getZipFile();
+        try (InputStream is = zip.getInputStream(zip.getEntry(entry.entryName))) {
+            return NDSerializer.readNumpy(is, allocator);
+        }
+    }
+
+    private NDSerializer.NumpyData readUnchecked(String name) {
+        try {
+            // the worker threads don't allocate direct memory, see load(NDManager, String...)
+            return read(name, ByteBuffer::allocate);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static NDArray create(NDManager manager, String name, NDSerializer.NumpyData data) {
+        NDArray array = data.create(manager);
+        if (!name.startsWith("arr_")) {
+            array.setName(name);
+        }
+        return array;
+    }
+
+    private synchronized ZipFile getZipFile() throws IOException {
+        // only compressed arrays need the zip file, which is safe to read from several threads
+        if (zipFile == null) {
+            zipFile = new ZipFile(path.toFile());
+        }
+        return zipFile;
+    }
+
+    private static ByteBuffer readCentralDirectory(FileChannel channel, Path path)
+            throws IOException {
+        long fileSize = channel.size();
+        int tail = (int) Math.min(fileSize, 22 + MAX_COMMENT);
+        ByteBuffer buf = ByteBuffer.allocate(tail).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, buf, fileSize - tail);
+        int eocd = tail - 22;
+        while (eocd >= 0 && buf.getInt(eocd) != END_OF_CENTRAL_DIRECTORY) {
+            --eocd;
+        }
+        if (eocd < 0) {
+            throw new IOException("Not a zip file: " + path);
+        }
+        long size = buf.getInt(eocd + 12) & 0xffffffffL;
+        long offset = buf.getInt(eocd + 16) & 0xffffffffL;
+        if (eocd >= 20 && buf.getInt(eocd - 20) == ZIP64_LOCATOR) {
+            ByteBuffer zip64 = ByteBuffer.allocate(56).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, zip64, buf.getLong(eocd - 12));
+            if (zip64.getInt(0) != ZIP64_END_OF_CENTRAL_DIRECTORY) {
+                throw new IOException("Malformed zip64 archive: " + path);
+            }
+            size = zip64.getLong(40);
+            offset = zip64.getLong(48);
+        }
+        if (size > Integer.MAX_VALUE || offset + size > fileSize) {
+            throw new IOException("Malformed zip central directory: " + path);
+        }
+        ByteBuffer cd = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, cd, offset);
+        cd.flip();
+        return cd;
+    }
+
+    private static ByteBuffer mapEntry(FileChannel channel, long offset, long size, String name)
+            throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(30).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, header, offset);
+        if (header.getInt(0) != LOCAL_HEADER) {
+            throw new IOException("Malformed zip entry: " + name);
+        }
+        long start = offset + 30 + (header.getShort(26) & 0xffff) + (header.getShort(28) & 0xffff);
+        if (size > Integer.MAX_VALUE || start + size > channel.size()) {
+            throw new IOException("Unsupported zip entry size: " + name);
+        }
+        // the mapping stays valid after the channel is closed
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buf, long position)
+            throws IOException {
+        long pos = position;
+        while (buf.hasRemaining()) {
+            int read = channel.read(buf, pos);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of the zip file");
+            }
+            pos += read;
+        }
+    }
+
+    private static final class Entry {
+
+        String entryName;
+        ByteBuffer data;
+
+        Entry(String entryName, ByteBuffer data) {
+            this.entryName = entryName;
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.ndarray;
+
+import ai.djl.ndarray.types.DataType;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.util.Pair;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A memory-mapped file in the <a href="https://github.com/huggingface/safetensors">safetensors</a>
+ * format.
+ *
+ * <p>Opening the file only reads its header, the data is mapped into memory and each tensor is read
+ * from its mapped slice when it is requested with {@link #get(NDManager, String)}. The data is not
+ * copied to the Java heap, and engines that can use the memory of a direct buffer, like TensorFlow
+ * for slices aligned to 64 bytes, don't copy it at all. Files larger than 2 GB are supported, but
+ * each tensor must be smaller than 2 GB.
+ *
+ * <p>A writable file is mapped copy-on-write, so changes to the arrays are never written to the
+ * file. A read-only file is mapped read-only, and engines copy its data into their arrays.
+ */
+public final class SafetensorsFile {
+
+    private Map<String, Entry> entries;
+
+    private SafetensorsFile(Map<String, Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Opens a safetensors file.
+     *
+     * @param path the path to the file
+     * @return the opened file
+     * @throws IOException if the file can not be read, is malformed or has a tensor larger than 2
+     *     GB
+     */
+    public static SafetensorsFile open(Path path) throws IOException {
+        // a private mapping needs a writable channel, the file itself is never modified
+        boolean writable = Files.isWritable(path);
+        FileChannel.MapMode mode =
+                writable ? FileChannel.MapMode.PRIVATE : FileChannel.MapMode.READ_ONLY;
+        Set<StandardOpenOption> options = EnumSet.of(StandardOpenOption.READ);
+        if (writable) {
+            options.add(StandardOpenOption.WRITE);
+        }
+        // the mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            long fileSize = channel.size();
+            ByteBuffer buf = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, buf, 0);
+            long headerSize = buf.getLong(0);
+            if (headerSize <= 0 || headerSize > Math.min(fileSize - 8, Integer.MAX_VALUE)) {
+                throw new IOException("Malformed safetensors header: " + path);
+            }
+            buf = ByteBuffer.allocate((int) headerSize);
+            readFully(channel, buf, 8);
+            List<Pair<String, NDList.SafeTensor>> list = NDList.parseSafetensorsHeader(buf.array());
+
+            long dataStart = 8 + headerSize;
+            long dataSize = fileSize - dataStart;
+            ByteBuffer data = null;
+            if (dataSize <= Integer.MAX_VALUE) {
+                data = channel.map(mode, dataStart, dataSize);
+            }
+            Map<String, Entry> entries = new LinkedHashMap<>();
+            for (Pair<String, NDList.SafeTensor> pair : list) {
+                NDList.SafeTensor st = pair.getValue();
+                Shape shape = new Shape(st.shape);
+                DataType dataType = DataType.fromSafetensors(st.dtype);
+                long size = st.size();
+                if (st.offsets[1] > dataSize || size != shape.size() * dataType.getNumOfBytes()) {
+                    throw new IOException("Malformed safetensors metadata for " + pair.getKey());
+                }
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException(
+                            "Tensor "
+                                    + pair.getKey()
+                                    + " has "
+                                    + size
+                                    + " bytes, tensors larger than 2 GB are not supported");
+                }
+                ByteBuffer slice;
+                if (data != null) {
+                    slice = data.duplicate();
+                    slice.position((int) st.offsets[0]);
+                    slice.limit((int) st.offsets[1]);
+                    slice = slice.slice();
+                } else {
+                    // tensors of large files are mapped one by one
+                    slice = channel.map(mode, dataStart + st.offsets[0], size);
+                }
+                entries.put(pair.getKey(), new Entry(shape, dataType, slice));
+            }
+            return new SafetensorsFile(entries);
+        }
+    }
+
+    /**
+     * Returns the names of the tensors in the order of the file.
+     *
+     * @return the names of the tensors
+     */
+    public List<String> getNames() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    /**
+     * Returns the shape of a tensor.
+     *
+     * @param name the name of the tensor
+     * @return the shape of the tensor
+     */
+    public Shape getShape(String name) {
+        return getEntry(name).shape;
+    }
+
+    /**
+     * Returns the data type of a tensor.
+     *
+     * @param name the name of the tensor
+     * @return the data type of the tensor
+     */
+    public DataType getDataType(String name) {
+        return getEntry(name).dataType;
+    }
+
+    /**
+     * Returns the mapped data of a tensor.
+     *
+     * @param name the name of the tensor
+     * @return a little endian buffer over the data of the tensor
+     */
+    public ByteBuffer getBuffer(String name) {
+        return getEntry(name).data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Creates an {@link NDArray} from the mapped data of a tensor.
+     *
+     * @param manager the manager of the array
+     * @param name the name of the tensor
+     * @return the array
+     */
+    public NDArray get(NDManager manager, String name) {
+        Entry entry = getEntry(name);
+        NDArray array = manager.wrap(getBuffer(name), entry.shape, entry.dataType);
+        array.setName(name);
+        return array;
+    }
+
+    /**
+     * Creates the {@link NDArray}s of all tensors.
+     *
+     * @param manager the manager of the arrays
+     * @return the arrays in the order of the file
+     */
+    public NDList load(NDManager manager) {
+        NDList list = new NDList(entries.size());
+        for (String name : entries.keySet()) {
+            list.add(get(manager, name));
+        }
+        return list;
+    }
+
+    private Entry getEntry(String name) {
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            throw new IllegalArgumentException("No tensor named " + name);
+        }
+        return entry;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buf, long position)
+            throws IOException {
+        long pos = position;
+        while (buf.hasRemaining()) {
+            int read = channel.read(buf, pos);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of the safetensors file");
+            }
+            pos += read;
+        }
+    }
+
+    private static final class Entry {
+
+        Shape shape;
+        DataType dataType;
+        ByteBuffer data;
+
+        Entry(Shape shape, DataType dataType, ByteBuffer data) {
+            this.shape = shape;
+            this.dataType = dataType;
+            this.data = data;
+        }
+    }
+}
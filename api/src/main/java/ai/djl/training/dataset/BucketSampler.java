@@ -0,0 +1,109 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.training.dataset;
+
+import ai.djl.translate.LengthBuckets;
+import ai.djl.util.RandomUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * {@code BucketSampler} is a {@link Sampler} that puts samples of similar length into the same
+ * batch.
+ *
+ * <p>The samples are visited in the order of a {@link ai.djl.training.dataset.Sampler.SubSampler}
+ * and grouped with {@link LengthBuckets}, so every batch holds samples of one bucket. Combined with
+ * a {@link ai.djl.translate.PaddingStackBatchifier} using the same buckets, each batch is only
+ * padded to the bound of its bucket.
+ */
+public class BucketSampler implements Sampler {
+
+    private Sampler.SubSampler subSampler;
+    private int batchSize;
+    private LengthBuckets buckets;
+    private LongUnaryOperator lengthOf;
+    private boolean shuffle;
+
+    /**
+     * Creates a new instance of {@code BucketSampler}.
+     *
+     * @param subSampler the {@link ai.djl.training.dataset.Sampler.SubSampler} that sets the order
+     *     of the samples within each bucket
+     * @param batchSize the maximum batch size
+     * @param buckets the length buckets
+     * @param lengthOf the function that returns the length of the sample at an index
+     * @param shuffle whether to shuffle the order of the batches
+     */
+    public BucketSampler(
+            Sampler.SubSampler subSampler,
+            int batchSize,
+            LengthBuckets buckets,
+            LongUnaryOperator lengthOf,
+            boolean shuffle) {
+        this.subSampler = subSampler;
+        this.batchSize = batchSize;
+        this.buckets = buckets;
+        this.lengthOf = lengthOf;
+        this.shuffle = shuffle;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Iterator<List<Long>> sample(RandomAccessDataset dataset) {
+        List<Long> indices = new ArrayList<>();
+        subSampler.sample(dataset).forEachRemaining(indices::add);
+        long[] lengths = new long[indices.size()];
+        for (int i = 0; i < lengths.length; ++i) {
+            lengths[i] = lengthOf.applyAsLong(indices.get(i));
+        }
+
+        List<int[]> groups = buckets.group(lengths, batchSize);
+        if (shuffle) {
+            Collections.shuffle(groups, RandomUtils.RANDOM);
+        }
+        Iterator<int[]> it = groups.iterator();
+        return new Iterator<List<Long>>() {
+
+            /** {@inheritDoc} */
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            /** {@inheritDoc} */
+            @Override
+            public List<Long> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int[] group = it.next();
+                List<Long> batch = new ArrayList<>(group.length);
+                for (int i : group) {
+                    batch.add(indices.get(i));
+                }
+                return batch;
+            }
+        };
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getBatchSize() {
+        return batchSize;
+    }
+}
@@ -31,6 +31,11 @@ public interface Batchifier extends Serializable {
 
     Batchifier STACK = new StackBatchifier();
 
+    /**
+     * A {@link StackBatchifier} that unbatchifies into {@link ai.djl.ndarray.HostNDArray} views.
+     */
+    Batchifier HOST_STACK = new StackBatchifier(true);
+
     /**
      * Returns a batchifier from a batchifier name.
      *
@@ -42,6 +47,8 @@ public interface Batchifier extends Serializable {
         switch (name) {
             case "stack":
                 return STACK;
+            case "host_stack":
+                return HOST_STACK;
             case "padding":
                 return new SimplePaddingStackBatchifier();
             case "none":
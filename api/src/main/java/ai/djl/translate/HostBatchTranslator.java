@@ -0,0 +1,108 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.translate;
+
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.DataDesc;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A {@link Translator} that prepares its input on the host and writes it into buffers.
+ *
+ * <p>When the batchifier is a {@link StackBatchifier}, each sample is written directly into its
+ * slot of a buffer that holds the whole batch, see {@link StackBatchifier#batchify(NDManager,
+ * DataDesc[], int, StackBatchifier.SampleWriter)}. No {@code NDArray} is created per sample and
+ * the batch is not copied again by a stack operation.
+ *
+ * @param <I> the input type
+ * @param <O> the output type
+ */
+public interface HostBatchTranslator<I, O> extends Translator<I, O> {
+
+    /**
+     * Returns the name, shape and data type of each input of a single sample.
+     *
+     * <p>All samples must have the same descriptors.
+     *
+     * @param ctx the toolkit that helps create the input NDArray
+     * @return the descriptors of the inputs of one sample
+     */
+    DataDesc[] getInputDescriptors(TranslatorContext ctx);
+
+    /**
+     * Writes the input of one sample into the given buffers.
+     *
+     * @param ctx the toolkit that helps create the input NDArray
+     * @param input the input object
+     * @param slots one buffer in native byte order per input descriptor, each with exactly the
+     *     size of the input
+     * @throws Exception if an error occurs during processing input
+     */
+    @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+    void processInput(TranslatorContext ctx, I input, ByteBuffer[] slots) throws Exception;
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The sample is written with {@link #processInput(TranslatorContext, Object,
+     * ByteBuffer[])} into direct buffers of the context's manager.
+     */
+    @Override
+    @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+    default NDList processInput(TranslatorContext ctx, I input) throws Exception {
+        NDManager manager = ctx.getNDManager();
+        DataDesc[] descriptors = getInputDescriptors(ctx);
+        ByteBuffer[] slots = new ByteBuffer[descriptors.length];
+        for (int i = 0; i < descriptors.length; ++i) {
+            DataDesc desc = descriptors[i];
+            long size = desc.getShape().size() * desc.getDataType().getNumOfBytes();
+            slots[i] = manager.allocateDirect(Math.toIntExact(size));
+            slots[i].order(ByteOrder.nativeOrder());
+        }
+        processInput(ctx, input, slots);
+
+        NDList list = new NDList(descriptors.length);
+        for (int i = 0; i < descriptors.length; ++i) {
+            DataDesc desc = descriptors[i];
+            slots[i].rewind();
+            NDArray array = manager.wrap(slots[i], desc.getShape(), desc.getDataType());
+            array.setName(desc.getName());
+            list.add(array);
+        }
+        return list;
+    }
+
+    /**
+     * Writes a batch of samples with {@link StackBatchifier#batchify(NDManager, DataDesc[], int,
+     * StackBatchifier.SampleWriter)}.
+     *
+     * @param ctx the toolkit that helps create the input NDArray
+     * @param inputs the input objects
+     * @param batchifier the batchifier that assembles the batch
+     * @return the batchified {@link NDList}
+     * @throws Exception if an error occurs during processing input
+     */
+    @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+    default NDList processInputs(TranslatorContext ctx, I[] inputs, StackBatchifier batchifier)
+            throws Exception {
+        return batchifier.batchify(
+                ctx.getNDManager(),
+                getInputDescriptors(ctx),
+                inputs.length,
+                (index, slots) -> processInput(ctx, inputs[index], slots));
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.translate;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@code LengthBuckets} groups samples of variable length into buckets of similar length.
+ *
+ * <p>The buckets are defined by ascending upper bounds. A sample of length {@code n} belongs to the
+ * first bucket whose bound is at least {@code n}, and a batch of that bucket is padded to the
+ * bound. Samples longer than the last bound share an extra bucket that is padded to its longest
+ * sample. Batching samples by bucket keeps one long sample from inflating the padding of a whole
+ * batch, and gives the padded batches a small set of shapes.
+ *
+ * <p>The buckets are used by {@link PaddingStackBatchifier}, {@link
+ * ai.djl.training.dataset.BucketSampler} and {@link ai.djl.inference.BatchingPredictor}.
+ */
+public class LengthBuckets implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long[] bounds;
+
+    /**
+     * Constructs a {@code LengthBuckets} with the given upper bounds.
+     *
+     * @param bounds the strictly ascending upper bound of each bucket
+     */
+    public LengthBuckets(long... bounds) {
+        if (bounds.length == 0) {
+            throw new IllegalArgumentException("At least one bucket bound is required");
+        }
+        for (int i = 1; i < bounds.length; ++i) {
+            if (bounds[i] <= bounds[i - 1]) {
+                throw new IllegalArgumentException(
+                        "Bucket bounds must be strictly ascending: " + Arrays.toString(bounds));
+            }
+        }
+        this.bounds = bounds.clone();
+    }
+
+    /**
+     * Returns buckets whose bounds grow by a constant factor, from {@code min} to at least {@code
+     * max}.
+     *
+     * @param min the bound of the first bucket
+     * @param max the largest length that should not fall into the extra bucket
+     * @param factor the growth factor between bounds, greater than 1
+     * @return the buckets
+     */
+    public static LengthBuckets geometric(long min, long max, double factor) {
+        if (min < 1 || factor <= 1) {
+            throw new IllegalArgumentException("min must be positive and factor greater than 1");
+        }
+        List<Long> list = new ArrayList<>();
+        long bound = min;
+        list.add(bound);
+        while (bound < max) {
+            bound = Math.max(bound + 1, (long) Math.ceil(bound * factor));
+            list.add(bound);
+        }
+        return new LengthBuckets(list.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    /**
+     * Returns the number of buckets, including the extra bucket for the longest samples.
+     *
+     * @return the number of buckets
+     */
+    public int size() {
+        return bounds.length + 1;
+    }
+
+    /**
+     * Returns the bucket of a sample length.
+     *
+     * @param length the length of the sample
+     * @return the index of the bucket
+     */
+    public int getBucket(long length) {
+        int index = Arrays.binarySearch(bounds, length);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Returns the length a batch is padded to.
+     *
+     * @param maxLength the length of the longest sample in the batch
+     * @return the bound of the bucket of {@code maxLength}, or {@code maxLength} if it is longer
+     *     than all bounds
+     */
+    public long getPaddedLength(long maxLength) {
+        int bucket = getBucket(maxLength);
+        return bucket < bounds.length ? bounds[bucket] : maxLength;
+    }
+
+    /**
+     * Groups samples by bucket into batches of at most {@code maxBatchSize}.
+     *
+     * <p>Within a bucket the samples keep their order. The batches are ordered by their first
+     * sample.
+     *
+     * @param lengths the length of each sample
+     * @param maxBatchSize the maximum number of samples in a batch
+     * @return the indices of the samples of each batch
+     */
+    public List<int[]> group(long[] lengths, int maxBatchSize) {
+        List<List<Integer>> open = new ArrayList<>(size());
+        for (int i = 0; i < size(); ++i) {
+            open.add(null);
+        }
+        List<List<Integer>> batches = new ArrayList<>();
+        for (int i = 0; i < lengths.length; ++i) {
+            int bucket = getBucket(lengths[i]);
+            List<Integer> batch = open.get(bucket);
+            if (batch == null || batch.size() == maxBatchSize) {
+                batch = new ArrayList<>(Math.min(maxBatchSize, lengths.length));
+                open.set(bucket, batch);
+                batches.add(batch);
+            }
+            batch.add(i);
+        }
+        List<int[]> ret = new ArrayList<>(batches.size());
+        for (List<Integer> batch : batches) {
+            ret.add(batch.stream().mapToInt(Integer::intValue).toArray());
+        }
+        return ret;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "LengthBuckets" + Arrays.toString(bounds);
+    }
+}
@@ -12,18 +12,36 @@
  */
 package ai.djl.translate;
 
+import ai.djl.metric.Metrics;
+import ai.djl.metric.Unit;
 import ai.djl.ndarray.NDArray;
 import ai.djl.ndarray.NDList;
 import ai.djl.ndarray.NDManager;
 import ai.djl.ndarray.index.NDIndex;
+import ai.djl.ndarray.types.DataType;
 import ai.djl.ndarray.types.Shape;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * The padding stack batchifier is a {@link StackBatchifier} that also pads elements to reach the
  * same length.
+ *
+ * <p>With {@link LengthBuckets}, a batch is padded to the bound of the bucket of its longest sample
+ * instead of the longest sample itself. Pair it with a {@link
+ * ai.djl.training.dataset.BucketSampler} or a bucketing {@link ai.djl.inference.BatchingPredictor}
+ * so that a batch only holds samples of one bucket.
+ *
+ * <p>When all samples are on the CPU, each padded batch is assembled on the host with one copy of
+ * every sample into a direct buffer for the whole batch. Otherwise the samples are padded and
+ * stacked with engine operations.
+ *
+ * <p>If {@link Metrics} are set, the share of padded elements in each batch is recorded as {@code
+ * PaddingWaste}.
  */
 public final class PaddingStackBatchifier implements Batchifier {
 
@@ -42,36 +60,86 @@ public final class PaddingStackBatchifier implements Batchifier {
 
     private boolean includeValidLengths;
 
+    private LengthBuckets buckets;
+
+    private transient Metrics metrics;
+
     private PaddingStackBatchifier(Builder builder) {
         arraysToPad = builder.arraysToPad;
         dimsToPad = builder.dimsToPad;
         paddingSuppliers = builder.paddingSuppliers;
         paddingSizes = builder.paddingSizes;
         includeValidLengths = builder.includeValidLengths;
+        buckets = builder.buckets;
+    }
+
+    /**
+     * Attaches a {@link Metrics} to record the padding waste of each batch.
+     *
+     * @param metrics the metrics, or {@code null} to stop recording
+     */
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
     }
 
     /** {@inheritDoc} */
     @Override
     public NDList batchify(NDList[] inputs) {
-        NDList validLengths = new NDList(inputs.length);
         NDManager manager = inputs[0].get(0).getManager();
-        for (int i = 0; i < arraysToPad.size(); i++) {
+        int numPads = arraysToPad.size();
+        long[] maxSizes = new long[numPads];
+        long[][] validLengths = new long[numPads][];
+        NDArray[] paddings = new NDArray[numPads];
+        for (int i = 0; i < numPads; i++) {
             int arrayIndex = arraysToPad.get(i);
             int dimIndex = dimsToPad.get(i);
-            NDArray padding = paddingSuppliers.get(i).get(manager);
+            paddings[i] = paddingSuppliers.get(i).get(manager);
             long paddingSize = paddingSizes.get(i);
             long maxSize = findMaxSize(inputs, arrayIndex, dimIndex);
             if (paddingSize != -1 && maxSize > paddingSize) {
                 throw new IllegalArgumentException(
                         "The batchifier padding size is too small " + maxSize + " " + paddingSize);
             }
-            maxSize = Math.max(maxSize, paddingSize);
-            long[] arrayValidLengths = padArrays(inputs, arrayIndex, dimIndex, padding, maxSize);
-            validLengths.add(manager.create(arrayValidLengths));
+            if (buckets != null) {
+                maxSize = buckets.getPaddedLength(maxSize);
+                if (paddingSize != -1) {
+                    // a fixed padding size takes precedence over the bound of the bucket
+                    maxSize = Math.min(maxSize, paddingSize);
+                }
+            }
+            maxSizes[i] = Math.max(maxSize, paddingSize);
+        }
+
+        NDList result = batchifyOnHost(manager, inputs, paddings, maxSizes, validLengths);
+        if (result == null) {
+            for (int i = 0; i < numPads; i++) {
+                validLengths[i] =
+                        padArrays(
+                                inputs,
+                                arraysToPad.get(i),
+                                dimsToPad.get(i),
+                                paddings[i],
+                                maxSizes[i]);
+            }
+            result = Batchifier.STACK.batchify(inputs);
+        }
+
+        if (metrics != null && numPads > 0) {
+            long padded = 0;
+            long total = 0;
+            for (int i = 0; i < numPads; i++) {
+                for (long validLength : validLengths[i]) {
+                    padded += maxSizes[i] - validLength;
+                }
+                total += maxSizes[i] * inputs.length;
+            }
+            double waste = total == 0 ? 0 : 100.0 * padded / total;
+            metrics.addMetric("PaddingWaste", waste, Unit.PERCENT);
         }
-        NDList result = Batchifier.STACK.batchify(inputs);
         if (includeValidLengths) {
-            result.addAll(validLengths);
+            for (long[] arrayValidLengths : validLengths) {
+                result.add(manager.create(arrayValidLengths));
+            }
         }
         return result;
     }
@@ -126,6 +194,132 @@ public final class PaddingStackBatchifier implements Batchifier {
         return split;
     }
 
+    /**
+     * Pads and stacks the inputs with one copy into a direct buffer per array.
+     *
+     * @return the stacked arrays, or {@code null} if the inputs need engine operations
+     */
+    private NDList batchifyOnHost(
+            NDManager manager,
+            NDList[] inputs,
+            NDArray[] paddings,
+            long[] maxSizes,
+            long[][] validLengths) {
+        int numInputKinds = inputs[0].size();
+        int[] padOf = new int[numInputKinds];
+        Arrays.fill(padOf, -1);
+        for (int i = 0; i < arraysToPad.size(); i++) {
+            int arrayIndex = arraysToPad.get(i);
+            if (arrayIndex >= numInputKinds || padOf[arrayIndex] != -1) {
+                return null;
+            }
+            padOf[arrayIndex] = i;
+        }
+        for (NDList input : inputs) {
+            if (input.size() != numInputKinds) {
+                return null;
+            }
+            for (NDArray array : input) {
+                if (array.getDevice().isGpu() || array.getDataType() == DataType.STRING) {
+                    return null;
+                }
+            }
+        }
+
+        // check the layouts and prepare one padding row per padded array
+        Shape[] batchShapes = new Shape[numInputKinds];
+        byte[][] padBlocks = new byte[numInputKinds][];
+        for (int k = 0; k < numInputKinds; k++) {
+            NDArray first = inputs[0].get(k);
+            DataType dataType = first.getDataType();
+            int pad = padOf[k];
+            int dim = pad == -1 ? -1 : dimsToPad.get(pad);
+            Shape shape = first.getShape();
+            if (pad != -1) {
+                if (dim >= shape.dimension()) {
+                    return null;
+                }
+                shape = Shape.update(shape, dim, maxSizes[pad]);
+            }
+            for (NDList input : inputs) {
+                NDArray array = input.get(k);
+                Shape s = array.getShape();
+                if (array.getDataType() != dataType || s.dimension() != shape.dimension()) {
+                    return null;
+                }
+                for (int d = 0; d < s.dimension(); d++) {
+                    if (d != dim && s.get(d) != shape.get(d)) {
+                        return null;
+                    }
+                }
+            }
+            if (pad != -1) {
+                long inner = shape.slice(dim + 1).size();
+                NDArray padding = paddings[pad];
+                long count = padding.size();
+                if (count != 1 && count != inner) {
+                    return null;
+                }
+                NDArray converted = padding.toType(dataType, false);
+                ByteBuffer bb = converted.toByteBuffer();
+                byte[] element = new byte[bb.remaining()];
+                bb.get(element);
+                if (converted != padding) {
+                    converted.close();
+                }
+                int rowBytes = Math.toIntExact(inner * dataType.getNumOfBytes());
+                byte[] block = new byte[Math.toIntExact(maxSizes[pad] * rowBytes)];
+                for (int offset = 0; offset < block.length; offset += element.length) {
+                    System.arraycopy(element, 0, block, offset, element.length);
+                }
+                padBlocks[k] = block;
+            }
+            batchShapes[k] = new Shape(inputs.length).addAll(shape);
+        }
+
+        NDList result = new NDList(numInputKinds);
+        for (int k = 0; k < numInputKinds; k++) {
+            DataType dataType = inputs[0].get(k).getDataType();
+            Shape batchShape = batchShapes[k];
+            int pad = padOf[k];
+            if (pad != -1) {
+                validLengths[pad] = new long[inputs.length];
+            }
+            int size = Math.toIntExact(batchShape.size() * dataType.getNumOfBytes());
+            ByteBuffer batch = manager.allocateDirect(size);
+            batch.order(ByteOrder.nativeOrder());
+            for (int b = 0; b < inputs.length; b++) {
+                NDArray array = inputs[b].get(k);
+                ByteBuffer data = array.toByteBuffer(true).duplicate();
+                if (pad == -1) {
+                    batch.put(data);
+                    continue;
+                }
+                int dim = dimsToPad.get(pad);
+                Shape shape = array.getShape();
+                long validLength = shape.get(dim);
+                validLengths[pad][b] = validLength;
+                long outer = shape.slice(0, dim).size();
+                long inner = shape.slice(dim + 1).size();
+                int rowBytes = Math.toIntExact(inner * dataType.getNumOfBytes());
+                int validBytes = Math.toIntExact(validLength * rowBytes);
+                int padBytes = Math.toIntExact((maxSizes[pad] - validLength) * rowBytes);
+                int start = data.position();
+                for (long o = 0; o < outer; o++) {
+                    data.limit(start + validBytes);
+                    batch.put(data);
+                    batch.put(padBlocks[k], 0, padBytes);
+                    start += validBytes;
+                }
+            }
+            batch.rewind();
+            NDArray stacked = manager.wrap(batch, batchShape, dataType);
+            stacked.setName(inputs[0].get(k).getName());
+            result.add(stacked);
+        }
+        return result;
+    }
+
     /**
      * Finds the maximum size for a particular array/dimension in a batch of inputs (which can be
      * padded to equalize their sizes).
@@ -225,6 +419,7 @@ public final class PaddingStackBatchifier implements Batchifier {
         private List<NDArraySupplier> paddingSuppliers;
         private List<Integer> paddingSizes;
         private boolean includeValidLengths;
+        private LengthBuckets buckets;
 
         private Builder() {
             arraysToPad = new ArrayList<>();
@@ -244,6 +439,20 @@ public final class PaddingStackBatchifier implements Batchifier {
             return this;
         }
 
+        /**
+         * Sets the {@link LengthBuckets} whose bounds the padded dimensions are padded to.
+         *
+         * <p>Dimensions added with a padding size are always padded to that size, even if the
+         * bound of a bucket is larger.
+         *
+         * @param buckets the length buckets
+         * @return this builder
+         */
+        public Builder optLengthBuckets(LengthBuckets buckets) {
+            this.buckets = buckets;
+            return this;
+        }
+
         /**
          * Adds a new dimension to be padded in the input {@link NDList}.
          *
@@ -137,6 +137,40 @@ public class Pipeline {
         return this;
     }
 
+    /**
+     * Returns a {@code Pipeline} in which consecutive transforms are fused where possible.
+     *
+     * <p>Neighbouring transforms on the same element of the input are combined with {@link
+     * Transform#fuse(Transform)}. For example, {@link ai.djl.modality.cv.transform.Resize}, {@link
+     * ai.djl.modality.cv.transform.CenterCrop}, {@link ai.djl.modality.cv.transform.ToTensor} and
+     * {@link ai.djl.modality.cv.transform.Normalize} become a single {@link
+     * ai.djl.modality.cv.transform.FusedImageTransform} that writes the final tensor in one pass
+     * instead of creating an array per transform. This {@code Pipeline} is not modified.
+     *
+     * @return the optimized {@code Pipeline}
+     */
+    public Pipeline optimize() {
+        Pipeline optimized = new Pipeline();
+        Pair<IndexKey, Transform> last = null;
+        for (Pair<IndexKey, Transform> pair : transforms) {
+            if (last != null && last.getKey().equals(pair.getKey())) {
+                Transform fused = last.getValue().fuse(pair.getValue());
+                if (fused != null) {
+                    last = new Pair<>(last.getKey(), fused);
+                    continue;
+                }
+            }
+            if (last != null) {
+                optimized.transforms.add(last);
+            }
+            last = pair;
+        }
+        if (last != null) {
+            optimized.transforms.add(last);
+        }
+        return optimized;
+    }
+
     /**
      * Applies the transforms configured in this object on the input {@link NDList}.
      *
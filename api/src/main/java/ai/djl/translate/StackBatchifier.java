@@ -13,23 +13,54 @@
 package ai.djl.translate;
 
 import ai.djl.engine.EngineException;
+import ai.djl.ndarray.HostNDArray;
 import ai.djl.ndarray.NDArray;
 import ai.djl.ndarray.NDArrays;
 import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.DataDesc;
 import ai.djl.ndarray.types.DataType;
 import ai.djl.ndarray.types.Shape;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 import java.util.stream.LongStream;
 
 /**
  * {@code StackBatchifier} is used to merge a list of samples to form a mini-batch of NDArray(s).
  * The is default {@link Batchifier} for data loading.
+ *
+ * <p>Besides stacking {@code NDArray}s, it can assemble a batch on the host with {@link
+ * #batchify(NDManager, DataDesc[], int, SampleWriter)}: each sample is written straight into its
+ * slot of one direct buffer per input, and a single {@code NDArray} is created from each buffer.
+ * {@link ai.djl.inference.Predictor} uses this mode for a {@link HostBatchTranslator}.
+ *
+ * <p>Likewise, a {@code StackBatchifier} created with {@code hostViews} unbatchifies on the host:
+ * each output is copied to the host once and every sample gets a {@link HostNDArray} view of its
+ * part. Reading the views, for example with {@link NDArray#toFloatArray()}, runs no engine
+ * operation, where splitting and squeezing would run one per sample and output.
  */
 public class StackBatchifier implements Batchifier {
 
     private static final long serialVersionUID = 1L;
 
+    private boolean hostViews;
+
+    /** Constructs a {@code StackBatchifier} that unbatchifies with engine operations. */
+    public StackBatchifier() {
+        this(false);
+    }
+
+    /**
+     * Constructs a {@code StackBatchifier}.
+     *
+     * @param hostViews {@code true} to unbatchify into {@link HostNDArray} views
+     */
+    public StackBatchifier(boolean hostViews) {
+        this.hostViews = hostViews;
+    }
+
     /** {@inheritDoc} */
     @Override
     public NDList batchify(NDList[] inputs) {
@@ -97,6 +128,61 @@ public class StackBatchifier implements Batchifier {
         }
     }
 
+    /**
+     * Assembles a batch on the host from samples that are written directly into their slots.
+     *
+     * <p>One direct buffer is allocated with {@link NDManager#allocateDirect(int)} for each input
+     * descriptor, large enough for the whole batch. For each sample, {@code writer} receives one
+     * slot per input: a buffer in native byte order whose capacity is the size of one sample.
+     * Each buffer then becomes a single {@code NDArray} with the batch axis prepended to the
+     * descriptor's shape with {@link NDManager#wrap(ByteBuffer, Shape, DataType)}. An engine that
+     * can use direct memory without copying, like TensorFlow, thus creates one tensor per input
+     * instead of one per sample plus a stacked copy.
+     *
+     * @param manager the manager to allocate the buffers and create the arrays
+     * @param descriptors the name, shape and data type of each input of a single sample
+     * @param batchSize the number of samples
+     * @param writer the function that writes sample {@code index} into its slots
+     * @return the batchified {@link NDList}
+     * @throws Exception if the writer fails
+     */
+    @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+    public NDList batchify(
+            NDManager manager, DataDesc[] descriptors, int batchSize, SampleWriter writer)
+            throws Exception {
+        int numInputKinds = descriptors.length;
+        ByteBuffer[] batches = new ByteBuffer[numInputKinds];
+        int[] sampleBytes = new int[numInputKinds];
+        for (int i = 0; i < numInputKinds; ++i) {
+            DataDesc desc = descriptors[i];
+            long size = desc.getShape().size() * desc.getDataType().getNumOfBytes();
+            sampleBytes[i] = Math.toIntExact(size);
+            batches[i] = manager.allocateDirect(Math.multiplyExact(sampleBytes[i], batchSize));
+            batches[i].order(ByteOrder.nativeOrder());
+        }
+
+        ByteBuffer[] slots = new ByteBuffer[numInputKinds];
+        for (int index = 0; index < batchSize; ++index) {
+            for (int i = 0; i < numInputKinds; ++i) {
+                ByteBuffer slot = batches[i].duplicate();
+                slot.position(index * sampleBytes[i]);
+                slot.limit(slot.position() + sampleBytes[i]);
+                slots[i] = slot.slice().order(ByteOrder.nativeOrder());
+            }
+            writer.write(index, slots);
+        }
+
+        NDList result = new NDList(numInputKinds);
+        for (int i = 0; i < numInputKinds; ++i) {
+            DataDesc desc = descriptors[i];
+            Shape shape = new Shape(batchSize).addAll(desc.getShape());
+            NDArray array = manager.wrap(batches[i], shape, desc.getDataType());
+            array.setName(desc.getName());
+            result.add(array);
+        }
+        return result;
+    }
+
     /** {@inheritDoc} */
     @Override
     public NDList[] unbatchify(NDList inputs) {
@@ -115,6 +201,13 @@ public class StackBatchifier implements Batchifier {
         }
 
         for (NDArray input : inputs) {
+            if (hostViews && input.getDataType() != DataType.STRING) {
+                HostNDArray[] views = HostNDArray.split(input);
+                for (int i = 0; i < batchSize; i++) {
+                    dataList[i].add(views[i]);
+                }
+                continue;
+            }
             NDList splitList = input.split(batchSize);
             for (int i = 0; i < batchSize; i++) {
                 NDArray array = splitList.get(i).squeeze(0);
@@ -188,4 +281,19 @@ public class StackBatchifier implements Batchifier {
         long[] indices = LongStream.range(1, numOfSlices).map(i -> i * step).toArray();
         return array.split(indices);
     }
+
+    /** A function that writes one sample of a batch into its slots. */
+    @FunctionalInterface
+    public interface SampleWriter {
+
+        /**
+         * Writes the sample at the given index of the batch.
+         *
+         * @param index the index of the sample in the batch
+         * @param slots one buffer per input, positioned at the start of the sample's slot
+         * @throws Exception if the sample cannot be written
+         */
+        @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+        void write(int index, ByteBuffer[] slots) throws Exception;
+    }
 }
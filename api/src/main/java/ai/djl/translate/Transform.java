@@ -29,4 +29,18 @@ public interface Transform {
      * @return the output of the {@code Transform}
      */
     NDArray transform(NDArray array);
+
+    /**
+     * Returns a {@code Transform} that applies this {@code Transform} and then {@code next} in a
+     * single step.
+     *
+     * <p>Transforms that can be computed together more efficiently than one after the other
+     * override this method, see {@link Pipeline#optimize()}.
+     *
+     * @param next the {@code Transform} applied after this one
+     * @return the fused {@code Transform}, or {@code null} if the two can't be fused
+     */
+    default Transform fuse(Transform next) {
+        return null;
+    }
 }
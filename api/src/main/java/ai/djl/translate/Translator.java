@@ -137,8 +137,13 @@ public interface Translator<I, O> extends PreProcessor<I>, PostProcessor<O> {
 
             /** {@inheritDoc} */
             @Override
-            @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+            @SuppressWarnings({"PMD.SignatureDeclareThrowsException", "unchecked"})
             public NDList processInput(TranslatorContext ctx, I[] inputs) throws Exception {
+                if (Translator.this instanceof HostBatchTranslator
+                        && batchifier instanceof StackBatchifier) {
+                    return ((HostBatchTranslator<I, O>) Translator.this)
+                            .processInputs(ctx, inputs, (StackBatchifier) batchifier);
+                }
                 NDList[] preprocessed = new NDList[inputs.length];
                 for (int i = 0; i < inputs.length; ++i) {
                     preprocessed[i] = Translator.this.processInput(ctx, inputs[i]);
@@ -37,7 +37,7 @@ public abstract class NativeResource<T> implements AutoCloseable {
 
     protected NativeResource(T handle) {
         this.handle = new AtomicReference<>(handle);
-        uid = handle.toString() + System.nanoTime();
+        uid = ResourceIds.nextUid();
     }
 
     /**
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates the ids of native resources and {@link ai.djl.ndarray.NDManager}s.
+ *
+ * <p>The ids are unique within the process. Each thread reserves a block of ids from a shared
+ * counter, so threads creating many resources don't contend on the counter.
+ */
+public final class ResourceIds {
+
+    private static final int BLOCK_SIZE = 1024;
+    private static final AtomicLong NEXT_BLOCK = new AtomicLong();
+    private static final ThreadLocal<long[]> BLOCK = ThreadLocal.withInitial(() -> new long[2]);
+
+    private ResourceIds() {}
+
+    /**
+     * Returns a new id.
+     *
+     * @return a new id
+     */
+    public static long next() {
+        long[] block = BLOCK.get();
+        if (block[0] == block[1]) {
+            block[0] = NEXT_BLOCK.getAndAdd(BLOCK_SIZE);
+            block[1] = block[0] + BLOCK_SIZE;
+        }
+        return block[0]++;
+    }
+
+    /**
+     * Returns a new id as a string, for the resource ids of {@link ai.djl.ndarray.NDManager}.
+     *
+     * @return a new id as a string
+     */
+    public static String nextUid() {
+        return Long.toHexString(next());
+    }
+}
@@ -291,6 +291,22 @@ public final class PassthroughNDManager implements NDManager {
         return Collections.emptyList();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public long getLiveArrayCount() {
+        return 0;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getLiveBytes() {
+        return 0;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setMemoryLimit(long limit, long timeout) {}
+
     /** {@inheritDoc} */
     @Override
     public void attachInternal(String resourceId, AutoCloseable... resource) {}
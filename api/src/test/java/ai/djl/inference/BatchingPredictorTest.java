@@ -0,0 +1,171 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.inference;
+
+import ai.djl.BaseModel;
+import ai.djl.Model;
+import ai.djl.metric.Metric;
+import ai.djl.metric.Metrics;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.nn.LambdaBlock;
+import ai.djl.translate.Batchifier;
+import ai.djl.translate.LengthBuckets;
+import ai.djl.translate.TranslateException;
+import ai.djl.translate.Translator;
+import ai.djl.translate.TranslatorContext;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BatchingPredictorTest {
+
+    @Test
+    public void testBatching() throws Exception {
+        AtomicInteger maxBatch = new AtomicInteger();
+        try (Model model = new TestModel()) {
+            model.setBlock(
+                    new LambdaBlock(
+                            list -> {
+                                int size = (int) list.head().getShape().get(0);
+                                maxBatch.accumulateAndGet(size, Math::max);
+                                return new NDList(list.head().mul(2));
+                            }));
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            Metrics metrics = new Metrics();
+            BatchingPredictor<Float, Float> predictor =
+                    new BatchingPredictor<>(
+                            model,
+                            new DoubleTranslator(),
+                            model.getNDManager().getDevice(),
+                            false,
+                            4,
+                            200,
+                            TimeUnit.MILLISECONDS);
+            try {
+                predictor.setMetrics(metrics);
+                List<Future<Float>> futures = new ArrayList<>();
+                for (int i = 0; i < 8; ++i) {
+                    float input = i;
+                    futures.add(executor.submit(() -> predictor.predict(input)));
+                }
+                for (int i = 0; i < 8; ++i) {
+                    Assert.assertEquals(futures.get(i).get(), i * 2f);
+                }
+                Assert.assertEquals(
+                        predictor.batchPredict(Arrays.asList(1f, 2f)), Arrays.asList(2f, 4f));
+                Assert.assertTrue(maxBatch.get() > 1 && maxBatch.get() <= 4);
+                Assert.assertEquals(metrics.getMetric("QueueWait").size(), 10);
+                int total =
+                        metrics.getMetric("BatchSize").stream()
+                                .map(Metric::getValue)
+                                .mapToInt(Number::intValue)
+                                .sum();
+                Assert.assertEquals(total, 10);
+                Assert.assertEquals(
+                        predictor.batchPredictAsync(Arrays.asList(3f, 4f)).get(),
+                        Arrays.asList(6f, 8f));
+
+                // errors are reported to every caller of the batch
+                Assert.assertThrows(TranslateException.class, () -> predictor.predict(-1f));
+                predictor.close();
+                Assert.assertThrows(IllegalStateException.class, () -> predictor.predict(1f));
+            } finally {
+                predictor.close();
+                executor.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void testLengthBuckets() throws Exception {
+        try (Model model = new TestModel()) {
+            model.setBlock(new LambdaBlock(list -> new NDList(list.head().mul(2))));
+            try (BatchingPredictor<Float, Float> predictor =
+                    new BatchingPredictor<>(
+                            model,
+                            new DoubleTranslator(),
+                            model.getNDManager().getDevice(),
+                            false,
+                            4,
+                            200,
+                            TimeUnit.MILLISECONDS)) {
+                predictor.setLengthBuckets(
+                        new LengthBuckets(2, 4),
+                        input -> {
+                            if (input > 10) {
+                                throw new IllegalArgumentException("Unknown length");
+                            }
+                            return input.longValue();
+                        });
+                Assert.assertEquals(
+                        predictor.batchPredictAsync(Arrays.asList(1f, 3f)).get(),
+                        Arrays.asList(2f, 6f));
+
+                // a failing length function runs the batch without buckets
+                Assert.assertEquals(
+                        predictor.batchPredictAsync(Arrays.asList(1f, 11f)).get(),
+                        Arrays.asList(2f, 22f));
+            }
+        }
+    }
+
+    static class DoubleTranslator implements Translator<Float, Float> {
+
+        /** {@inheritDoc} */
+        @Override
+        public NDList processInput(TranslatorContext ctx, Float input) throws TranslateException {
+            if (input < 0) {
+                throw new TranslateException("Negative input");
+            }
+            return new NDList(ctx.getNDManager().create(new float[] {input}));
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Float processOutput(TranslatorContext ctx, NDList list) {
+            return list.head().getFloat(0);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Batchifier getBatchifier() {
+            return Batchifier.STACK;
+        }
+    }
+
+    static final class TestModel extends BaseModel {
+
+        TestModel() {
+            super("test");
+            manager = NDManager.newBaseManager();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void load(Path modelPath, String prefix, Map<String, ?> options) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
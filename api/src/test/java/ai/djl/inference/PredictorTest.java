@@ -0,0 +1,155 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.inference;
+
+import ai.djl.Model;
+import ai.djl.inference.BatchingPredictorTest.DoubleTranslator;
+import ai.djl.inference.BatchingPredictorTest.TestModel;
+import ai.djl.metric.Metrics;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.types.DataDesc;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.nn.LambdaBlock;
+import ai.djl.translate.Batchifier;
+import ai.djl.translate.HostBatchTranslator;
+import ai.djl.translate.TranslateException;
+import ai.djl.translate.TranslatorContext;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class PredictorTest {
+
+    @Test
+    public void testPredictAsync() throws Exception {
+        CountDownLatch secondInput = new CountDownLatch(1);
+        AtomicBoolean overlapped = new AtomicBoolean();
+        try (Model model = new TestModel()) {
+            model.setBlock(
+                    new LambdaBlock(
+                            list -> {
+                                if (list.head().getFloat(0) == 1f) {
+                                    // the next input is pre-processed while this one runs
+                                    try {
+                                        overlapped.set(secondInput.await(10, TimeUnit.SECONDS));
+                                    } catch (InterruptedException e) {
+                                        Thread.currentThread().interrupt();
+                                    }
+                                }
+                                return new NDList(list.head().mul(2));
+                            }));
+            DoubleTranslator translator =
+                    new DoubleTranslator() {
+
+                        /** {@inheritDoc} */
+                        @Override
+                        public NDList processInput(TranslatorContext ctx, Float input)
+                                throws TranslateException {
+                            if (input == 2f) {
+                                secondInput.countDown();
+                            }
+                            return super.processInput(ctx, input);
+                        }
+                    };
+            Metrics metrics = new Metrics();
+            try (Predictor<Float, Float> predictor = model.newPredictor(translator)) {
+                predictor.setMetrics(metrics);
+                CompletableFuture<Float> first = predictor.predictAsync(1f);
+                CompletableFuture<Float> second = predictor.predictAsync(2f);
+                Assert.assertEquals(first.get(), 2f);
+                Assert.assertEquals(second.get(), 4f);
+                Assert.assertTrue(overlapped.get());
+                Assert.assertEquals(metrics.getMetric("Inference").size(), 2);
+                Assert.assertEquals(metrics.getMetric("Prediction").size(), 2);
+
+                Assert.assertEquals(
+                        predictor.batchPredictAsync(Arrays.asList(3f, 4f)).get(),
+                        Arrays.asList(6f, 8f));
+
+                ExecutionException e =
+                        Assert.expectThrows(
+                                ExecutionException.class, () -> predictor.predictAsync(-1f).get());
+                Assert.assertTrue(e.getCause() instanceof TranslateException);
+
+                // the stages can run on any executor
+                predictor.setPipelineExecutors(Runnable::run, Runnable::run, Runnable::run);
+                CompletableFuture<Float> future = predictor.predictAsync(5f);
+                Assert.assertTrue(future.isDone());
+                Assert.assertEquals(future.get(), 10f);
+            }
+
+            // closing the predictor waits for the pending predictions
+            Predictor<Float, Float> predictor = model.newPredictor(translator);
+            CompletableFuture<Float> pending = predictor.predictAsync(6f);
+            predictor.close();
+            Assert.assertEquals(pending.get(10, TimeUnit.SECONDS), 12f);
+            // a closed predictor does not start new pipelines
+            Assert.assertThrows(IllegalStateException.class, () -> predictor.predictAsync(7f));
+        }
+    }
+
+    @Test
+    public void testHostBatchTranslator() throws Exception {
+        try (Model model = new TestModel()) {
+            model.setBlock(
+                    new LambdaBlock(
+                            list -> {
+                                Assert.assertEquals(list.size(), 1);
+                                Assert.assertEquals(list.head().getName(), "data");
+                                return new NDList(list.head().mul(2));
+                            }));
+            HostBatchTranslator<Float, float[]> translator =
+                    new HostBatchTranslator<Float, float[]>() {
+
+                        /** {@inheritDoc} */
+                        @Override
+                        public DataDesc[] getInputDescriptors(TranslatorContext ctx) {
+                            return new DataDesc[] {new DataDesc(new Shape(2), "data")};
+                        }
+
+                        /** {@inheritDoc} */
+                        @Override
+                        public void processInput(
+                                TranslatorContext ctx, Float input, ByteBuffer[] slots) {
+                            Assert.assertEquals(slots[0].remaining(), 8);
+                            slots[0].putFloat(input).putFloat(input + 1);
+                        }
+
+                        /** {@inheritDoc} */
+                        @Override
+                        public float[] processOutput(TranslatorContext ctx, NDList list) {
+                            return list.head().toFloatArray();
+                        }
+
+                        /** {@inheritDoc} */
+                        @Override
+                        public Batchifier getBatchifier() {
+                            return Batchifier.STACK;
+                        }
+                    };
+            try (Predictor<Float, float[]> predictor = model.newPredictor(translator)) {
+                Assert.assertEquals(predictor.predict(1f), new float[] {2f, 4f});
+                Assert.assertEquals(
+                        predictor.batchPredict(Arrays.asList(1f, 3f)).get(1), new float[] {6f, 8f});
+            }
+        }
+    }
+}
@@ -94,6 +94,40 @@ public class MetricsTest {
         Assert.assertEquals(mean, 1.5d);
     }
 
+    @Test
+    public void testHistogramMetrics() {
+        Metrics metrics = new Metrics();
+        metrics.addMetric("m1", 5d);
+        metrics.addHistogram("m1");
+        metrics.setHistogram(true);
+        for (int i = 1; i <= 1000; ++i) {
+            metrics.addMetric("m1", i, Unit.MICROSECONDS);
+            metrics.addMetric("m2", -i);
+        }
+        Assert.assertNotNull(metrics.getHistogram("m2"));
+        Assert.assertEquals(metrics.count("m1"), 1001);
+        Assert.assertEquals(metrics.max("m1"), 1000d);
+        Assert.assertEquals(metrics.mean("m2"), -500.5d);
+        Assert.assertEquals(metrics.getMetric("m1").size(), 1);
+        Assert.assertEquals(metrics.latestMetric("m1").getValue(), 1000d);
+        Assert.assertTrue(metrics.getMetricNames().contains("m2"));
+
+        Metric p90 = metrics.percentile("m1", 90);
+        Assert.assertEquals(p90.getMetricName(), "m1_p90");
+        Assert.assertEquals(p90.getUnit(), Unit.MICROSECONDS);
+        Assert.assertEquals(p90.getValue(), 900d, 900 * 0.04);
+        Assert.assertEquals(metrics.percentile("m2", 10).getValue(), -900d, 900 * 0.04);
+
+        Histogram other = new Histogram();
+        other.record(0);
+        other.record(2000);
+        metrics.getHistogram("m1").merge(other);
+        Assert.assertEquals(metrics.count("m1"), 1003);
+        Assert.assertEquals(metrics.max("m1"), 2000d);
+        Assert.assertEquals(metrics.percentile("m1", 0).getValue(), 0d);
+        Assert.assertThrows(() -> metrics.getHistogram("m1").merge(new Histogram(5)));
+    }
+
     @Test(expectedExceptions = IllegalArgumentException.class)
     public void testMeanException() {
         Metrics metrics = new Metrics();
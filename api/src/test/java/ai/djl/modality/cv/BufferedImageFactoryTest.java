@@ -0,0 +1,66 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.modality.cv;
+
+import ai.djl.modality.cv.util.NDImageUtils;
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.DataType;
+import ai.djl.ndarray.types.Shape;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.awt.image.BufferedImage;
+
+public class BufferedImageFactoryTest {
+
+    @Test
+    public void testToNDArray() {
+        int[] types = {
+            BufferedImage.TYPE_3BYTE_BGR,
+            BufferedImage.TYPE_4BYTE_ABGR,
+            BufferedImage.TYPE_INT_RGB,
+            BufferedImage.TYPE_INT_ARGB,
+            BufferedImage.TYPE_USHORT_565_RGB
+        };
+        ImageFactory factory = new BufferedImageFactory();
+        try (NDManager manager = NDManager.newBaseManager()) {
+            for (int type : types) {
+                BufferedImage img = new BufferedImage(7, 5, type);
+                for (int y = 0; y < 5; ++y) {
+                    for (int x = 0; x < 7; ++x) {
+                        img.setRGB(x, y, 0xFF000000 | (x * 32) << 16 | (y * 40) << 8 | 0x18);
+                    }
+                }
+                // a sub image shares the raster of its parent with an offset
+                BufferedImage sub = img.getSubimage(2, 1, 4, 3);
+                Image image = factory.fromImage(sub);
+                NDArray array = image.toNDArray(manager, Image.Flag.COLOR);
+                Assert.assertEquals(array.getShape(), new Shape(3, 4, 3));
+                int rgb = sub.getRGB(3, 2);
+                int[] pixel = array.get("2, 3").toUint8Array();
+                Assert.assertEquals(pixel[0], (rgb >> 16) & 0xFF);
+                Assert.assertEquals(pixel[1], (rgb >> 8) & 0xFF);
+                Assert.assertEquals(pixel[2], rgb & 0xFF);
+
+                NDArray gray = image.toNDArray(manager, Image.Flag.GRAYSCALE);
+                Assert.assertEquals(gray.getShape(), new Shape(3, 4, 1));
+
+                NDArray tensor = image.toTensor(manager, Image.Flag.COLOR);
+                NDArray expected = NDImageUtils.toTensor(array.toType(DataType.FLOAT32, false));
+                Assert.assertTrue(tensor.allClose(expected));
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.ndarray;
+
+import ai.djl.ndarray.types.Shape;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class BaseNDManagerTest {
+
+    @Test
+    public void testConcurrentTracking() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (NDManager shared = NDManager.newBaseManager()) {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; ++i) {
+                futures.add(
+                        executor.submit(
+                                () -> {
+                                    List<String> uids = new ArrayList<>();
+                                    for (int j = 0; j < 200; ++j) {
+                                        try (NDManager manager = shared.newSubManager()) {
+                                            NDArray array = manager.create(j);
+                                            uids.add(array.getUid());
+                                            uids.add(manager.getName());
+                                        }
+                                        NDArray kept = shared.create(j);
+                                        uids.add(kept.getUid());
+                                        if (j % 2 == 0) {
+                                            kept.close();
+                                        }
+                                    }
+                                    return uids;
+                                }));
+            }
+            Set<String> uids = new HashSet<>();
+            for (Future<List<String>> future : futures) {
+                for (String uid : future.get()) {
+                    Assert.assertTrue(uids.add(uid), "Duplicated uid " + uid);
+                }
+            }
+            Assert.assertEquals(shared.getManagedArrays().size(), 8 * 100);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testMemoryAccounting() {
+        try (NDManager parent = NDManager.newBaseManager()) {
+            parent.setMemoryLimit(1024);
+            NDManager child = parent.newSubManager();
+            NDArray a = child.zeros(new Shape(16)); // 64 bytes
+            NDArray b = parent.zeros(new Shape(8)); // 32 bytes
+            Assert.assertEquals(child.getLiveArrayCount(), 1);
+            Assert.assertEquals(child.getLiveBytes(), 64);
+            Assert.assertEquals(parent.getLiveArrayCount(), 2);
+            Assert.assertEquals(parent.getLiveBytes(), 96);
+
+            Assert.assertThrows(IllegalStateException.class, () -> child.zeros(new Shape(256)));
+            Assert.assertEquals(parent.getLiveBytes(), 96);
+
+            a.close();
+            Assert.assertEquals(child.getLiveBytes(), 0);
+            Assert.assertEquals(parent.getLiveBytes(), 32);
+            child.zeros(new Shape(4));
+            child.close();
+            Assert.assertEquals(parent.getLiveArrayCount(), 1);
+            Assert.assertEquals(parent.getLiveBytes(), 32);
+            b.close();
+            Assert.assertEquals(parent.getLiveBytes(), 0);
+        }
+    }
+
+    @Test
+    public void testMemoryLimitWait() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (NDManager manager = NDManager.newBaseManager()) {
+            manager.setMemoryLimit(256, 10_000);
+            NDArray array = manager.zeros(new Shape(48)); // 192 bytes
+            Future<NDArray> future = executor.submit(() -> manager.zeros(new Shape(32)));
+            Thread.sleep(100);
+            Assert.assertFalse(future.isDone());
+            array.close();
+            NDArray next = future.get(10, TimeUnit.SECONDS);
+            Assert.assertEquals(next.size(), 32);
+            Assert.assertEquals(manager.getLiveBytes(), 128);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
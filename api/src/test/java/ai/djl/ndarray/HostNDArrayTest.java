@@ -0,0 +1,46 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.ndarray;
+
+import ai.djl.ndarray.types.Shape;
+import ai.djl.translate.Batchifier;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class HostNDArrayTest {
+
+    @Test
+    public void testUnbatchify() {
+        try (NDManager manager = NDManager.newBaseManager()) {
+            NDArray batch = manager.arange(12f).reshape(3, 2, 2);
+            batch.setName("output");
+            NDArray labels = manager.create(new int[] {7, 8, 9});
+            NDList[] samples = Batchifier.HOST_STACK.unbatchify(new NDList(batch, labels));
+            Assert.assertEquals(samples.length, 3);
+
+            NDArray second = samples[1].get(0);
+            Assert.assertTrue(second instanceof HostNDArray);
+            Assert.assertEquals(second.getName(), "output");
+            Assert.assertEquals(second.getShape(), new Shape(2, 2));
+            Assert.assertEquals(second.toFloatArray(), new float[] {4f, 5f, 6f, 7f});
+            Assert.assertEquals(samples[2].get(1).getShape(), new Shape());
+            Assert.assertEquals(samples[2].get(1).getInt(), 9);
+
+            // engine operations run on an array created from the view
+            NDArray sum = second.sum();
+            Assert.assertEquals(sum.getFloat(), 22f);
+            Assert.assertEquals(second.mul(2).toFloatArray(), new float[] {8f, 10f, 12f, 14f});
+        }
+    }
+}
@@ -13,12 +13,25 @@
 package ai.djl.ndarray;
 
 import ai.djl.Device;
+import ai.djl.ndarray.types.DataType;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.util.Utils;
 
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 public class NDListTest {
 
@@ -50,4 +63,111 @@ public class NDListTest {
             Assert.assertEquals(list.get(0).toByteArray(), new byte[] {0, 1, 2, 3, 4, 5});
         }
     }
+
+    @Test
+    public void testLoadSafetensors() throws IOException {
+        Path dir = Paths.get("build/tmp/testFile/");
+        Files.createDirectories(dir);
+        Path file = dir.resolve("list.safetensors");
+        try (NDManager manager = NDManager.newBaseManager(Device.cpu())) {
+            NDArray embedding = manager.arange(48f).reshape(4, 12);
+            embedding.setName("embedding");
+            NDArray bias = manager.create(new int[] {1, 2, 3});
+            bias.setName("bias");
+            try (OutputStream os = Files.newOutputStream(file)) {
+                new NDList(embedding, bias).encode(os, NDList.Encoding.SAFETENSORS);
+            }
+
+            // the data starts at an aligned offset
+            ByteBuffer bb =
+                    ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+            Assert.assertEquals((8 + bb.getLong(0)) % 64, 0);
+
+            SafetensorsFile st = SafetensorsFile.open(file);
+            Assert.assertEquals(st.getNames(), Arrays.asList("embedding", "bias"));
+            Assert.assertEquals(st.getShape("embedding"), new Shape(4, 12));
+            Assert.assertEquals(st.getDataType("bias"), DataType.INT32);
+            Assert.assertEquals(st.get(manager, "bias").toIntArray(), new int[] {1, 2, 3});
+            Assert.assertThrows(IllegalArgumentException.class, () -> st.get(manager, "weight"));
+
+            NDList list = manager.load(file);
+            Assert.assertEquals(list.size(), 2);
+            Assert.assertEquals(list.get("embedding"), embedding);
+            Assert.assertEquals(list.get("bias"), bias);
+        } finally {
+            Utils.deleteQuietly(dir);
+        }
+    }
+
+    @Test
+    public void testEncodeToChannel() throws IOException {
+        Path dir = Paths.get("build/tmp/testFile/");
+        Files.createDirectories(dir);
+        Path file = dir.resolve("list.ndlist");
+        try (NDManager manager = NDManager.newBaseManager(Device.cpu())) {
+            NDArray array = manager.arange(12f).reshape(3, 4);
+            array.setName("array");
+            NDList list = new NDList(array, manager.create(new String[] {"a", "b"}));
+            NDList numeric = new NDList(array, manager.create(new long[0]));
+            for (NDList.Encoding encoding : NDList.Encoding.values()) {
+                NDList input = encoding == NDList.Encoding.ND_LIST ? list : numeric;
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                input.encode(Channels.newChannel(bos), encoding);
+                NDList decoded = NDList.decode(manager, bos.toByteArray());
+                Assert.assertEquals(decoded.size(), 2);
+                Assert.assertEquals(decoded.get(0), array);
+
+                // gathering writes to a file
+                try (FileChannel channel =
+                        FileChannel.open(
+                                file,
+                                StandardOpenOption.CREATE,
+                                StandardOpenOption.WRITE,
+                                StandardOpenOption.TRUNCATE_EXISTING)) {
+                    input.toBytesSupplier(encoding).writeTo(channel);
+                }
+                Assert.assertEquals(Files.readAllBytes(file), bos.toByteArray());
+            }
+            Assert.assertEquals(
+                    list.toBytesSupplier(NDList.Encoding.ND_LIST).getAsBytes(), list.encode());
+        } finally {
+            Utils.deleteQuietly(dir);
+        }
+    }
+
+    @Test
+    public void testNpzFile() throws IOException {
+        Path dir = Paths.get("build/tmp/testFile/");
+        Files.createDirectories(dir);
+        Path stored = dir.resolve("stored.npz");
+        Path deflated = dir.resolve("deflated.npz");
+        try (NDManager manager = NDManager.newBaseManager(Device.cpu())) {
+            Files.write(stored, NDSerializerTest.readFile("list.npz"));
+            try (NpzFile npz = NpzFile.open(stored)) {
+                Assert.assertEquals(npz.getNames(), Arrays.asList("bool8", "arr_0"));
+                NDArray array = npz.get(manager, "bool8");
+                Assert.assertEquals(array.getName(), "bool8");
+                Assert.assertEquals(array.getDataType(), DataType.BOOLEAN);
+                Assert.assertThrows(IllegalArgumentException.class, () -> npz.get(manager, "x"));
+            }
+
+            NDArray features = manager.arange(64f).reshape(8, 8);
+            features.setName("features");
+            NDArray labels = manager.arange(8);
+            try (OutputStream os = Files.newOutputStream(deflated)) {
+                new NDList(features, labels).encode(os, NDList.Encoding.NPZ);
+            }
+            try (NpzFile npz = NpzFile.open(deflated)) {
+                Assert.assertEquals(npz.getNames(), Arrays.asList("features", "arr_0"));
+                NDList list = npz.load(manager, "arr_0", "features");
+                Assert.assertEquals(list.get(0), labels);
+                Assert.assertEquals(list.get(1), features);
+            }
+            NDList list = manager.load(deflated);
+            Assert.assertEquals(list.size(), 2);
+            Assert.assertEquals(list.get("features"), features);
+        } finally {
+            Utils.deleteQuietly(dir);
+        }
+    }
 }
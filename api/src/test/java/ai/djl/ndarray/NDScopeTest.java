@@ -52,4 +52,34 @@ public class NDScopeTest {
         Assert.assertFalse(detached.isReleased());
         detached.close();
     }
+
+    @Test
+    public void testArena() {
+        NDArray escaped;
+        NDArray inside;
+        try (NDManager manager = NDManager.newBaseManager()) {
+            manager.setMemoryLimit(1024);
+            NDArray outside = manager.create(new int[] {1});
+            try (NDScope arena = new NDScope(true)) {
+                Assert.assertTrue(arena.isArena());
+                inside = outside.add(1);
+                escaped = inside.add(1);
+                // arena arrays are not tracked by the manager
+                Assert.assertEquals(manager.getManagedArrays().size(), 1);
+                // but they count towards its memory
+                Assert.assertEquals(manager.getLiveArrayCount(), 3);
+                Assert.assertEquals(manager.getLiveBytes(), 12);
+                NDScope.unregister(escaped);
+                Assert.assertEquals(manager.getManagedArrays().size(), 2);
+                Assert.assertEquals(manager.getLiveArrayCount(), 3);
+            }
+            Assert.assertEquals(manager.getLiveArrayCount(), 2);
+            Assert.assertEquals(manager.getLiveBytes(), 8);
+            Assert.assertTrue(inside.isReleased());
+            Assert.assertFalse(escaped.isReleased());
+            Assert.assertFalse(outside.isReleased());
+            Assert.assertEquals(escaped.toIntArray(), new int[] {3});
+        }
+        Assert.assertTrue(escaped.isReleased());
+    }
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.translate;
+
+import ai.djl.metric.Metrics;
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.training.dataset.ArrayDataset;
+import ai.djl.training.dataset.BucketSampler;
+import ai.djl.training.dataset.SequenceSampler;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+public class PaddingStackBatchifierTest {
+
+    @Test
+    public void testLengthBuckets() {
+        LengthBuckets buckets = new LengthBuckets(4, 8, 16);
+        Assert.assertEquals(buckets.size(), 4);
+        Assert.assertEquals(buckets.getBucket(1), 0);
+        Assert.assertEquals(buckets.getBucket(4), 0);
+        Assert.assertEquals(buckets.getBucket(5), 1);
+        Assert.assertEquals(buckets.getBucket(17), 3);
+        Assert.assertEquals(buckets.getPaddedLength(6), 8);
+        Assert.assertEquals(buckets.getPaddedLength(20), 20);
+
+        List<int[]> groups = buckets.group(new long[] {3, 12, 2, 7, 1, 11}, 2);
+        Assert.assertEquals(groups.size(), 4);
+        Assert.assertEquals(groups.get(0), new int[] {0, 2});
+        Assert.assertEquals(groups.get(1), new int[] {1, 5});
+        Assert.assertEquals(groups.get(2), new int[] {3});
+        Assert.assertEquals(groups.get(3), new int[] {4});
+
+        Assert.assertEquals(
+                LengthBuckets.geometric(8, 40, 2).toString(), "LengthBuckets[8, 16, 32, 64]");
+        Assert.assertThrows(IllegalArgumentException.class, () -> new LengthBuckets(4, 4));
+    }
+
+    @Test
+    public void testBatchify() {
+        try (NDManager manager = NDManager.newBaseManager()) {
+            PaddingStackBatchifier batchifier =
+                    PaddingStackBatchifier.builder()
+                            .optIncludeValidLengths(true)
+                            .optLengthBuckets(new LengthBuckets(4, 8))
+                            .addPad(0, 0, m -> m.create(-1f))
+                            .build();
+            Metrics metrics = new Metrics();
+            batchifier.setMetrics(metrics);
+            NDArray first = manager.create(new float[] {1, 2, 3, 4, 5, 6}, new Shape(3, 2));
+            NDArray second = manager.create(new float[] {7, 8}, new Shape(1, 2));
+            NDList[] inputs = {
+                new NDList(first, manager.create(1)), new NDList(second, manager.create(2))
+            };
+            NDList batch = batchifier.batchify(inputs);
+            Assert.assertEquals(batch.size(), 3);
+            Assert.assertEquals(batch.get(0).getShape(), new Shape(2, 4, 2));
+            Assert.assertEquals(
+                    batch.get(0).toFloatArray(),
+                    new float[] {1, 2, 3, 4, 5, 6, -1, -1, 7, 8, -1, -1, -1, -1, -1, -1});
+            Assert.assertEquals(batch.get(1).toIntArray(), new int[] {1, 2});
+            Assert.assertEquals(batch.get(2).toLongArray(), new long[] {3, 1});
+            Assert.assertEquals(metrics.latestMetric("PaddingWaste").getValue(), 50d);
+        }
+    }
+
+    @Test
+    public void testBatchifyWithPaddingSize() {
+        try (NDManager manager = NDManager.newBaseManager()) {
+            // the bucket bound 8 would exceed the fixed padding size
+            PaddingStackBatchifier batchifier =
+                    PaddingStackBatchifier.builder()
+                            .optIncludeValidLengths(false)
+                            .optLengthBuckets(new LengthBuckets(4, 8))
+                            .addPad(0, 0, m -> m.create(0f), 6)
+                            .build();
+            NDList[] inputs = {
+                new NDList(manager.create(new float[] {1, 2, 3, 4, 5})),
+                new NDList(manager.create(new float[] {6}))
+            };
+            NDList batch = batchifier.batchify(inputs);
+            Assert.assertEquals(batch.singletonOrThrow().getShape(), new Shape(2, 6));
+
+            inputs = new NDList[] {new NDList(manager.create(new float[] {1, 2}))};
+            batch = batchifier.batchify(inputs);
+            Assert.assertEquals(batch.singletonOrThrow().getShape(), new Shape(1, 6));
+        }
+    }
+
+    @Test
+    public void testBucketSampler() {
+        try (NDManager manager = NDManager.newBaseManager()) {
+            ArrayDataset dataset =
+                    new ArrayDataset.Builder()
+                            .setData(manager.arange(6f))
+                            .setSampling(1, false)
+                            .build();
+            long[] lengths = {3, 12, 2, 7, 1, 11};
+            BucketSampler sampler =
+                    new BucketSampler(
+                            new SequenceSampler(),
+                            2,
+                            new LengthBuckets(4, 8),
+                            i -> lengths[Math.toIntExact(i)],
+                            false);
+            List<List<Long>> batches = new ArrayList<>();
+            Iterator<List<Long>> it = sampler.sample(dataset);
+            it.forEachRemaining(batches::add);
+            Assert.assertEquals(
+                    batches,
+                    Arrays.asList(
+                            Arrays.asList(0L, 2L),
+                            Arrays.asList(1L, 5L),
+                            Arrays.asList(3L),
+                            Arrays.asList(4L)));
+        }
+    }
+}
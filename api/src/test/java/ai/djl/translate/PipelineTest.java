@@ -0,0 +1,94 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.translate;
+
+import ai.djl.modality.cv.Image;
+import ai.djl.modality.cv.transform.CenterCrop;
+import ai.djl.modality.cv.transform.Normalize;
+import ai.djl.modality.cv.transform.Resize;
+import ai.djl.modality.cv.transform.ToTensor;
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDArrays;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.DataType;
+import ai.djl.ndarray.types.Shape;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PipelineTest {
+
+    private static final float[] MEAN = {0.485f, 0.456f, 0.406f};
+    private static final float[] STD = {0.229f, 0.224f, 0.225f};
+
+    @Test
+    public void testOptimize() {
+        try (NDManager manager = NDManager.newBaseManager()) {
+            NDArray image = manager.arange(7 * 9 * 3).reshape(7, 9, 3).toType(DataType.UINT8, true);
+            Image.Interpolation[] interpolations = {
+                Image.Interpolation.BILINEAR, Image.Interpolation.NEAREST
+            };
+            for (Image.Interpolation interpolation : interpolations) {
+                // TensorFlow only converts the bilinear result to float32
+                NDArray input =
+                        interpolation == Image.Interpolation.BILINEAR
+                                ? image
+                                : image.toType(DataType.FLOAT32, false);
+                Pipeline pipeline =
+                        new Pipeline(
+                                new Resize(6, 5, interpolation),
+                                new CenterCrop(4, 4),
+                                new ToTensor(),
+                                new Normalize(MEAN, STD));
+                NDArray expected = pipeline.transform(new NDList(input)).singletonOrThrow();
+                NDArray actual = pipeline.optimize().transform(new NDList(input)).get(0);
+                Assert.assertEquals(actual.getShape(), expected.getShape());
+                Assert.assertTrue(actual.allClose(expected, 1e-4, 1e-4, false));
+            }
+
+            // a chain without ToTensor runs the original transforms
+            Pipeline partial = new Pipeline(new Resize(6, 5), new CenterCrop());
+            Assert.assertEquals(
+                    partial.optimize().transform(new NDList(image)).get(0),
+                    partial.transform(new NDList(image)).get(0));
+        }
+    }
+
+    @Test
+    public void testOptimizeBatch() {
+        try (NDManager manager = NDManager.newBaseManager()) {
+            NDArray first = manager.arange(7 * 9 * 3).reshape(7, 9, 3);
+            first = first.toType(DataType.FLOAT32, false);
+            NDArray second = first.sub(100).abs();
+            Pipeline pipeline =
+                    new Pipeline(
+                                    new Resize(6, 5),
+                                    new CenterCrop(),
+                                    new ToTensor(),
+                                    new Normalize(MEAN, STD))
+                            .optimize();
+
+            NDArray batch = NDArrays.stack(new NDList(first, second));
+            NDArray actual = pipeline.transform(new NDList(batch)).get(0);
+            NDArray expected =
+                    NDArrays.stack(
+                            new NDList(
+                                    pipeline.transform(new NDList(first)).get(0),
+                                    pipeline.transform(new NDList(second)).get(0)));
+            Assert.assertEquals(actual.getShape().get(0), 2);
+            Assert.assertEquals(actual.getShape().size(), new Shape(2, 3, 5, 5).size());
+            Assert.assertTrue(actual.allClose(expected));
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.tensorflow.engine;
+
+import ai.djl.tensorflow.engine.javacpp.JavacppUtils;
+
+import org.bytedeco.javacpp.Pointer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of direct buffers for {@link TfNDManager#allocateDirect(int)}.
+ *
+ * <p>Buffers are grouped into power of two size classes from {@value #MIN_BLOCK_SIZE} bytes up to
+ * 16 MiB, larger requests are allocated directly. A {@link TfNDManager} returns its buffers to the
+ * pool when it is closed. Each thread keeps a few small buffers per size class, the rest are shared
+ * up to a total of 256 MiB. A buffer whose memory is still used by a TensorFlow tensor, see {@link
+ * JavacppUtils#createTFETensorFromDirectBuffer}, is never recycled.
+ *
+ * <p>The pool can be turned off with the system property {@code
+ * ai.djl.tensorflow.buffer_pool=false}.
+ */
+public final class TfBufferPool {
+
+    static final boolean ENABLED =
+            Boolean.parseBoolean(System.getProperty("ai.djl.tensorflow.buffer_pool", "true"));
+
+    private static final int MIN_BLOCK_SIZE = 64;
+    private static final int MIN_SHIFT = 6;
+    private static final int MAX_SHIFT = 24;
+    private static final int MAX_THREAD_CACHED_SHIFT = 18;
+    private static final int MAX_THREAD_CACHED_PER_CLASS = 4;
+    private static final long MAX_POOLED_BYTES = 256L << 20;
+
+    private static final TfBufferPool INSTANCE = new TfBufferPool();
+
+    private ThreadLocal<List<Deque<ByteBuffer>>> threadCache;
+    private List<Deque<ByteBuffer>> shared;
+    private AtomicLong pooledBytes;
+    private AtomicLong bytesInUse;
+    private LongAdder hits;
+    private LongAdder misses;
+
+    private TfBufferPool() {
+        int numClasses = MAX_SHIFT - MIN_SHIFT + 1;
+        threadCache = ThreadLocal.withInitial(() -> new ArrayList<>(numClasses));
+        shared = new ArrayList<>(numClasses);
+        for (int i = 0; i < numClasses; ++i) {
+            shared.add(new ConcurrentLinkedDeque<>());
+        }
+        pooledBytes = new AtomicLong();
+        bytesInUse = new AtomicLong();
+        hits = new LongAdder();
+        misses = new LongAdder();
+    }
+
+    /**
+     * Returns the buffer pool.
+     *
+     * @return the buffer pool
+     */
+    public static TfBufferPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the ratio of requests that were served with a recycled buffer.
+     *
+     * @return the hit rate between 0 and 1
+     */
+    public double getHitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    /**
+     * Returns the size of the buffers that were handed out and not returned yet.
+     *
+     * @return the number of bytes in use
+     */
+    public long getBytesInUse() {
+        return bytesInUse.get();
+    }
+
+    /**
+     * Returns the size of the buffers that are kept by the pool for reuse.
+     *
+     * @return the number of pooled bytes
+     */
+    public long getBytesPooled() {
+        return pooledBytes.get();
+    }
+
+    /**
+     * Returns a zeroed block of at least the given capacity, aligned to {@link
+     * JavacppUtils#TENSOR_ALIGNMENT} bytes.
+     *
+     * @param capacity the minimum capacity
+     * @return the block, use {@link #view(ByteBuffer, int)} to hand it out
+     */
+    ByteBuffer acquire(int capacity) {
+        int index = getSizeClass(capacity);
+        if (index < 0) {
+            ByteBuffer block = allocateAligned(capacity);
+            bytesInUse.addAndGet(block.capacity());
+            return block;
+        }
+        ByteBuffer block = null;
+        List<Deque<ByteBuffer>> caches = threadCache.get();
+        if (index < caches.size()) {
+            block = caches.get(index).poll();
+        }
+        if (block == null) {
+            block = shared.get(index).poll();
+            if (block != null) {
+                pooledBytes.addAndGet(-block.capacity());
+            }
+        }
+        if (block == null) {
+            misses.increment();
+            block = allocateAligned(MIN_BLOCK_SIZE << index);
+        } else {
+            hits.increment();
+            Pointer.memset(new Pointer(block), 0, capacity);
+        }
+        bytesInUse.addAndGet(block.capacity());
+        return block;
+    }
+
+    /**
+     * Returns a block to the pool.
+     *
+     * @param block a block from {@link #acquire(int)}
+     */
+    void release(ByteBuffer block) {
+        int size = block.capacity();
+        bytesInUse.addAndGet(-size);
+        int index = getSizeClass(size);
+        if (index < 0 || size != MIN_BLOCK_SIZE << index || JavacppUtils.isWrapped(block)) {
+            // leave oversized blocks and blocks still used by a tensor to the garbage collector
+            return;
+        }
+        if (index + MIN_SHIFT <= MAX_THREAD_CACHED_SHIFT) {
+            List<Deque<ByteBuffer>> caches = threadCache.get();
+            while (caches.size() <= index) {
+                caches.add(new ArrayDeque<>(MAX_THREAD_CACHED_PER_CLASS));
+            }
+            Deque<ByteBuffer> local = caches.get(index);
+            if (local.size() < MAX_THREAD_CACHED_PER_CLASS) {
+                local.push(block);
+                return;
+            }
+        }
+        if (pooledBytes.addAndGet(size) > MAX_POOLED_BYTES) {
+            pooledBytes.addAndGet(-size);
+            return;
+        }
+        shared.get(index).push(block);
+    }
+
+    /**
+     * Returns a buffer over the start of a block with the requested capacity.
+     *
+     * @param block the block
+     * @param capacity the capacity of the buffer
+     * @return a buffer in native byte order
+     */
+    static ByteBuffer view(ByteBuffer block, int capacity) {
+        ByteBuffer buf = block.duplicate();
+        buf.limit(capacity);
+        return buf.slice().order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Allocates a direct buffer aligned to {@link JavacppUtils#TENSOR_ALIGNMENT} bytes.
+     *
+     * @param capacity the capacity of the buffer
+     * @return a buffer in native byte order
+     */
+    static ByteBuffer allocateAligned(int capacity) {
+        int alignment = JavacppUtils.TENSOR_ALIGNMENT;
+        ByteBuffer buf = ByteBuffer.allocateDirect(capacity + alignment - 1);
+        long address = new Pointer(buf).address();
+        int offset = (int) ((alignment - address % alignment) % alignment);
+        buf.position(offset);
+        buf.limit(offset + capacity);
+        return buf.slice().order(ByteOrder.nativeOrder());
+    }
+
+    private static int getSizeClass(int capacity) {
+        if (capacity <= MIN_BLOCK_SIZE) {
+            return 0;
+        }
+        int shift = 32 - Integer.numberOfLeadingZeros(capacity - 1);
+        return shift > MAX_SHIFT ? -1 : shift - MIN_SHIFT;
+    }
+}
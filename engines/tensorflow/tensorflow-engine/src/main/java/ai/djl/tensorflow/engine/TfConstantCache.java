@@ -0,0 +1,234 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.tensorflow.engine;
+
+import ai.djl.Device;
+import ai.djl.ndarray.types.DataType;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.tensorflow.engine.javacpp.JavacppUtils;
+
+import org.tensorflow.internal.c_api.TFE_Context;
+import org.tensorflow.internal.c_api.TFE_TensorHandle;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An engine wide cache of small constant tensors.
+ *
+ * <p>Scalar operands such as {@code array.mul(2)} and the axis and shape arguments of many
+ * operations used to be created as temporary arrays, and scalars were cast to the data type of the
+ * array by an extra operation. The cache creates each distinct constant once per data type and
+ * device, directly in the target data type, and shares the native handle between all managers. The
+ * cached handles are never wrapped into an {@code NDArray}, so user code can't close them.
+ *
+ * <p>The cache only holds scalars and vectors of up to {@value #MAX_VECTOR_LENGTH} elements and
+ * stops growing after {@value #MAX_ENTRIES} entries. Constants beyond these limits are created for
+ * a single call. The cache can be turned off with the system property {@code
+ * ai.djl.tensorflow.constant_cache=false}.
+ */
+final class TfConstantCache implements AutoCloseable {
+
+    static final boolean ENABLED =
+            Boolean.parseBoolean(System.getProperty("ai.djl.tensorflow.constant_cache", "true"));
+
+    private static final int MAX_ENTRIES = 4096;
+    private static final int MAX_VECTOR_LENGTH = 16;
+
+    private TFE_Context eagerSessionHandle;
+    private Map<Key, TFE_TensorHandle> handles;
+
+    TfConstantCache(TFE_Context eagerSessionHandle) {
+        this.eagerSessionHandle = eagerSessionHandle;
+        handles = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns a scalar of the given data type.
+     *
+     * @param value the value of the scalar, converted to the data type like a Java cast would
+     * @param dataType the data type of the scalar
+     * @param device the device of the scalar
+     * @param uncached the list to add the handle to if it was not cached, the caller must close
+     *     these handles
+     * @return the scalar tensor handle
+     * @throws IllegalArgumentException if the data type is not supported
+     */
+    TFE_TensorHandle getScalar(
+            Number value, DataType dataType, Device device, List<TFE_TensorHandle> uncached) {
+        long bits;
+        switch (dataType) {
+            case FLOAT32:
+                bits = Float.floatToIntBits(value.floatValue());
+                break;
+            case FLOAT64:
+                bits = Double.doubleToLongBits(value.doubleValue());
+                break;
+            case INT8:
+            case UINT8:
+                bits = value.byteValue();
+                break;
+            case INT32:
+                bits = value.intValue();
+                break;
+            case INT64:
+                bits = value.longValue();
+                break;
+            case BOOLEAN:
+                bits = value.doubleValue() != 0 ? 1 : 0;
+                break;
+            default:
+                throw new IllegalArgumentException(
+                        "Unsupported data type for a scalar operand: " + dataType);
+        }
+        return get(new Key(dataType, device, true, new long[] {bits}), uncached);
+    }
+
+    /**
+     * Returns an {@code INT32} vector.
+     *
+     * @param values the values of the vector
+     * @param device the device of the vector
+     * @param uncached the list to add the handle to if it was not cached, the caller must close
+     *     these handles
+     * @return the vector tensor handle
+     */
+    TFE_TensorHandle getVector(int[] values, Device device, List<TFE_TensorHandle> uncached) {
+        long[] bits = new long[values.length];
+        for (int i = 0; i < values.length; ++i) {
+            bits[i] = values[i];
+        }
+        return get(new Key(DataType.INT32, device, false, bits), uncached);
+    }
+
+    /**
+     * Returns an {@code INT64} vector.
+     *
+     * @param values the values of the vector
+     * @param device the device of the vector
+     * @param uncached the list to add the handle to if it was not cached, the caller must close
+     *     these handles
+     * @return the vector tensor handle
+     */
+    TFE_TensorHandle getVector(long[] values, Device device, List<TFE_TensorHandle> uncached) {
+        return get(new Key(DataType.INT64, device, false, values.clone()), uncached);
+    }
+
+    /**
+     * Returns the number of cached constants.
+     *
+     * @return the number of cached constants
+     */
+    int size() {
+        return handles.size();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        handles.values().forEach(TFE_TensorHandle::close);
+        handles.clear();
+    }
+
+    private TFE_TensorHandle get(Key key, List<TFE_TensorHandle> uncached) {
+        if (ENABLED && (key.scalar || key.values.length <= MAX_VECTOR_LENGTH)) {
+            TFE_TensorHandle handle = handles.get(key);
+            if (handle != null) {
+                return handle;
+            }
+            if (handles.size() < MAX_ENTRIES) {
+                // two threads may race for the same key, only one handle is kept
+                TFE_TensorHandle created = create(key);
+                handle = handles.putIfAbsent(key, created);
+                if (handle == null) {
+                    return created;
+                }
+                created.close();
+                return handle;
+            }
+        }
+        TFE_TensorHandle handle = create(key);
+        uncached.add(handle);
+        return handle;
+    }
+
+    private TFE_TensorHandle create(Key key) {
+        DataType dataType = key.dataType;
+        ByteBuffer bb = ByteBuffer.allocate(key.values.length * dataType.getNumOfBytes());
+        bb.order(ByteOrder.nativeOrder());
+        for (long bits : key.values) {
+            switch (dataType) {
+                case FLOAT32:
+                case INT32:
+                    bb.putInt((int) bits);
+                    break;
+                case FLOAT64:
+                case INT64:
+                    bb.putLong(bits);
+                    break;
+                default:
+                    // INT8, UINT8 and BOOLEAN
+                    bb.put((byte) bits);
+                    break;
+            }
+        }
+        bb.rewind();
+        Shape shape = key.scalar ? new Shape() : new Shape(key.values.length);
+        return JavacppUtils.createTFETensorFromByteBuffer(
+                bb, shape, dataType, eagerSessionHandle, key.device);
+    }
+
+    private static final class Key {
+
+        DataType dataType;
+        Device device;
+        boolean scalar;
+        long[] values;
+        int hash;
+
+        Key(DataType dataType, Device device, boolean scalar, long[] values) {
+            this.dataType = dataType;
+            this.device = device;
+            this.scalar = scalar;
+            this.values = values;
+            hash = Objects.hash(dataType, device, scalar) * 31 + Arrays.hashCode(values);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return dataType == key.dataType
+                    && scalar == key.scalar
+                    && device.equals(key.device)
+                    && Arrays.equals(values, key.values);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
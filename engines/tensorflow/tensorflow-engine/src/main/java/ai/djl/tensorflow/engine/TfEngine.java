@@ -45,6 +45,7 @@ public final class TfEngine extends Engine implements AutoCloseable {
     static final int RANK = 3;
 
     private static AtomicReference<TFE_Context> eagerSessionHandle;
+    private static TfConstantCache constantCache;
 
     private TfEngine() {}
 
@@ -56,6 +57,7 @@ public final class TfEngine extends Engine implements AutoCloseable {
                     new AtomicReference<>(
                             JavacppUtils.createEagerSession(
                                     true, 2, JavacppUtils.getSessionConfig()));
+            constantCache = new TfConstantCache(eagerSessionHandle.get());
             // call a function from tensorflow-java package to
             // load the native library right here
             // if it throws exception, we can catch it here
@@ -160,10 +162,24 @@ public final class TfEngine extends Engine implements AutoCloseable {
         return TfNDManager.getSystemManager().newSubManager(device);
     }
 
+    /**
+     * Returns a table of the eager operations recorded by the {@link TfOpProfiler}, sorted by their
+     * total time.
+     *
+     * @return a table of the eager operations
+     */
+    public String dumpOpProfile() {
+        return TfOpProfiler.getInstance().dump();
+    }
+
     TFE_Context getEagerSession() {
         return eagerSessionHandle.get();
     }
 
+    TfConstantCache getConstantCache() {
+        return constantCache;
+    }
+
     /** {@inheritDoc} */
     @Override
     public String toString() {
@@ -182,6 +198,8 @@ public final class TfEngine extends Engine implements AutoCloseable {
     /** {@inheritDoc} */
     @Override
     public void close() {
+        constantCache.close();
+        TfOpCache.clearAll();
         TFE_Context handle = eagerSessionHandle.getAndSet(null);
         if (handle != null && !handle.isNull()) {
             handle.close();
@@ -14,6 +14,7 @@ package ai.djl.tensorflow.engine;
 
 import ai.djl.Device;
 import ai.djl.ndarray.BaseNDManager;
+import ai.djl.ndarray.LeakDetector;
 import ai.djl.ndarray.NDArray;
 import ai.djl.ndarray.NDArrays;
 import ai.djl.ndarray.NDList;
@@ -32,10 +33,16 @@ import org.tensorflow.internal.c_api.TF_Tensor;
 
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.stream.IntStream;
 import java.util.stream.LongStream;
 
@@ -50,18 +57,28 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     private TfNDArrayEx tfNDArrayEx;
     private DataType dataType;
     private TF_Tensor tensor;
+    private TF_Tensor view;
+    private ByteBuffer viewBuffer;
 
     TfNDArray(TfNDManager manager, TFE_TensorHandle handle) {
-        super(handle);
-        this.manager = manager;
-        manager.attachInternal(getUid(), this);
-        tfNDArrayEx = new TfNDArrayEx(this);
-        NDScope.register(this);
+        this(manager, handle, null);
     }
 
     TfNDArray(TfNDManager manager, TFE_TensorHandle handle, TF_Tensor tensor) {
-        this(manager, handle);
+        super(handle);
+        this.manager = manager;
         this.tensor = tensor;
+        tfNDArrayEx = new TfNDArrayEx(this);
+        LeakDetector leakDetector = LeakDetector.getInstance();
+        if (leakDetector.isEnabled() && !(handle instanceof TfTracedHandle)) {
+            // in-place operations replace the handle, the release function reads the current one
+            AtomicReference<TFE_TensorHandle> current = this.handle;
+            leakDetector.track(this, () -> release(current.getAndSet(null), tensor));
+        }
+        if (!NDScope.registerInArena(this)) {
+            manager.attachInternal(getUid(), this);
+            NDScope.register(this);
+        }
     }
 
     /** {@inheritDoc} */
@@ -186,6 +203,80 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
         return JavacppUtils.getByteBuffer(getHandle());
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public ByteBuffer toByteBuffer(boolean tryDirect) {
+        return tryDirect ? toDirectBuffer() : toByteBuffer();
+    }
+
+    /**
+     * Returns a read-only direct buffer over the data of this {@code NDArray} without copying it
+     * into the Java heap.
+     *
+     * <p>Unlike {@link #toByteBuffer()}, the returned buffer is only valid until this {@code
+     * NDArray} is closed or modified in place and must not be used afterwards. The view is kept and
+     * shared by later calls, so the data of a GPU array is copied to the host once.
+     *
+     * @return a read-only buffer in native byte order
+     */
+    public ByteBuffer toDirectBuffer() {
+        if (getDataType() == DataType.STRING) {
+            throw new IllegalArgumentException("Please use toStringArray() for String NDArray.");
+        }
+        synchronized (this) {
+            if (viewBuffer == null) {
+                view = JavacppUtils.resolveTFETensor(getHandle());
+                viewBuffer = JavacppUtils.getDirectByteBuffer(view);
+            }
+            return viewBuffer.duplicate().order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public float[] toFloatArray() {
+        if (getDataType() != DataType.FLOAT32) {
+            return NDArray.super.toFloatArray();
+        }
+        return readData(
+                bb -> {
+                    FloatBuffer fb = bb.asFloatBuffer();
+                    float[] ret = new float[fb.remaining()];
+                    fb.get(ret);
+                    return ret;
+                });
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int[] toIntArray() {
+        if (getDataType() != DataType.INT32) {
+            return NDArray.super.toIntArray();
+        }
+        return readData(
+                bb -> {
+                    IntBuffer ib = bb.asIntBuffer();
+                    int[] ret = new int[ib.remaining()];
+                    ib.get(ret);
+                    return ret;
+                });
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long[] toLongArray() {
+        if (getDataType() != DataType.INT64) {
+            return NDArray.super.toLongArray();
+        }
+        return readData(
+                bb -> {
+                    LongBuffer lb = bb.asLongBuffer();
+                    long[] ret = new long[lb.remaining()];
+                    lb.get(ret);
+                    return ret;
+                });
+    }
+
     /** {@inheritDoc} */
     @Override
     public void set(Buffer buffer) {
@@ -288,12 +379,11 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
             }
         }
         try (NDArray where = manager.opExecutor("Where").addInput(index).buildSingletonOrThrow();
-                NDArray squeeze = where.squeeze(1);
-                NDArray axisArr = manager.create(axis)) {
+                NDArray squeeze = where.squeeze(1)) {
             return manager.opExecutor("GatherV2")
                     .addInput(this)
                     .addInput(squeeze)
-                    .addInput(axisArr)
+                    .addInput(axis, DataType.INT32)
                     .buildSingletonOrThrow();
         }
     }
@@ -337,9 +427,10 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray eq(Number n) {
-        try (NDArray number = manager.create(n).toType(getDataType(), false)) {
-            return eq(number);
-        }
+        return manager.opExecutor("Equal")
+                .addInput(this)
+                .addInput(n, getDataType())
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -351,9 +442,10 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray neq(Number n) {
-        try (NDArray number = manager.create(n).toType(getDataType(), false)) {
-            return neq(number);
-        }
+        return manager.opExecutor("NotEqual")
+                .addInput(this)
+                .addInput(n, getDataType())
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -368,9 +460,10 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray gt(Number n) {
-        try (NDArray number = manager.create(n).toType(getDataType(), false)) {
-            return gt(number);
-        }
+        return manager.opExecutor("Greater")
+                .addInput(this)
+                .addInput(n, getDataType())
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -382,9 +475,10 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray gte(Number n) {
-        try (NDArray number = manager.create(n).toType(getDataType(), false)) {
-            return gte(number);
-        }
+        return manager.opExecutor("GreaterEqual")
+                .addInput(this)
+                .addInput(n, getDataType())
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -399,9 +493,10 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray lt(Number n) {
-        try (NDArray number = manager.create(n).toType(getDataType(), false)) {
-            return lt(number);
-        }
+        return manager.opExecutor("Less")
+                .addInput(this)
+                .addInput(n, getDataType())
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -413,9 +508,10 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray lte(Number n) {
-        try (NDArray number = manager.create(n).toType(getDataType(), false)) {
-            return lte(number);
-        }
+        return manager.opExecutor("LessEqual")
+                .addInput(this)
+                .addInput(n, getDataType())
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -430,11 +526,10 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray all() {
-        try (NDArray casted = toType(DataType.BOOLEAN, true);
-                NDArray axes = manager.arange(getShape().dimension())) {
+        try (NDArray casted = toType(DataType.BOOLEAN, true)) {
             return manager.opExecutor("All")
                     .addInput(casted)
-                    .addInput(axes)
+                    .addInput(allAxes())
                     .buildSingletonOrThrow();
         }
     }
@@ -442,11 +537,10 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray any() {
-        try (NDArray casted = toType(DataType.BOOLEAN, true);
-                NDArray axes = manager.arange(getShape().dimension())) {
+        try (NDArray casted = toType(DataType.BOOLEAN, true)) {
             return manager.opExecutor("Any")
                     .addInput(casted)
-                    .addInput(axes)
+                    .addInput(allAxes())
                     .buildSingletonOrThrow();
         }
     }
@@ -472,16 +566,14 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
             throw new UnsupportedOperationException("float64 is not supported");
         }
         NDArray flatten = flatten();
-        NDArray axis = manager.create(0);
         NDArray res =
                 manager.opExecutor("EuclideanNorm")
                         .addInput(flatten)
-                        .addInput(axis)
+                        .addInput(0, DataType.INT32)
                         .addParam("keep_dims", keepDims)
                         .buildSingletonOrThrow();
         // close the temp NDArray
         flatten.close();
-        axis.close();
         if (!keepDims) {
             return res;
         }
@@ -499,29 +591,24 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
         if (ord != 2) {
             throw new UnsupportedOperationException("Only ord=2 is supported");
         }
-        try (NDArray axesArr = manager.create(axes)) {
-            return manager.opExecutor("EuclideanNorm")
-                    .addInput(this)
-                    .addInput(axesArr)
-                    .addParam("keep_dims", keepDims)
-                    .buildSingletonOrThrow();
-        }
+        return manager.opExecutor("EuclideanNorm")
+                .addInput(this)
+                .addInput(axes)
+                .addParam("keep_dims", keepDims)
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
     @Override
     public NDArray oneHot(int depth, float onValue, float offValue, DataType dataType) {
-        try (NDArray depthArr = manager.create(depth);
-                NDArray onValueArr = manager.create(onValue);
-                NDArray offValueArr = manager.create(offValue);
-                NDArray result =
-                        manager.opExecutor("OneHot")
-                                .addInput(this)
-                                .addInput(depthArr)
-                                .addInput(onValueArr)
-                                .addInput(offValueArr)
-                                .addParam("axis", -1)
-                                .buildSingletonOrThrow()) {
+        try (NDArray result =
+                manager.opExecutor("OneHot")
+                        .addInput(this)
+                        .addInput(depth, DataType.INT32)
+                        .addInput(onValue, DataType.FLOAT32)
+                        .addInput(offValue, DataType.FLOAT32)
+                        .addParam("axis", -1)
+                        .buildSingletonOrThrow()) {
             return result.toType(dataType, true);
         }
     }
@@ -547,9 +634,10 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray add(Number n) {
-        try (NDArray number = manager.create(n).toType(getDataType(), false)) {
-            return add(number);
-        }
+        return manager.opExecutor("Add")
+                .addInput(this)
+                .addInput(n, getDataType())
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -561,9 +649,10 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray sub(Number n) {
-        try (NDArray number = manager.create(n).toType(getDataType(), false)) {
-            return sub(number);
-        }
+        return manager.opExecutor("Sub")
+                .addInput(this)
+                .addInput(n, getDataType())
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -575,9 +664,10 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray mul(Number n) {
-        try (NDArray number = manager.create(n).toType(getDataType(), false)) {
-            return mul(number);
-        }
+        return manager.opExecutor("Mul")
+                .addInput(this)
+                .addInput(n, getDataType())
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -589,9 +679,10 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray div(Number n) {
-        try (NDArray number = manager.create(n).toType(getDataType(), false)) {
-            return div(number);
-        }
+        return manager.opExecutor("Div")
+                .addInput(this)
+                .addInput(n, getDataType())
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -603,9 +694,10 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray mod(Number n) {
-        try (NDArray number = manager.create(n).toType(getDataType(), false)) {
-            return mod(number);
-        }
+        return manager.opExecutor("Mod")
+                .addInput(this)
+                .addInput(n, getDataType())
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -617,9 +709,10 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray pow(Number n) {
-        try (NDArray number = manager.create(n).toType(getDataType(), false)) {
-            return pow(number);
-        }
+        return manager.opExecutor("Pow")
+                .addInput(this)
+                .addInput(n, getDataType())
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -631,9 +724,10 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray maximum(Number n) {
-        try (NDArray number = manager.create(n).toType(getDataType(), false)) {
-            return maximum(number);
-        }
+        return manager.opExecutor("Maximum")
+                .addInput(this)
+                .addInput(n, getDataType())
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -645,9 +739,10 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray minimum(Number n) {
-        try (NDArray number = manager.create(n).toType(getDataType(), false)) {
-            return minimum(number);
-        }
+        return manager.opExecutor("Minimum")
+                .addInput(this)
+                .addInput(n, getDataType())
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -659,9 +754,13 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray addi(Number n) {
-        try (NDArray number = manager.create(n).toType(getDataType(), false)) {
-            return addi(number);
-        }
+        TFE_TensorHandle newHandle =
+                manager.opExecutor("Add")
+                        .addInput(this)
+                        .addInput(n, getDataType())
+                        .buildRawPointer(1)[0];
+        setHandle(newHandle);
+        return this;
     }
 
     /** {@inheritDoc} */
@@ -676,9 +775,13 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray subi(Number n) {
-        try (NDArray number = manager.create(n).toType(getDataType(), false)) {
-            return subi(number);
-        }
+        TFE_TensorHandle newHandle =
+                manager.opExecutor("Sub")
+                        .addInput(this)
+                        .addInput(n, getDataType())
+                        .buildRawPointer(1)[0];
+        setHandle(newHandle);
+        return this;
     }
 
     /** {@inheritDoc} */
@@ -693,9 +796,13 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray muli(Number n) {
-        try (NDArray number = manager.create(n).toType(getDataType(), false)) {
-            return muli(number);
-        }
+        TFE_TensorHandle newHandle =
+                manager.opExecutor("Mul")
+                        .addInput(this)
+                        .addInput(n, getDataType())
+                        .buildRawPointer(1)[0];
+        setHandle(newHandle);
+        return this;
     }
 
     /** {@inheritDoc} */
@@ -710,9 +817,13 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray divi(Number n) {
-        try (NDArray number = manager.create(n).toType(getDataType(), false)) {
-            return divi(number);
-        }
+        TFE_TensorHandle newHandle =
+                manager.opExecutor("Div")
+                        .addInput(this)
+                        .addInput(n, getDataType())
+                        .buildRawPointer(1)[0];
+        setHandle(newHandle);
+        return this;
     }
 
     /** {@inheritDoc} */
@@ -733,9 +844,13 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray modi(Number n) {
-        try (NDArray number = manager.create(n).toType(getDataType(), false)) {
-            return modi(number);
-        }
+        TFE_TensorHandle newHandle =
+                manager.opExecutor("Mod")
+                        .addInput(this)
+                        .addInput(n, getDataType())
+                        .buildRawPointer(1)[0];
+        setHandle(newHandle);
+        return this;
     }
 
     /** {@inheritDoc} */
@@ -750,9 +865,13 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray powi(Number n) {
-        try (NDArray number = manager.create(n).toType(getDataType(), false)) {
-            return powi(number);
-        }
+        TFE_TensorHandle newHandle =
+                manager.opExecutor("Pow")
+                        .addInput(this)
+                        .addInput(n, getDataType())
+                        .buildRawPointer(1)[0];
+        setHandle(newHandle);
+        return this;
     }
 
     /** {@inheritDoc} */
@@ -814,17 +933,12 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray cbrt() {
-        NDArray pow;
-        if (getDataType().equals(DataType.FLOAT64)) {
-            pow = manager.create(1.0 / 3);
-        } else {
-            pow = manager.create(1f / 3);
-        }
-        try {
-            return manager.opExecutor("Pow").addInput(this).addInput(pow).buildSingletonOrThrow();
-        } finally {
-            pow.close();
-        }
+        DataType powType =
+                getDataType().equals(DataType.FLOAT64) ? DataType.FLOAT64 : DataType.FLOAT32;
+        return manager.opExecutor("Pow")
+                .addInput(this)
+                .addInput(1.0 / 3, powType)
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -974,41 +1088,33 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray max() {
-        try (NDArray axes = manager.arange(getShape().dimension())) {
-            return manager.opExecutor("Max").addInput(this).addInput(axes).buildSingletonOrThrow();
-        }
+        return manager.opExecutor("Max").addInput(this).addInput(allAxes()).buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
     @Override
     public NDArray max(int[] axes, boolean keepDims) {
-        try (NDArray axesArr = manager.create(axes)) {
-            return manager.opExecutor("Max")
-                    .addInput(this)
-                    .addInput(axesArr)
-                    .addParam("keep_dims", keepDims)
-                    .buildSingletonOrThrow();
-        }
+        return manager.opExecutor("Max")
+                .addInput(this)
+                .addInput(axes)
+                .addParam("keep_dims", keepDims)
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
     @Override
     public NDArray min() {
-        try (NDArray axes = manager.arange(getShape().dimension())) {
-            return manager.opExecutor("Min").addInput(this).addInput(axes).buildSingletonOrThrow();
-        }
+        return manager.opExecutor("Min").addInput(this).addInput(allAxes()).buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
     @Override
     public NDArray min(int[] axes, boolean keepDims) {
-        try (NDArray axesArr = manager.create(axes)) {
-            return manager.opExecutor("Min")
-                    .addInput(this)
-                    .addInput(axesArr)
-                    .addParam("keep_dims", keepDims)
-                    .buildSingletonOrThrow();
-        }
+        return manager.opExecutor("Min")
+                .addInput(this)
+                .addInput(axes)
+                .addParam("keep_dims", keepDims)
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -1020,8 +1126,11 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
         if (getDataType() == DataType.BOOLEAN) {
             array = array.toType(DataType.INT64, false);
         }
-        try (NDArray axes = manager.arange(getShape().dimension())) {
-            return manager.opExecutor("Sum").addInput(array).addInput(axes).buildSingletonOrThrow();
+        try {
+            return manager.opExecutor("Sum")
+                    .addInput(array)
+                    .addInput(allAxes())
+                    .buildSingletonOrThrow();
         } finally {
             if (array != this) {
                 array.close();
@@ -1032,13 +1141,11 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray sum(int[] axes, boolean keepDims) {
-        try (NDArray axesArr = manager.create(axes)) {
-            return manager.opExecutor("Sum")
-                    .addInput(this)
-                    .addInput(axesArr)
-                    .addParam("keep_dims", keepDims)
-                    .buildSingletonOrThrow();
-        }
+        return manager.opExecutor("Sum")
+                .addInput(this)
+                .addInput(axes)
+                .addParam("keep_dims", keepDims)
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -1056,41 +1163,39 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray prod() {
-        try (NDArray axes = manager.arange(getShape().dimension())) {
-            return manager.opExecutor("Prod").addInput(this).addInput(axes).buildSingletonOrThrow();
-        }
+        return manager.opExecutor("Prod")
+                .addInput(this)
+                .addInput(allAxes())
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
     @Override
     public NDArray prod(int[] axes, boolean keepDims) {
-        try (NDArray axesArr = manager.create(axes)) {
-            return manager.opExecutor("Prod")
-                    .addInput(this)
-                    .addInput(axesArr)
-                    .addParam("keep_dims", keepDims)
-                    .buildSingletonOrThrow();
-        }
+        return manager.opExecutor("Prod")
+                .addInput(this)
+                .addInput(axes)
+                .addParam("keep_dims", keepDims)
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
     @Override
     public NDArray mean() {
-        try (NDArray axes = manager.arange(getShape().dimension())) {
-            return manager.opExecutor("Mean").addInput(this).addInput(axes).buildSingletonOrThrow();
-        }
+        return manager.opExecutor("Mean")
+                .addInput(this)
+                .addInput(allAxes())
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
     @Override
     public NDArray mean(int[] axes, boolean keepDims) {
-        try (NDArray axesArr = manager.create(axes)) {
-            return manager.opExecutor("Mean")
-                    .addInput(this)
-                    .addInput(axesArr)
-                    .addParam("keep_dims", keepDims)
-                    .buildSingletonOrThrow();
-        }
+        return manager.opExecutor("Mean")
+                .addInput(this)
+                .addInput(axes)
+                .addParam("keep_dims", keepDims)
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -1142,16 +1247,13 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
                             + ": "
                             + getShape().get(axis));
         }
-        try (NDArray sizesArr = manager.create(sizes.stream().mapToInt(Long::intValue).toArray());
-                NDArray axisArr = manager.create(axis)) {
-            return new NDList(
-                    manager.opExecutor("SplitV")
-                            .addInput(this)
-                            .addInput(sizesArr)
-                            .addInput(axisArr)
-                            .addParam("num_split", sizes.size())
-                            .build(indices.length + 1));
-        }
+        return new NDList(
+                manager.opExecutor("SplitV")
+                        .addInput(this)
+                        .addInput(sizes.stream().mapToInt(Long::intValue).toArray())
+                        .addInput(axis, DataType.INT32)
+                        .addParam("num_split", sizes.size())
+                        .build(indices.length + 1));
     }
 
     /** {@inheritDoc} */
@@ -1199,23 +1301,19 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray reshape(Shape shape) {
-        try (NDArray shapeArr = manager.create(shape.getShape())) {
-            return manager.opExecutor("Reshape")
-                    .addInput(this)
-                    .addInput(shapeArr)
-                    .buildSingletonOrThrow();
-        }
+        return manager.opExecutor("Reshape")
+                .addInput(this)
+                .addInput(shape.getShape())
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
     @Override
     public NDArray expandDims(int axis) {
-        try (NDArray axisArr = manager.create(axis)) {
-            return manager.opExecutor("ExpandDims")
-                    .addInput(this)
-                    .addInput(axisArr)
-                    .buildSingletonOrThrow();
-        }
+        return manager.opExecutor("ExpandDims")
+                .addInput(this)
+                .addInput(axis, DataType.INT32)
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -1292,6 +1390,14 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
         return sortHelper(-1, true, false);
     }
 
+    private int[] allAxes() {
+        int[] axes = new int[getShape().dimension()];
+        for (int i = 0; i < axes.length; ++i) {
+            axes[i] = i;
+        }
+        return axes;
+    }
+
     private NDArray sortHelper(int axis, boolean ascending, boolean returnIndices) {
         if (isScalar()) {
             return duplicate();
@@ -1418,12 +1524,10 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
         if (Arrays.stream(getShape().getShape()).anyMatch(dim -> dim == 0L)) {
             return manager.create(new Shape(0));
         }
-        try (NDArray axisArr = manager.create(axis)) {
-            return manager.opExecutor("Cumsum")
-                    .addInput(this)
-                    .addInput(axisArr)
-                    .buildSingletonOrThrow();
-        }
+        return manager.opExecutor("Cumsum")
+                .addInput(this)
+                .addInput(axis, DataType.INT32)
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -1482,12 +1586,7 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray tile(long[] repeats) {
-        try (NDArray repeatsArr = manager.create(repeats)) {
-            return manager.opExecutor("Tile")
-                    .addInput(this)
-                    .addInput(repeatsArr)
-                    .buildSingletonOrThrow();
-        }
+        return manager.opExecutor("Tile").addInput(this).addInput(repeats).buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -1582,25 +1681,20 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray clip(Number min, Number max) {
-        try (NDArray minArr = manager.create(min.floatValue());
-                NDArray maxArr = manager.create(max.floatValue())) {
-            return manager.opExecutor("ClipByValue")
-                    .addInput(this)
-                    .addInput(minArr)
-                    .addInput(maxArr)
-                    .buildSingletonOrThrow();
-        }
+        return manager.opExecutor("ClipByValue")
+                .addInput(this)
+                .addInput(min, getDataType())
+                .addInput(max, getDataType())
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
     @Override
     public NDArray flip(int... axes) {
-        try (NDArray axesArr = manager.create(axes)) {
-            return manager.opExecutor("ReverseV2")
-                    .addInput(this)
-                    .addInput(axesArr)
-                    .buildSingletonOrThrow();
-        }
+        return manager.opExecutor("ReverseV2")
+                .addInput(this)
+                .addInput(axes)
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -1625,23 +1719,19 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
                     "You must include each of the dimensions from 0 until "
                             + getShape().dimension());
         }
-        try (NDArray dimensionsArr = manager.create(dimensions)) {
-            return manager.opExecutor("Transpose")
-                    .addInput(this)
-                    .addInput(dimensionsArr)
-                    .buildSingletonOrThrow();
-        }
+        return manager.opExecutor("Transpose")
+                .addInput(this)
+                .addInput(dimensions)
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
     @Override
     public NDArray broadcast(Shape shape) {
-        try (NDArray shapeArr = manager.create(shape.getShape())) {
-            return manager.opExecutor("BroadcastTo")
-                    .addInput(this)
-                    .addInput(shapeArr)
-                    .buildSingletonOrThrow();
-        }
+        return manager.opExecutor("BroadcastTo")
+                .addInput(this)
+                .addInput(shape.getShape())
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -1656,12 +1746,10 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray argMax(int axis) {
-        try (NDArray axisArr = manager.create(axis)) {
-            return manager.opExecutor("ArgMax")
-                    .addInput(this)
-                    .addInput(axisArr)
-                    .buildSingletonOrThrow();
-        }
+        return manager.opExecutor("ArgMax")
+                .addInput(this)
+                .addInput(axis, DataType.INT32)
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -1682,12 +1770,10 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
     /** {@inheritDoc} */
     @Override
     public NDArray argMin(int axis) {
-        try (NDArray axisArr = manager.create(axis)) {
-            return manager.opExecutor("ArgMin")
-                    .addInput(this)
-                    .addInput(axisArr)
-                    .buildSingletonOrThrow();
-        }
+        return manager.opExecutor("ArgMin")
+                .addInput(this)
+                .addInput(axis, DataType.INT32)
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -1766,17 +1852,54 @@ public class TfNDArray extends NativeResource<TFE_TensorHandle> implements NDArr
             if (tensor != null) {
                 tensor.close();
             }
+            closeView();
             manager.detachInternal(getUid());
             manager = null;
+            LeakDetector.getInstance().untrack(getUid());
         }
         tfNDArrayEx = null;
     }
 
+    /** Frees the native memory of an array that was garbage collected without being closed. */
+    private static void release(TFE_TensorHandle handle, TF_Tensor tensor) {
+        if (handle != null && !handle.isNull()) {
+            handle.close();
+        }
+        if (tensor != null) {
+            tensor.close();
+        }
+    }
+
+    /**
+     * Reads the data of this array from native memory without an intermediate copy.
+     *
+     * @param reader the function that reads the data, the buffer must not escape it
+     * @param <T> the type of the result
+     * @return the result of the function
+     */
+    <T> T readData(Function<ByteBuffer, T> reader) {
+        return JavacppUtils.readByteBuffer(getHandle(), reader);
+    }
+
     // TensorFlow doesn't support in-place operation
     // each operator execution will generate a new node in the graph
     // workaround the limitation by updating the handle
     protected void setHandle(TFE_TensorHandle newHandle) {
+        if (newHandle instanceof TfTracedHandle) {
+            throw new IllegalStateException(
+                    "In-place operations on arrays created outside of a trace are not supported"
+                            + " while tracing");
+        }
         TFE_TensorHandle oldHandle = handle.getAndSet(newHandle);
         oldHandle.close();
+        closeView();
+    }
+
+    private synchronized void closeView() {
+        if (view != null) {
+            view.close();
+            view = null;
+            viewBuffer = null;
+        }
     }
 }
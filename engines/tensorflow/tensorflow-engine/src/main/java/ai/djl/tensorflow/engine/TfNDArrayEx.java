@@ -44,7 +44,11 @@ public class TfNDArrayEx implements NDArrayEx {
     /** {@inheritDoc} */
     @Override
     public NDArray rdiv(Number n) {
-        return rdiv(array.getManager().create(n).toType(array.getDataType(), false));
+        return array.getManager()
+                .opExecutor("Div")
+                .addInput(n, array.getDataType())
+                .addInput(array)
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -56,7 +60,14 @@ public class TfNDArrayEx implements NDArrayEx {
     /** {@inheritDoc} */
     @Override
     public NDArray rdivi(Number n) {
-        return rdivi(array.getManager().create(n).toType(array.getDataType(), false));
+        TFE_TensorHandle newHandle =
+                array.getManager()
+                        .opExecutor("Div")
+                        .addInput(n, array.getDataType())
+                        .addInput(array)
+                        .buildRawPointer(1)[0];
+        array.setHandle(newHandle);
+        return array;
     }
 
     /** {@inheritDoc} */
@@ -75,7 +86,11 @@ public class TfNDArrayEx implements NDArrayEx {
     /** {@inheritDoc} */
     @Override
     public NDArray rsub(Number n) {
-        return rsub(array.getManager().create(n).toType(array.getDataType(), false));
+        return array.getManager()
+                .opExecutor("Sub")
+                .addInput(n, array.getDataType())
+                .addInput(array)
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -87,7 +102,14 @@ public class TfNDArrayEx implements NDArrayEx {
     /** {@inheritDoc} */
     @Override
     public NDArray rsubi(Number n) {
-        return rsubi(array.getManager().create(n).toType(array.getDataType(), false));
+        TFE_TensorHandle newHandle =
+                array.getManager()
+                        .opExecutor("Sub")
+                        .addInput(n, array.getDataType())
+                        .addInput(array)
+                        .buildRawPointer(1)[0];
+        array.setHandle(newHandle);
+        return array;
     }
 
     /** {@inheritDoc} */
@@ -106,7 +128,11 @@ public class TfNDArrayEx implements NDArrayEx {
     /** {@inheritDoc} */
     @Override
     public NDArray rmod(Number n) {
-        return rmod(array.getManager().create(n).toType(array.getDataType(), false));
+        return array.getManager()
+                .opExecutor("Mod")
+                .addInput(n, array.getDataType())
+                .addInput(array)
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -118,7 +144,14 @@ public class TfNDArrayEx implements NDArrayEx {
     /** {@inheritDoc} */
     @Override
     public NDArray rmodi(Number n) {
-        return rmodi(array.getManager().create(n).toType(array.getDataType(), false));
+        TFE_TensorHandle newHandle =
+                array.getManager()
+                        .opExecutor("Mod")
+                        .addInput(n, array.getDataType())
+                        .addInput(array)
+                        .buildRawPointer(1)[0];
+        array.setHandle(newHandle);
+        return array;
     }
 
     /** {@inheritDoc} */
@@ -137,23 +170,24 @@ public class TfNDArrayEx implements NDArrayEx {
     /** {@inheritDoc} */
     @Override
     public NDArray rpow(Number n) {
-        return array.getManager().create(n).toType(array.getDataType(), false).pow(array);
+        return array.getManager()
+                .opExecutor("Pow")
+                .addInput(n, array.getDataType())
+                .addInput(array)
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
     @Override
     public NDArray rpowi(Number n) {
-        TfNDManager manager = array.getManager();
-        try (NDArray temp = manager.create(n);
-                NDArray casted = temp.toType(array.getDataType(), false)) {
-            TFE_TensorHandle newHandle =
-                    manager.opExecutor("Pow")
-                            .addInput(casted)
-                            .addInput(array)
-                            .buildRawPointer(1)[0];
-            array.setHandle(newHandle);
-            return array;
-        }
+        TFE_TensorHandle newHandle =
+                array.getManager()
+                        .opExecutor("Pow")
+                        .addInput(n, array.getDataType())
+                        .addInput(array)
+                        .buildRawPointer(1)[0];
+        array.setHandle(newHandle);
+        return array;
     }
 
     /** {@inheritDoc} */
@@ -513,18 +547,18 @@ public class TfNDArrayEx implements NDArrayEx {
         TfNDManager manager = array.getManager();
         if (array.getShape().dimension() == 3) {
             try (NDArray temp = array.expandDims(0);
-                    NDArray size = manager.create(new int[] {height, width});
                     NDArray image =
                             manager.opExecutor(op)
                                     .addInput(temp)
-                                    .addInput(size)
+                                    .addInput(new int[] {height, width})
                                     .buildSingletonOrThrow()) {
                 return image.squeeze();
             }
         }
-        try (NDArray size = manager.create(new int[] {height, width})) {
-            return manager.opExecutor(op).addInput(array).addInput(size).buildSingletonOrThrow();
-        }
+        return manager.opExecutor(op)
+                .addInput(array)
+                .addInput(new int[] {height, width})
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -597,12 +631,10 @@ public class TfNDArrayEx implements NDArrayEx {
         srcArray[0] = array;
         System.arraycopy(arrays.toArray(new NDArray[0]), 0, srcArray, 1, arrays.size());
         TfNDManager manager = array.getManager();
-        try (NDArray axisArr = manager.create(axis)) {
-            return manager.opExecutor("ConcatV2")
-                    .addInputList(srcArray)
-                    .addInput(axisArr)
-                    .buildSingletonOrThrow();
-        }
+        return manager.opExecutor("ConcatV2")
+                .addInputList(srcArray)
+                .addInput(axis, DataType.INT32)
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -44,23 +44,19 @@ public class TfNDArrayIndexer extends NDArrayIndexer {
     public NDArray get(NDArray array, NDIndexFullSlice fullSlice) {
         array = manager.from(array);
         int[] toSqueeze = fullSlice.getToSqueeze();
-        try (NDArray begin = manager.create(fullSlice.getMin());
-                NDArray end = manager.create(fullSlice.getMax());
-                NDArray step = manager.create(fullSlice.getStep())) {
-            NDArray result =
-                    manager.opExecutor("StridedSlice")
-                            .addInput(array)
-                            .addInput(begin)
-                            .addInput(end)
-                            .addInput(step)
-                            .buildSingletonOrThrow();
-            if (toSqueeze.length > 0) {
-                NDArray oldResult = result;
-                result = result.squeeze(toSqueeze);
-                oldResult.close();
-            }
-            return result;
+        NDArray result =
+                manager.opExecutor("StridedSlice")
+                        .addInput(array)
+                        .addInput(fullSlice.getMin())
+                        .addInput(fullSlice.getMax())
+                        .addInput(fullSlice.getStep())
+                        .buildSingletonOrThrow();
+        if (toSqueeze.length > 0) {
+            NDArray oldResult = result;
+            result = result.squeeze(toSqueeze);
+            oldResult.close();
         }
+        return result;
     }
 
     /** {@inheritDoc} */
@@ -16,7 +16,9 @@ import ai.djl.Device;
 import ai.djl.engine.Engine;
 import ai.djl.ndarray.BaseNDManager;
 import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
 import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.NDScope;
 import ai.djl.ndarray.types.DataType;
 import ai.djl.ndarray.types.Shape;
 import ai.djl.tensorflow.engine.javacpp.JavacppUtils;
@@ -28,14 +30,21 @@ import org.tensorflow.internal.c_api.TF_Tensor;
 
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
 
 @SuppressWarnings("PMD.UseTryWithResources")
 public class TfNDManager extends BaseNDManager {
 
     static final TfNDManager SYSTEM_MANAGER = new SystemManager();
 
+    private static final boolean ZERO_COPY =
+            Boolean.parseBoolean(System.getProperty("ai.djl.tensorflow.zero_copy", "true"));
+
+    private List<ByteBuffer> buffers;
+
     private TfNDManager(NDManager parent, Device device) {
         super(parent, device);
     }
@@ -44,10 +53,32 @@ public class TfNDManager extends BaseNDManager {
         return SYSTEM_MANAGER;
     }
 
-    /** {@inheritDoc} */
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The returned buffer starts at an address aligned to {@link JavacppUtils#TENSOR_ALIGNMENT}
+     * bytes, so {@link #wrap(ByteBuffer, Shape, DataType)} can use its memory without copying. The
+     * buffer is taken from the {@link TfBufferPool} and must not be used after this manager is
+     * closed, or after the arena if it is allocated inside an arena {@link NDScope}.
+     */
     @Override
     public ByteBuffer allocateDirect(int capacity) {
-        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+        if (!TfBufferPool.ENABLED) {
+            return TfBufferPool.allocateAligned(capacity);
+        }
+        TfBufferPool pool = TfBufferPool.getInstance();
+        ByteBuffer block = pool.acquire(capacity);
+        if (NDScope.registerArenaReleaser(() -> pool.release(block))) {
+            // recycled when the arena closes, for the arrays of the next one
+            return TfBufferPool.view(block, capacity);
+        }
+        synchronized (this) {
+            if (buffers == null) {
+                buffers = new ArrayList<>();
+            }
+            buffers.add(block);
+        }
+        return TfBufferPool.view(block, capacity);
     }
 
     /** {@inheritDoc} */
@@ -73,12 +104,23 @@ public class TfNDManager extends BaseNDManager {
             // initialize with scalar 0
             return create(0f).toType(dataType, false);
         }
-        TFE_TensorHandle handle =
-                JavacppUtils.createEmptyTFETensor(shape, dataType, getEagerSession(), device);
+        TFE_TensorHandle handle;
+        if (TfTensorPool.isPooled(shape, dataType)) {
+            handle =
+                    TfTensorPool.getInstance()
+                            .create(null, shape, dataType, getEagerSession(), device);
+        } else {
+            handle = JavacppUtils.createEmptyTFETensor(shape, dataType, getEagerSession(), device);
+        }
         return new TfNDArray(this, handle);
     }
 
-    /** {@inheritDoc} */
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The data is copied once into a new tensor, whose memory is taken from the {@link
+     * TfTensorPool}.
+     */
     @Override
     public TfNDArray create(Buffer data, Shape shape, DataType dataType) {
         if (dataType == DataType.STRING) {
@@ -87,28 +129,71 @@ public class TfNDManager extends BaseNDManager {
         }
         int size = Math.toIntExact(shape.size());
         BaseNDManager.validateBuffer(data, dataType, size);
-        if (data.isDirect() && data instanceof ByteBuffer) {
-            TFE_TensorHandle handle =
-                    JavacppUtils.createTFETensorFromByteBuffer(
-                            (ByteBuffer) data, shape, dataType, getEagerSession(), device);
-            return new TfNDArray(this, handle);
+        TFE_TensorHandle handle;
+        if (TfTensorPool.isPooled(shape, dataType)) {
+            handle =
+                    TfTensorPool.getInstance()
+                            .create(data, shape, dataType, getEagerSession(), device);
+        } else {
+            handle =
+                    JavacppUtils.createTFETensorFromBuffer(
+                            data, shape, dataType, getEagerSession(), device);
+        }
+        return new TfNDArray(this, handle);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>A writable direct buffer in native byte order whose position is aligned to {@link
+     * JavacppUtils#TENSOR_ALIGNMENT} bytes, like the buffers of {@link #allocateDirect(int)} or a
+     * copy-on-write mapping of a file, is used as the memory of the tensor without copying. The
+     * array and the buffer share the data until the array and all tensors derived from it are
+     * closed, and TensorFlow keeps the buffer reachable until then. Other buffers, and all buffers
+     * if the system property {@code ai.djl.tensorflow.zero_copy} is {@code false}, are copied like
+     * {@link #create(Buffer, Shape, DataType)}.
+     */
+    @Override
+    public TfNDArray wrap(ByteBuffer data, Shape shape, DataType dataType) {
+        if (!ZERO_COPY || !data.isDirect() || data.isReadOnly() || dataType == DataType.STRING) {
+            return create(data, shape, dataType);
         }
-        ByteBuffer buf = allocateDirect(size * dataType.getNumOfBytes());
-        copyBuffer(data, buf);
+        BaseNDManager.validateBuffer(data, dataType, Math.toIntExact(shape.size()));
         TFE_TensorHandle handle =
-                JavacppUtils.createTFETensorFromByteBuffer(
-                        buf, shape, dataType, getEagerSession(), device);
+                JavacppUtils.createTFETensorFromDirectBuffer(
+                        data, shape, dataType, getEagerSession(), device);
         return new TfNDArray(this, handle);
     }
 
     /** {@inheritDoc} */
     @Override
     public NDArray create(String[] data, Charset charset, Shape shape) {
-        ByteBuffer[] buf = new ByteBuffer[data.length];
+        byte[][] bytes = new byte[data.length][];
+        int[] offsets = new int[data.length];
+        int offset = 0;
         for (int i = 0; i < data.length; ++i) {
-            buf[i] = ByteBuffer.wrap(data[i].getBytes(charset));
+            bytes[i] = data[i].getBytes(charset);
+            offset = Math.addExact(offset, bytes[i].length);
+            offsets[i] = offset;
+        }
+        ByteBuffer buf = ByteBuffer.allocate(offset);
+        for (byte[] b : bytes) {
+            buf.put(b);
+        }
+        buf.rewind();
+        return create(buf, offsets, charset, shape);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public NDArray create(ByteBuffer data, int[] offsets, Charset charset, Shape shape) {
+        if (shape.size() != offsets.length) {
+            throw new IllegalArgumentException(
+                    "The shape " + shape + " does not match " + offsets.length + " strings");
         }
-        return createStringTensor(shape, buf);
+        Pair<TF_Tensor, TFE_TensorHandle> pair =
+                JavacppUtils.createStringTensor(shape.getShape(), data, offsets);
+        return new TfNDArray(this, pair.getValue(), pair.getKey());
     }
 
     /**
@@ -145,14 +230,10 @@ public class TfNDManager extends BaseNDManager {
     /** {@inheritDoc} */
     @Override
     public NDArray full(Shape shape, float value, DataType dataType) {
-        try (NDArray valueArr = create(value);
-                NDArray castedValueArr = valueArr.toType(dataType, false);
-                NDArray dimArr = create(shape.getShape())) {
-            return opExecutor("Fill")
-                    .addInput(dimArr)
-                    .addInput(castedValueArr)
-                    .buildSingletonOrThrow();
-        }
+        return opExecutor("Fill")
+                .addInput(shape.getShape())
+                .addInput(value, dataType)
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -161,34 +242,23 @@ public class TfNDManager extends BaseNDManager {
         if (stop <= start && step > 0) {
             return create(new Shape(0), dataType);
         }
-        try (NDArray startArr = create(start);
-                NDArray stopArr = create(stop);
-                NDArray stepArr = create(step);
-                NDArray castedStartArr = startArr.toType(dataType, false);
-                NDArray castedStopArr = stopArr.toType(dataType, false);
-                NDArray castedStepArr = stepArr.toType(dataType, false)) {
-            return opExecutor("Range")
-                    .addInput(castedStartArr)
-                    .addInput(castedStopArr)
-                    .addInput(castedStepArr)
-                    .buildSingletonOrThrow();
-        }
+        return opExecutor("Range")
+                .addInput(start, dataType)
+                .addInput(stop, dataType)
+                .addInput(step, dataType)
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
     @Override
     public NDArray eye(int rows, int cols, int k, DataType dataType) {
-        try (NDArray ones = ones(new Shape(Math.min(rows, cols)), dataType);
-                NDArray kArr = create(k);
-                NDArray rowsArr = create(rows);
-                NDArray colsArr = create(cols);
-                NDArray zeros = zeros(new Shape(), dataType)) {
+        try (NDArray ones = ones(new Shape(Math.min(rows, cols)), dataType)) {
             return opExecutor("MatrixDiagV3")
                     .addInput(ones)
-                    .addInput(kArr)
-                    .addInput(rowsArr)
-                    .addInput(colsArr)
-                    .addInput(zeros)
+                    .addInput(k, DataType.INT32)
+                    .addInput(rows, DataType.INT32)
+                    .addInput(cols, DataType.INT32)
+                    .addInput(0, dataType)
                     .buildSingletonOrThrow();
         }
     }
@@ -205,15 +275,11 @@ public class TfNDManager extends BaseNDManager {
         if (!endpoint && num > 1) {
             stop -= (int) ((stop - start) / num);
         }
-        try (NDArray startArr = create(start);
-                NDArray stopArr = create(stop);
-                NDArray numArr = create(num)) {
-            return opExecutor("LinSpace")
-                    .addInput(startArr)
-                    .addInput(stopArr)
-                    .addInput(numArr)
-                    .buildSingletonOrThrow();
-        }
+        return opExecutor("LinSpace")
+                .addInput(start, DataType.FLOAT32)
+                .addInput(stop, DataType.FLOAT32)
+                .addInput(num, DataType.INT32)
+                .buildSingletonOrThrow();
     }
 
     /** {@inheritDoc} */
@@ -222,9 +288,8 @@ public class TfNDManager extends BaseNDManager {
         if (DataType.STRING.equals(dataType)) {
             throw new IllegalArgumentException("String data type is not supported!");
         }
-        NDArray axes = create(shape.getShape());
         TfOpExecutor opBuilder =
-                opExecutor("RandomUniform").addInput(axes).addParam("dtype", dataType);
+                opExecutor("RandomUniform").addInput(shape.getShape()).addParam("dtype", dataType);
         Integer seed = getEngine().getSeed();
         if (seed != null) {
             // seed1 is graph-level seed
@@ -237,8 +302,6 @@ public class TfNDManager extends BaseNDManager {
         try (NDArray array = opBuilder.buildSingletonOrThrow();
                 NDArray temp = array.mul(high - low)) {
             return temp.add(low);
-        } finally {
-            axes.close();
         }
     }
 
@@ -248,9 +311,10 @@ public class TfNDManager extends BaseNDManager {
         if (DataType.STRING.equals(dataType)) {
             throw new IllegalArgumentException("String data type is not supported!");
         }
-        NDArray axes = create(shape.getShape());
         TfOpExecutor opBuilder =
-                opExecutor("RandomStandardNormal").addInput(axes).addParam("dtype", dataType);
+                opExecutor("RandomStandardNormal")
+                        .addInput(shape.getShape())
+                        .addParam("dtype", dataType);
         Integer seed = getEngine().getSeed();
         if (seed != null) {
             // seed1 is graph-level seed
@@ -262,8 +326,6 @@ public class TfNDManager extends BaseNDManager {
         try (NDArray array = opBuilder.buildSingletonOrThrow();
                 NDArray temp = array.mul(scale)) {
             return temp.add(loc);
-        } finally {
-            axes.close();
         }
     }
 
@@ -273,9 +335,10 @@ public class TfNDManager extends BaseNDManager {
         if (DataType.STRING.equals(dataType)) {
             throw new IllegalArgumentException("String data type is not supported!");
         }
-        NDArray axes = create(shape.getShape());
         TfOpExecutor opBuilder =
-                opExecutor("TruncatedNormal").addInput(axes).addParam("dtype", dataType);
+                opExecutor("TruncatedNormal")
+                        .addInput(shape.getShape())
+                        .addParam("dtype", dataType);
         Integer seed = getEngine().getSeed();
         if (seed != null) {
             // seed1 is graph-level seed
@@ -287,11 +350,16 @@ public class TfNDManager extends BaseNDManager {
         try (NDArray array = opBuilder.buildSingletonOrThrow();
                 NDArray temp = array.mul(scale)) {
             return temp.add(loc);
-        } finally {
-            axes.close();
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected long getByteSize(NDArray array) {
+        // the shape of a traced array may not be known until the graph runs
+        return array instanceof TfTracedNDArray ? 0 : super.getByteSize(array);
+    }
+
     /** {@inheritDoc} */
     @Override
     public TfNDManager newSubManager(Device device) {
@@ -300,10 +368,38 @@ public class TfNDManager extends BaseNDManager {
         return manager;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        super.close();
+        List<ByteBuffer> blocks;
+        synchronized (this) {
+            blocks = buffers;
+            buffers = null;
+        }
+        if (blocks != null) {
+            TfBufferPool pool = TfBufferPool.getInstance();
+            blocks.forEach(pool::release);
+        }
+    }
+
     public TFE_Context getEagerSession() {
         return ((TfEngine) getEngine()).getEagerSession();
     }
 
+    /**
+     * Returns a function that records the {@link NDArray} operations of the given function into a
+     * TensorFlow graph and runs them as a single native call.
+     *
+     * <p>The function is traced once for each input signature, see {@link TfTracedFunction}.
+     *
+     * @param function the function to trace, it must only use {@link NDArray} operations
+     * @return the traced function
+     */
+    public TfTracedFunction trace(Function<NDList, NDList> function) {
+        return new TfTracedFunction(this, function);
+    }
+
     public TfOpExecutor opExecutor(String operation) {
         return new TfOpExecutor(this, getEagerSession(), operation);
     }
@@ -313,5 +409,12 @@ public class TfNDManager extends BaseNDManager {
         SystemManager() {
             super(null, null);
         }
+
+        /** {@inheritDoc} */
+        @Override
+        public ByteBuffer allocateDirect(int capacity) {
+            // the system manager is never closed, don't take buffers from the pool
+            return TfBufferPool.allocateAligned(capacity);
+        }
     }
 }
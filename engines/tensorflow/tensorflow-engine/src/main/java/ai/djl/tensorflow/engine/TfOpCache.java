@@ -0,0 +1,203 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.tensorflow.engine;
+
+import org.bytedeco.javacpp.IntPointer;
+import org.bytedeco.javacpp.PointerPointer;
+import org.tensorflow.internal.c_api.TFE_Context;
+import org.tensorflow.internal.c_api.TFE_Op;
+import org.tensorflow.internal.c_api.TFE_TensorHandle;
+import org.tensorflow.internal.c_api.TF_Status;
+import org.tensorflow.internal.c_api.global.tensorflow;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * A per-thread cache of the native objects needed to execute an eager operation.
+ *
+ * <p>Creating a {@code TFE_Op} for every call often costs more than running the kernel on a small
+ * tensor. Finished op handles are pooled per device and operation name and are recycled with {@code
+ * TFE_OpReset}. Each thread also keeps one {@code TF_Status} and the scratch pointers used by
+ * {@code TFE_Execute}.
+ *
+ * <p>The pooled ops are bound to the eager context they were created in. They are deleted when a
+ * thread switches to another context, and in every thread by {@link #clearAll()} before the
+ * context itself is deleted.
+ *
+ * <p>Op recycling can be turned off with the system property {@code
+ * ai.djl.tensorflow.op_cache=false}.
+ */
+final class TfOpCache {
+
+    static final boolean ENABLED =
+            Boolean.parseBoolean(System.getProperty("ai.djl.tensorflow.op_cache", "true"));
+
+    private static final int MAX_OPS_PER_KEY = 4;
+    private static final Set<TfOpCache> CACHES =
+            Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    private static final ThreadLocal<TfOpCache> CACHE =
+            ThreadLocal.withInitial(TfOpCache::newCache);
+
+    private TFE_Context context;
+    private Map<String, Map<String, Deque<TFE_Op>>> ops;
+    private TF_Status status;
+    private IntPointer numReturnValues;
+    private PointerPointer<TFE_TensorHandle> returnValues;
+
+    private TfOpCache() {
+        ops = new HashMap<>();
+        // keep the native pointers alive even if created inside a PointerScope
+        status = TF_Status.newStatus().retainReference();
+        numReturnValues = new IntPointer(1).retainReference();
+        returnValues = new PointerPointer<TFE_TensorHandle>(4).retainReference();
+    }
+
+    private static TfOpCache newCache() {
+        TfOpCache cache = new TfOpCache();
+        CACHES.add(cache);
+        return cache;
+    }
+
+    /**
+     * Deletes the pooled ops of all threads.
+     *
+     * <p>Must be called before the eager context the ops were created in is deleted.
+     */
+    static void clearAll() {
+        synchronized (CACHES) {
+            for (TfOpCache cache : CACHES) {
+                cache.clear();
+            }
+        }
+    }
+
+    /**
+     * Returns the cache of the current thread.
+     *
+     * @return the cache of the current thread
+     */
+    static TfOpCache get() {
+        return CACHE.get();
+    }
+
+    /**
+     * Returns an op handle ready to be configured, either recycled or newly created.
+     *
+     * @param eagerSessionHandle the eager context
+     * @param operation the name of the operation
+     * @param device the TensorFlow device name
+     * @return an op handle with the device already set
+     */
+    synchronized TFE_Op acquire(TFE_Context eagerSessionHandle, String operation, String device) {
+        if (ENABLED) {
+            // compare by identity, a new context can be allocated at the address of a deleted one
+            if (eagerSessionHandle != context) {
+                // the ops are bound to the context they were created in
+                clear();
+                context = eagerSessionHandle;
+            }
+            Deque<TFE_Op> pool = getPool(device, operation);
+            TFE_Op op = pool.pollFirst();
+            if (op != null) {
+                tensorflow.TFE_OpReset(op, operation, device, status);
+                checkStatus();
+                return op;
+            }
+        }
+        TFE_Op op = TFE_Op.newOp(eagerSessionHandle, operation, status);
+        checkStatus();
+        op.retainReference();
+        tensorflow.TFE_OpSetDevice(op, device, status);
+        checkStatus();
+        return op;
+    }
+
+    /**
+     * Returns an op handle to the pool, or deletes it if the pool is full.
+     *
+     * @param eagerSessionHandle the eager context the op was created in
+     * @param operation the name of the operation
+     * @param device the TensorFlow device name
+     * @param op the op handle
+     */
+    synchronized void release(
+            TFE_Context eagerSessionHandle, String operation, String device, TFE_Op op) {
+        if (ENABLED && eagerSessionHandle == context) {
+            Deque<TFE_Op> pool = getPool(device, operation);
+            if (pool.size() < MAX_OPS_PER_KEY) {
+                pool.addFirst(op);
+                return;
+            }
+        }
+        op.close();
+    }
+
+    /**
+     * Returns the {@code TF_Status} of the current thread.
+     *
+     * @return the {@code TF_Status} of the current thread
+     */
+    TF_Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Throws the exception stored in the status and resets it, so it can be reused.
+     *
+     * @throws org.tensorflow.exceptions.TensorFlowException if the status is not OK
+     */
+    void checkStatus() {
+        if (tensorflow.TF_GetCode(status) != tensorflow.TF_OK) {
+            try {
+                status.throwExceptionIfNotOK();
+            } finally {
+                tensorflow.TF_SetStatus(status, tensorflow.TF_OK, "");
+            }
+        }
+    }
+
+    IntPointer getNumReturnValues() {
+        return numReturnValues;
+    }
+
+    PointerPointer<TFE_TensorHandle> getReturnValues(int size) {
+        if (returnValues.capacity() < size) {
+            returnValues.close();
+            returnValues = new PointerPointer<TFE_TensorHandle>(size).retainReference();
+        }
+        return returnValues;
+    }
+
+    private synchronized void clear() {
+        for (Map<String, Deque<TFE_Op>> byOperation : ops.values()) {
+            for (Deque<TFE_Op> pool : byOperation.values()) {
+                for (TFE_Op op : pool) {
+                    op.close();
+                }
+            }
+        }
+        ops.clear();
+        context = null;
+    }
+
+    private Deque<TFE_Op> getPool(String device, String operation) {
+        return ops.computeIfAbsent(device, k -> new HashMap<>())
+                .computeIfAbsent(operation, k -> new ArrayDeque<>());
+    }
+}
@@ -27,32 +27,53 @@ import org.bytedeco.javacpp.PointerScope;
 import org.tensorflow.internal.c_api.TFE_Context;
 import org.tensorflow.internal.c_api.TFE_Op;
 import org.tensorflow.internal.c_api.TFE_TensorHandle;
-import org.tensorflow.internal.c_api.TF_Status;
+import org.tensorflow.internal.c_api.TF_OperationDescription;
 import org.tensorflow.internal.c_api.global.tensorflow;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-/** An {@code TfOpExecutor} for executing TensorFlow operation eagerly. */
+/**
+ * An {@code TfOpExecutor} for executing TensorFlow operation eagerly, or for adding it to the graph
+ * of the {@link TfTracer} that is active on the current thread.
+ */
 final class TfOpExecutor implements AutoCloseable {
 
     private TfNDManager manager;
+    private TFE_Context eagerSessionHandle;
+    private String operation;
+    private Device device;
+    private String tfDevice;
+    private TfOpCache cache;
     private TFE_Op opHandle;
+    private TfTracer tracer;
+    private TF_OperationDescription description;
+    private List<TFE_TensorHandle> temporaries;
     private AtomicBoolean closed;
+    private boolean profiling;
+    private long inputBytes;
 
-    @SuppressWarnings({"unchecked", "try"})
     TfOpExecutor(TfNDManager manager, TFE_Context eagerSessionHandle, String operation) {
         this.manager = manager;
+        this.eagerSessionHandle = eagerSessionHandle;
+        this.operation = operation;
+        temporaries = new ArrayList<>(0);
         closed = new AtomicBoolean(false);
-        try (PointerScope ignore = new PointerScope()) {
-            TF_Status status = TF_Status.newStatus();
-            opHandle = TFE_Op.newOp(eagerSessionHandle, operation, status);
-            status.throwExceptionIfNotOK();
-            // keep the native pointer alive outside of the scope
-            opHandle.retainReference();
+        // the op handle and scratch space belong to the current thread,
+        // an executor must be built on the thread that created it
+        cache = TfOpCache.get();
+        device = manager.getDevice();
+        tfDevice = JavacppUtils.toTfDevice(device);
+        tracer = TfTracer.current();
+        if (tracer != null) {
+            description = tracer.newOperation(operation);
+            return;
         }
-        setDevice(manager.getDevice());
+        opHandle = cache.acquire(eagerSessionHandle, operation, tfDevice);
+        profiling = TfOpProfiler.getInstance().isEnabled();
     }
 
     public NDArray[] build(int numOutputs) {
@@ -60,7 +81,7 @@ final class TfOpExecutor implements AutoCloseable {
         NDArray[] outputs = new NDArray[handles.length];
         for (int i = 0; i < handles.length; ++i) {
             // attach the TfNDArray along with pointer to manager
-            outputs[i] = new TfNDArray(manager, handles[i]);
+            outputs[i] = wrap(handles[i]);
         }
         return outputs;
     }
@@ -75,21 +96,34 @@ final class TfOpExecutor implements AutoCloseable {
             Arrays.stream(handles).forEach(Pointer::close);
             throw e;
         }
-        return new TfNDArray(manager, handles[0]);
+        return wrap(handles[0]);
     }
 
     // please make sure you close the output manually or attach to NDManager
-    @SuppressWarnings({"unchecked", "try"})
     public TFE_TensorHandle[] buildRawPointer(int numOutputs) {
-        try (PointerScope ignore = new PointerScope()) {
-            IntPointer numReturnValues = new IntPointer(1).put(numOutputs);
-            PointerPointer<TFE_TensorHandle> returnValues = new PointerPointer<>(numOutputs);
-            TF_Status status = TF_Status.newStatus();
+        if (tracer != null) {
+            try {
+                return tracer.finish(description);
+            } finally {
+                close();
+            }
+        }
+        try {
+            IntPointer numReturnValues = cache.getNumReturnValues().put(numOutputs);
+            PointerPointer<TFE_TensorHandle> returnValues = cache.getReturnValues(numOutputs);
             // TODO(improvement): check if TFE_Execute is able to be called twice
             // and evaluate if it worth calling the TFE_Execute twice to get the # of outputs
             // in sacrifice of performance
-            tensorflow.TFE_Execute(opHandle, returnValues, numReturnValues, status);
-            status.throwExceptionIfNotOK();
+            long begin = profiling ? System.nanoTime() : 0;
+            tensorflow.TFE_Execute(opHandle, returnValues, numReturnValues, cache.getStatus());
+            cache.checkStatus();
+            if (profiling) {
+                // wait for the kernel, the eager context runs the operations asynchronously
+                tensorflow.TFE_ContextAsyncWait(eagerSessionHandle, cache.getStatus());
+                cache.checkStatus();
+                long time = System.nanoTime() - begin;
+                TfOpProfiler.getInstance().record(operation, time, inputBytes);
+            }
 
             TFE_TensorHandle[] results = new TFE_TensorHandle[numReturnValues.get()];
             for (int i = 0; i < results.length; ++i) {
@@ -105,13 +139,47 @@ final class TfOpExecutor implements AutoCloseable {
         }
     }
 
-    @SuppressWarnings({"unchecked", "try"})
     public TfOpExecutor addInput(NDArray input) {
-        try (PointerScope ignore = new PointerScope()) {
-            TF_Status status = TF_Status.newStatus();
-            tensorflow.TFE_OpAddInput(opHandle, ((TfNDArray) input).getHandle(), status);
-            status.throwExceptionIfNotOK();
+        if (profiling) {
+            inputBytes += getByteSize(input);
+        }
+        return addInput(((TfNDArray) input).getHandle());
+    }
+
+    // scalar operand in the given data type, shared through the engine's constant cache
+    public TfOpExecutor addInput(Number value, DataType dataType) {
+        if (profiling) {
+            inputBytes += dataType.getNumOfBytes();
+        }
+        return addInput(getConstantCache().getScalar(value, dataType, device, temporaries));
+    }
+
+    // INT32 vector operand, e.g. axes or a shape
+    public TfOpExecutor addInput(int[] values) {
+        if (profiling) {
+            inputBytes += values.length * 4L;
+        }
+        return addInput(getConstantCache().getVector(values, device, temporaries));
+    }
+
+    // INT64 vector operand, e.g. axes or a shape
+    public TfOpExecutor addInput(long[] values) {
+        if (profiling) {
+            inputBytes += values.length * 8L;
+        }
+        return addInput(getConstantCache().getVector(values, device, temporaries));
+    }
+
+    private TfOpExecutor addInput(TFE_TensorHandle handle) {
+        if (tracer != null) {
+            tracer.addInput(description, handle);
+            return this;
         }
+        if (handle instanceof TfTracedHandle) {
+            throw new IllegalStateException("A traced array can't be used outside of its trace");
+        }
+        tensorflow.TFE_OpAddInput(opHandle, handle, cache.getStatus());
+        cache.checkStatus();
         return this;
     }
 
@@ -121,26 +189,38 @@ final class TfOpExecutor implements AutoCloseable {
                 Arrays.stream(inputs)
                         .map(array -> ((TfNDArray) array).getHandle())
                         .toArray(TFE_TensorHandle[]::new);
+        if (tracer != null) {
+            tracer.addInputList(description, inputHandles);
+            return this;
+        }
+        if (profiling) {
+            for (NDArray input : inputs) {
+                inputBytes += getByteSize(input);
+            }
+        }
         try (PointerScope ignore = new PointerScope()) {
             PointerPointer<TFE_TensorHandle> tensorPointers =
                     new PointerPointer<>(inputHandles.length);
             for (int i = 0; i < inputHandles.length; ++i) {
                 tensorPointers.put(i, inputHandles[i]);
             }
-            TF_Status status = TF_Status.newStatus();
-            tensorflow.TFE_OpAddInputList(opHandle, tensorPointers, inputHandles.length, status);
-            status.throwExceptionIfNotOK();
+            tensorflow.TFE_OpAddInputList(
+                    opHandle, tensorPointers, inputHandles.length, cache.getStatus());
+            cache.checkStatus();
         }
         return this;
     }
 
-    @SuppressWarnings({"unchecked", "try"})
     public TfOpExecutor setDevice(Device device) {
-        try (PointerScope ignore = new PointerScope()) {
-            String deviceStr = JavacppUtils.toTfDevice(device);
-            TF_Status status = TF_Status.newStatus();
-            tensorflow.TFE_OpSetDevice(opHandle, deviceStr, status);
-            status.throwExceptionIfNotOK();
+        try {
+            this.device = device;
+            tfDevice = JavacppUtils.toTfDevice(device);
+            if (tracer != null) {
+                tensorflow.TF_SetDevice(description, tfDevice);
+                return this;
+            }
+            tensorflow.TFE_OpSetDevice(opHandle, tfDevice, cache.getStatus());
+            cache.checkStatus();
             return this;
         } catch (Exception e) {
             close();
@@ -152,41 +232,87 @@ final class TfOpExecutor implements AutoCloseable {
     public TfOpExecutor addParam(String name, String value) {
         byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
         try (PointerScope ignore = new PointerScope()) {
-            tensorflow.TFE_OpSetAttrString(opHandle, name, new BytePointer(bytes), bytes.length);
+            if (tracer != null) {
+                tensorflow.TF_SetAttrString(
+                        description, name, new BytePointer(bytes), bytes.length);
+            } else {
+                tensorflow.TFE_OpSetAttrString(
+                        opHandle, name, new BytePointer(bytes), bytes.length);
+            }
         }
         return this;
     }
 
     public TfOpExecutor addParam(String name, long value) {
-        tensorflow.TFE_OpSetAttrInt(opHandle, name, value);
+        if (tracer != null) {
+            tensorflow.TF_SetAttrInt(description, name, value);
+        } else {
+            tensorflow.TFE_OpSetAttrInt(opHandle, name, value);
+        }
         return this;
     }
 
     public TfOpExecutor addParam(String name, float value) {
-        tensorflow.TFE_OpSetAttrFloat(opHandle, name, value);
+        if (tracer != null) {
+            tensorflow.TF_SetAttrFloat(description, name, value);
+        } else {
+            tensorflow.TFE_OpSetAttrFloat(opHandle, name, value);
+        }
         return this;
     }
 
     public TfOpExecutor addParam(String name, boolean value) {
-        tensorflow.TFE_OpSetAttrBool(opHandle, name, (byte) (value ? 1 : 0));
+        if (tracer != null) {
+            tensorflow.TF_SetAttrBool(description, name, (byte) (value ? 1 : 0));
+        } else {
+            tensorflow.TFE_OpSetAttrBool(opHandle, name, (byte) (value ? 1 : 0));
+        }
         return this;
     }
 
     public TfOpExecutor addParam(String name, DataType dataType) {
-        tensorflow.TFE_OpSetAttrType(opHandle, name, TfDataType.toTf(dataType));
+        if (tracer != null) {
+            tensorflow.TF_SetAttrType(description, name, TfDataType.toTf(dataType));
+        } else {
+            tensorflow.TFE_OpSetAttrType(opHandle, name, TfDataType.toTf(dataType));
+        }
         return this;
     }
 
     public TfOpExecutor addParam(String name, long[] values) {
-        tensorflow.TFE_OpSetAttrIntList(opHandle, name, values, values.length);
+        if (tracer != null) {
+            tensorflow.TF_SetAttrIntList(description, name, values, values.length);
+        } else {
+            tensorflow.TFE_OpSetAttrIntList(opHandle, name, values, values.length);
+        }
         return this;
     }
 
+    private NDArray wrap(TFE_TensorHandle handle) {
+        if (handle instanceof TfTracedHandle) {
+            return new TfTracedNDArray(manager, (TfTracedHandle) handle);
+        }
+        return new TfNDArray(manager, handle);
+    }
+
+    private static long getByteSize(NDArray array) {
+        return array.getShape().size() * array.getDataType().getNumOfBytes();
+    }
+
+    private TfConstantCache getConstantCache() {
+        return ((TfEngine) manager.getEngine()).getConstantCache();
+    }
+
     @Override
     public void close() {
-        if (closed.getAndSet(true) || opHandle == null || opHandle.isNull()) {
+        if (closed.getAndSet(true)) {
+            return;
+        }
+        // TFE_Execute holds its own reference to the inputs, a trace copies them
+        temporaries.forEach(TFE_TensorHandle::close);
+        if (opHandle == null || opHandle.isNull()) {
             return;
         }
-        opHandle.close();
+        cache.release(eagerSessionHandle, operation, tfDevice, opHandle);
     }
 }
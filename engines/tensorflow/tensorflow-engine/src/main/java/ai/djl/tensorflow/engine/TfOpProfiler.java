@@ -0,0 +1,194 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.tensorflow.engine;
+
+import ai.djl.metric.Dimension;
+import ai.djl.metric.Histogram;
+import ai.djl.metric.Metrics;
+import ai.djl.metric.Unit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the count, wall time and input size of the eager operations per operation name.
+ *
+ * <p>The profiler is off by default, it can be turned on with {@link #setEnabled(boolean)} or the
+ * system property {@code ai.djl.tensorflow.op_profiler=true}. While it is on, each operation waits
+ * for the asynchronous eager context to finish, so the time of an operation covers its kernel
+ * instead of only its dispatch. Operations added to a graph by a {@link TfTracer} are not recorded.
+ *
+ * <p>The time of the executions of each operation is recorded in a {@link Histogram} with four
+ * buckets per power of two, so the percentiles are estimates within 12.5% of the exact value.
+ * The statistics can be added to {@link Metrics}, see {@link #addMetrics(Metrics)}, or printed as
+ * a table with {@link #dump()}.
+ */
+public final class TfOpProfiler {
+
+    // 4 buckets per power of two keep each histogram small, there is one per operation name
+    private static final int HISTOGRAM_BITS = 2;
+
+    private static final TfOpProfiler INSTANCE = new TfOpProfiler();
+
+    private AtomicBoolean enabled;
+    private Map<String, OpStats> stats;
+
+    private TfOpProfiler() {
+        enabled =
+                new AtomicBoolean(
+                        Boolean.parseBoolean(
+                                System.getProperty("ai.djl.tensorflow.op_profiler", "false")));
+        stats = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the profiler.
+     *
+     * @return the profiler
+     */
+    public static TfOpProfiler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns whether the operations are recorded.
+     *
+     * @return whether the operations are recorded
+     */
+    public boolean isEnabled() {
+        return enabled.get();
+    }
+
+    /**
+     * Turns the recording of the operations on or off.
+     *
+     * @param enabled whether to record the operations
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled.set(enabled);
+    }
+
+    /** Clears the statistics collected so far. */
+    public void reset() {
+        stats.clear();
+    }
+
+    /**
+     * Returns the number of times an operation was executed.
+     *
+     * @param operation the name of the operation, for example {@code Cast}
+     * @return the number of executions
+     */
+    public long getCount(String operation) {
+        OpStats op = stats.get(operation);
+        return op == null ? 0 : op.time.getCount();
+    }
+
+    /**
+     * Adds the statistics of each operation to the metrics.
+     *
+     * <p>The metrics are {@code OpCount}, {@code OpTime} and {@code OpInputBytes} with the totals,
+     * and {@code OpTimeP99} with the 99th percentile of the time of one execution. Each metric has
+     * an {@code Op} dimension with the name of the operation.
+     *
+     * @param metrics the metrics to add to
+     */
+    public void addMetrics(Metrics metrics) {
+        for (Map.Entry<String, OpStats> entry : stats.entrySet()) {
+            Dimension dimension = new Dimension("Op", entry.getKey());
+            OpStats op = entry.getValue();
+            metrics.addMetric("OpCount", op.time.getCount(), Unit.COUNT, dimension);
+            metrics.addMetric("OpTime", op.time.getSum() / 1000, Unit.MICROSECONDS, dimension);
+            metrics.addMetric("OpTimeP99", op.p99() / 1000, Unit.MICROSECONDS, dimension);
+            metrics.addMetric("OpInputBytes", op.inputBytes.sum(), Unit.BYTES, dimension);
+        }
+    }
+
+    /**
+     * Returns a table of the operations, sorted by their total time.
+     *
+     * @return a table of the operations
+     */
+    public String dump() {
+        List<Map.Entry<String, OpStats>> entries = new ArrayList<>(stats.entrySet());
+        entries.sort(
+                (a, b) -> Double.compare(b.getValue().time.getSum(), a.getValue().time.getSum()));
+        StringBuilder sb = new StringBuilder(128 + entries.size() * 96);
+        sb.append(
+                String.format(
+                        Locale.ROOT,
+                        "%-32s %10s %12s %10s %10s %10s %14s%n",
+                        "Op",
+                        "Count",
+                        "Total(ms)",
+                        "Mean(us)",
+                        "P99(us)",
+                        "Max(us)",
+                        "Input(bytes)"));
+        for (Map.Entry<String, OpStats> entry : entries) {
+            OpStats op = entry.getValue();
+            long count = op.time.getCount();
+            double nanos = op.time.getSum();
+            sb.append(
+                    String.format(
+                            Locale.ROOT,
+                            "%-32s %10d %12.3f %10.1f %10.1f %10.1f %14d%n",
+                            entry.getKey(),
+                            count,
+                            nanos / 1e6,
+                            count == 0 ? 0 : nanos / 1e3 / count,
+                            op.p99() / 1e3,
+                            count == 0 ? 0 : op.time.getMax() / 1e3,
+                            op.inputBytes.sum()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Records one execution of an operation.
+     *
+     * @param operation the name of the operation
+     * @param nanos the wall time of the execution
+     * @param inputBytes the size of the inputs
+     */
+    void record(String operation, long nanos, long inputBytes) {
+        stats.computeIfAbsent(operation, k -> new OpStats()).add(nanos, inputBytes);
+    }
+
+    /** The statistics of one operation, with a histogram of the time. */
+    private static final class OpStats {
+
+        Histogram time;
+        LongAdder inputBytes;
+
+        OpStats() {
+            time = new Histogram(HISTOGRAM_BITS);
+            inputBytes = new LongAdder();
+        }
+
+        void add(long nanos, long bytes) {
+            time.record(nanos);
+            inputBytes.add(bytes);
+        }
+
+        /** Returns the 99th percentile of the time, or 0 before the first execution. */
+        double p99() {
+            return time.getCount() == 0 ? 0 : time.percentile(99);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.tensorflow.engine;
+
+import org.bytedeco.javacpp.PointerPointer;
+import org.tensorflow.internal.c_api.TFE_TensorHandle;
+import org.tensorflow.internal.c_api.TF_Buffer;
+import org.tensorflow.internal.c_api.TF_Operation;
+import org.tensorflow.internal.c_api.TF_Output;
+import org.tensorflow.internal.c_api.TF_Session;
+import org.tensorflow.internal.c_api.TF_Status;
+import org.tensorflow.internal.c_api.TF_Tensor;
+import org.tensorflow.internal.c_api.global.tensorflow;
+
+/**
+ * Runs a {@code TF_Session} with a fixed set of feeds, fetches and targets.
+ *
+ * <p>The native {@code TF_Output} and target arrays are built once. The value arrays are kept per
+ * thread and the status is shared with the {@link TfOpCache}, so a call only resolves the inputs,
+ * runs the session and wraps the outputs.
+ */
+final class TfSessionRunner implements AutoCloseable {
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private TF_Session session;
+    private TF_Output inputs;
+    private TF_Output outputs;
+    private PointerPointer<TF_Operation> targets;
+    private int numInputs;
+    private int numOutputs;
+    private int numTargets;
+
+    TfSessionRunner(
+            TF_Session session,
+            TF_Operation[] inputOpHandles,
+            int[] inputOpIndices,
+            TF_Operation[] outputOpHandles,
+            int[] outputOpIndices,
+            TF_Operation[] targetOpHandles) {
+        this.session = session;
+        numInputs = inputOpHandles.length;
+        numOutputs = outputOpHandles.length;
+        numTargets = targetOpHandles.length;
+        inputs = newOutputs(inputOpHandles, inputOpIndices);
+        outputs = newOutputs(outputOpHandles, outputOpIndices);
+        targets = new PointerPointer<TF_Operation>(Math.max(numTargets, 1)).retainReference();
+        for (int i = 0; i < numTargets; ++i) {
+            targets.put(i, targetOpHandles[i]);
+        }
+    }
+
+    /**
+     * Runs the session.
+     *
+     * @param inputHandles the values to feed, in the order of the inputs of this runner
+     * @return the fetched values, the caller must close them
+     */
+    TFE_TensorHandle[] run(TFE_TensorHandle[] inputHandles) {
+        TfOpCache cache = TfOpCache.get();
+        TF_Status status = cache.getStatus();
+        Scratch scratch = SCRATCH.get();
+        PointerPointer<TF_Tensor> inputValues = scratch.getInputValues(numInputs);
+        PointerPointer<TF_Tensor> outputValues = scratch.getOutputValues(numOutputs);
+        TF_Tensor[] tensors = new TF_Tensor[numInputs];
+        try {
+            for (int i = 0; i < numInputs; ++i) {
+                tensors[i] = tensorflow.TFE_TensorHandleResolve(inputHandles[i], status);
+                cache.checkStatus();
+                inputValues.put(i, tensors[i]);
+            }
+            tensorflow.TF_SessionRun(
+                    session,
+                    (TF_Buffer) null,
+                    inputs,
+                    inputValues,
+                    numInputs,
+                    outputs,
+                    outputValues,
+                    numOutputs,
+                    targets,
+                    numTargets,
+                    null,
+                    status);
+            cache.checkStatus();
+        } finally {
+            for (TF_Tensor tensor : tensors) {
+                if (tensor != null && !tensor.isNull()) {
+                    tensorflow.TF_DeleteTensor(tensor);
+                }
+            }
+        }
+
+        TFE_TensorHandle[] results = new TFE_TensorHandle[numOutputs];
+        TF_Tensor[] fetched = new TF_Tensor[numOutputs];
+        for (int i = 0; i < numOutputs; ++i) {
+            fetched[i] = outputValues.get(TF_Tensor.class, i);
+        }
+        try {
+            for (int i = 0; i < numOutputs; ++i) {
+                results[i] =
+                        tensorflow.TFE_NewTensorHandle(fetched[i], status)
+                                .withDeallocator()
+                                .retainReference();
+                cache.checkStatus();
+            }
+            return results;
+        } catch (RuntimeException e) {
+            for (TFE_TensorHandle result : results) {
+                if (result != null) {
+                    result.close();
+                }
+            }
+            throw e;
+        } finally {
+            // the handles keep their own reference to the tensor data
+            for (TF_Tensor tensor : fetched) {
+                tensorflow.TF_DeleteTensor(tensor);
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        inputs.close();
+        outputs.close();
+        targets.close();
+    }
+
+    private static TF_Output newOutputs(TF_Operation[] opHandles, int[] opIndices) {
+        TF_Output outputs = new TF_Output(Math.max(opHandles.length, 1)).retainReference();
+        for (int i = 0; i < opHandles.length; ++i) {
+            outputs.getPointer(i).oper(opHandles[i]).index(opIndices[i]);
+        }
+        return outputs;
+    }
+
+    private static final class Scratch {
+
+        private PointerPointer<TF_Tensor> inputValues;
+        private PointerPointer<TF_Tensor> outputValues;
+
+        Scratch() {
+            inputValues = new PointerPointer<TF_Tensor>(4).retainReference();
+            outputValues = new PointerPointer<TF_Tensor>(4).retainReference();
+        }
+
+        PointerPointer<TF_Tensor> getInputValues(int size) {
+            if (inputValues.capacity() < size) {
+                inputValues.close();
+                inputValues = new PointerPointer<TF_Tensor>(size).retainReference();
+            }
+            return inputValues;
+        }
+
+        PointerPointer<TF_Tensor> getOutputValues(int size) {
+            if (outputValues.capacity() < size) {
+                outputValues.close();
+                outputValues = new PointerPointer<TF_Tensor>(size).retainReference();
+            }
+            return outputValues;
+        }
+    }
+}
@@ -16,6 +16,7 @@ package ai.djl.tensorflow.engine;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -23,10 +24,10 @@ import java.util.Set;
 import org.bytedeco.javacpp.Pointer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.tensorflow.internal.c_api.TFE_TensorHandle;
 import org.tensorflow.internal.c_api.TF_Graph;
 import org.tensorflow.internal.c_api.TF_Operation;
 import org.tensorflow.internal.c_api.TF_Session;
-import org.tensorflow.internal.c_api.TF_Tensor;
 import org.tensorflow.proto.MetaGraphDef;
 import org.tensorflow.proto.SignatureDef;
 import org.tensorflow.proto.TensorInfo;
@@ -62,6 +63,8 @@ public class TfSymbolBlock extends AbstractSymbolBlock implements AutoCloseable
     private TF_Operation[] outputOpHandles;
     private int[] outputOpIndices;
     private TF_Operation[] targetOpHandles;
+    private Map<String, Integer> inputIndices;
+    private TfSessionRunner runner;
 
     public TfSymbolBlock(SavedModelBundle bundle, String signatureDefKey) {
         this.bundle = bundle;
@@ -90,6 +93,14 @@ public class TfSymbolBlock extends AbstractSymbolBlock implements AutoCloseable
         }
         describeInput();
         describeOutput();
+        runner =
+                new TfSessionRunner(
+                        sessionHandle,
+                        inputOpHandles,
+                        inputOpIndices,
+                        outputOpHandles,
+                        outputOpIndices,
+                        targetOpHandles);
     }
 
     /** {@inheritDoc} */
@@ -105,51 +116,45 @@ public class TfSymbolBlock extends AbstractSymbolBlock implements AutoCloseable
             NDList inputs,
             boolean training,
             PairList<String, Object> params) {
-        TF_Tensor[] inputTensorHandles = new TF_Tensor[inputDescriptions.size()];
-
-        for (int i = 0; i < inputDescriptions.size(); i++) {
-            String inputName = inputDescriptions.get(i).getKey();
-
+        TFE_TensorHandle[] inputHandles = new TFE_TensorHandle[inputDescriptions.size()];
+        boolean named = false;
+        for (int i = 0; i < inputHandles.length; i++) {
             TfNDArray currentNDArray = (TfNDArray) inputs.get(i);
             // if no name specified in input array or
             // the input order matches inputDescriptions
             // use default order from translator
             String name = currentNDArray.getName();
-            if (name == null || name.isEmpty() || name.equals(inputName)) {
-                inputTensorHandles[i] = JavacppUtils.resolveTFETensor(currentNDArray.getHandle());
-                continue;
+            if (name == null || name.isEmpty() || name.equals(inputDescriptions.keyAt(i))) {
+                inputHandles[i] = currentNDArray.getHandle();
+            } else {
+                named = true;
             }
-            // for loop to search the right NDArray
+        }
+        if (named) {
+            // place the remaining arrays by name
             for (NDArray array : inputs) {
-                if (array.getName().equals(inputName)) {
-                    inputTensorHandles[i] =
-                            JavacppUtils.resolveTFETensor(((TfNDArray) array).getHandle());
+                Integer index = inputIndices.get(array.getName());
+                if (index != null && inputHandles[index] == null) {
+                    inputHandles[index] = ((TfNDArray) array).getHandle();
+                }
+            }
+            for (int i = 0; i < inputHandles.length; i++) {
+                if (inputHandles[i] == null) {
+                    throw new IllegalArgumentException(
+                            "Missing input: " + inputDescriptions.keyAt(i));
                 }
             }
         }
 
-        TF_Tensor[] outputs =
-                JavacppUtils.runSession(
-                        sessionHandle,
-                        null,
-                        inputTensorHandles,
-                        inputOpHandles,
-                        inputOpIndices,
-                        outputOpHandles,
-                        outputOpIndices,
-                        targetOpHandles);
+        TFE_TensorHandle[] outputs = runner.run(inputHandles);
 
         TfNDManager tfNDManager = (TfNDManager) inputs.head().getManager();
-        NDList resultNDList = new NDList();
+        NDList resultNDList = new NDList(outputs.length);
         for (int i = 0; i < outputs.length; i++) {
-            TfNDArray array = new TfNDArray(tfNDManager, JavacppUtils.createTFETensor(outputs[i]));
-            array.setName(outputDescriptions.get(i).getKey());
+            TfNDArray array = new TfNDArray(tfNDManager, outputs[i]);
+            array.setName(outputDescriptions.keyAt(i));
             resultNDList.add(array);
         }
-
-        // free all unused native resources
-        Arrays.stream(inputTensorHandles).forEach(Pointer::close);
-        Arrays.stream(outputs).forEach(Pointer::close);
         return resultNDList;
     }
 
@@ -176,7 +181,9 @@ public class TfSymbolBlock extends AbstractSymbolBlock implements AutoCloseable
 
             inputOpHandles = new TF_Operation[keys.size()];
             inputOpIndices = new int[keys.size()];
+            inputIndices = new HashMap<>();
             for (int i = 0; i < keys.size(); ++i) {
+                inputIndices.put(keys.get(i), i);
                 TensorInfo tensorInfo = inputsMap.get(keys.get(i));
                 TensorShapeProto shapeProto = tensorInfo.getTensorShape();
                 inputDescriptions.add(
@@ -240,6 +247,9 @@ public class TfSymbolBlock extends AbstractSymbolBlock implements AutoCloseable
     /** {@inheritDoc} */
     @Override
     public void close() {
+        if (runner != null) {
+            runner.close();
+        }
         if (bundle != null) {
             bundle.close();
         }
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.tensorflow.engine;
+
+import ai.djl.Device;
+import ai.djl.ndarray.BaseNDManager;
+import ai.djl.ndarray.types.DataType;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.tensorflow.engine.javacpp.JavacppUtils;
+
+import org.tensorflow.internal.c_api.TFE_Context;
+import org.tensorflow.internal.c_api.TFE_TensorHandle;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of tensor memory for {@link TfNDManager#create(Shape, DataType)} and {@link
+ * TfNDManager#create(Buffer, Shape, DataType)}.
+ *
+ * <p>An inference loop usually creates tensors of the same shapes and data types for every request.
+ * The memory of these tensors is kept by shape, data type and device, and it is reused once
+ * TensorFlow releases the tensor, which happens when the {@link ai.djl.ndarray.NDArray} and all
+ * tensors sharing its memory are closed, for example when the manager of a {@link
+ * ai.djl.translate.TranslatorContext} is closed after a prediction. The pool keeps up to 128 MiB,
+ * the least recently used shapes are dropped first. Tensors smaller than {@value #MIN_BYTES} bytes
+ * are not pooled.
+ *
+ * <p>The pool can be turned off with the system property {@code
+ * ai.djl.tensorflow.tensor_pool=false}.
+ */
+public final class TfTensorPool {
+
+    static final boolean ENABLED =
+            Boolean.parseBoolean(System.getProperty("ai.djl.tensorflow.tensor_pool", "true"));
+
+    private static final int MIN_BYTES = 256;
+    private static final long MAX_POOLED_BYTES = 128L << 20;
+
+    private static final TfTensorPool INSTANCE = new TfTensorPool();
+
+    private Map<Key, Deque<ByteBuffer>> pooled;
+    private long pooledBytes;
+    private LongAdder hits;
+    private LongAdder misses;
+
+    private TfTensorPool() {
+        // access order, the first entry is the least recently used
+        pooled = new LinkedHashMap<>(16, 0.75f, true);
+        hits = new LongAdder();
+        misses = new LongAdder();
+    }
+
+    /**
+     * Returns the tensor pool.
+     *
+     * @return the tensor pool
+     */
+    public static TfTensorPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the number of tensors created with recycled memory.
+     *
+     * @return the number of hits
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of pooled tensors that needed new memory.
+     *
+     * @return the number of misses
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the ratio of tensors that were created with recycled memory.
+     *
+     * @return the hit rate between 0 and 1
+     */
+    public double getHitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    /**
+     * Returns the size of the memory that is kept by the pool for reuse.
+     *
+     * @return the number of pooled bytes
+     */
+    public synchronized long getBytesPooled() {
+        return pooledBytes;
+    }
+
+    /** Drops the memory kept by the pool. */
+    public synchronized void clear() {
+        pooled.clear();
+        pooledBytes = 0;
+    }
+
+    /**
+     * Returns whether the memory of a tensor is taken from the pool.
+     *
+     * @param shape the shape of the tensor
+     * @param dataType the data type of the tensor
+     * @return whether the tensor is pooled
+     */
+    static boolean isPooled(Shape shape, DataType dataType) {
+        return ENABLED
+                && dataType != DataType.STRING
+                && shape.size() * dataType.getNumOfBytes() >= MIN_BYTES;
+    }
+
+    /**
+     * Creates a tensor with pooled memory.
+     *
+     * @param data the data to copy into the tensor, or {@code null} to leave it uninitialized
+     * @param shape the shape of the tensor
+     * @param dataType the data type of the tensor
+     * @param eagerSession the eager session
+     * @param device the device of the tensor
+     * @return the tensor handle
+     */
+    TFE_TensorHandle create(
+            Buffer data, Shape shape, DataType dataType, TFE_Context eagerSession, Device device) {
+        Key key = new Key(shape, dataType, device);
+        int size = Math.toIntExact(shape.size() * dataType.getNumOfBytes());
+        ByteBuffer block = acquire(key);
+        if (block == null) {
+            misses.increment();
+            block = TfBufferPool.allocateAligned(size);
+        } else {
+            hits.increment();
+        }
+        if (data != null) {
+            ByteBuffer target = block.duplicate().order(ByteOrder.nativeOrder());
+            BaseNDManager.copyBuffer(data, target);
+        }
+        ByteBuffer memory = block;
+        return JavacppUtils.createTFETensorFromDirectBuffer(
+                block, shape, dataType, eagerSession, device, () -> release(key, memory));
+    }
+
+    private synchronized ByteBuffer acquire(Key key) {
+        Deque<ByteBuffer> blocks = pooled.get(key);
+        if (blocks == null || blocks.isEmpty()) {
+            return null;
+        }
+        ByteBuffer block = blocks.pop();
+        pooledBytes -= block.capacity();
+        return block;
+    }
+
+    private synchronized void release(Key key, ByteBuffer block) {
+        pooled.computeIfAbsent(key, k -> new ArrayDeque<>()).push(block);
+        pooledBytes += block.capacity();
+        Iterator<Deque<ByteBuffer>> it = pooled.values().iterator();
+        while (pooledBytes > MAX_POOLED_BYTES && it.hasNext()) {
+            Deque<ByteBuffer> eldest = it.next();
+            while (pooledBytes > MAX_POOLED_BYTES && !eldest.isEmpty()) {
+                pooledBytes -= eldest.removeLast().capacity();
+            }
+            if (eldest.isEmpty()) {
+                it.remove();
+            }
+        }
+    }
+
+    /** The shape, data type and device of a pooled tensor. */
+    private static final class Key {
+
+        private Shape shape;
+        private DataType dataType;
+        private Device device;
+
+        Key(Shape shape, DataType dataType, Device device) {
+            this.shape = shape;
+            this.dataType = dataType;
+            this.device = device;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return shape.equals(key.shape) && dataType == key.dataType && device.equals(key.device);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int hashCode() {
+            return Objects.hash(shape, dataType, device);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.tensorflow.engine;
+
+import ai.djl.Device;
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+
+import org.tensorflow.internal.c_api.TFE_TensorHandle;
+import org.tensorflow.internal.c_api.TF_Function;
+import org.tensorflow.internal.c_api.global.tensorflow;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * A function of {@link NDList}s that runs as a single TensorFlow function call.
+ *
+ * <p>The first call with a new input signature, the shapes and data types of the inputs, runs the
+ * wrapped function on symbolic arrays and records its operations into a {@code TF_Graph}. The graph
+ * is registered as a {@code TF_Function} in the eager context, and every call with the same
+ * signature executes it with one {@code TFE_Execute}, which also lets Grappler optimize the whole
+ * chain. Arrays and constants that the function uses but doesn't receive as input are copied into
+ * the graph when it is traced.
+ *
+ * <p>The wrapped function must only use {@link NDArray} operations: reading the content of an
+ * array, or Java control flow that depends on it, is not possible while tracing. Calls with more
+ * than {@value #MAX_SIGNATURES} distinct signatures run the function eagerly.
+ *
+ * @see TfNDManager#trace(Function)
+ */
+public final class TfTracedFunction implements Function<NDList, NDList>, AutoCloseable {
+
+    private static final int MAX_SIGNATURES = 16;
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
+    private TfNDManager manager;
+    private Function<NDList, NDList> function;
+    private Map<String, TracedGraph> graphs;
+
+    TfTracedFunction(TfNDManager manager, Function<NDList, NDList> function) {
+        this.manager = manager;
+        this.function = function;
+        graphs = new ConcurrentHashMap<>();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public NDList apply(NDList inputs) {
+        if (TfTracer.current() != null) {
+            // called from another traced function, record the operations inline
+            return function.apply(inputs);
+        }
+        TfNDManager target = manager;
+        if (!inputs.isEmpty() && inputs.head().getManager() instanceof TfNDManager) {
+            target = (TfNDManager) inputs.head().getManager();
+        }
+        String signature = getSignature(target.getDevice(), inputs);
+        TracedGraph graph = graphs.get(signature);
+        if (graph == null) {
+            if (graphs.size() >= MAX_SIGNATURES) {
+                return function.apply(inputs);
+            }
+            TfNDManager owner = target;
+            graph = graphs.computeIfAbsent(signature, k -> trace(owner, inputs));
+        }
+
+        TfOpExecutor executor = target.opExecutor(graph.name);
+        for (NDArray input : inputs) {
+            executor.addInput(target.from(input));
+        }
+        NDList outputs = new NDList(executor.build(graph.names.length));
+        for (int i = 0; i < graph.names.length; ++i) {
+            outputs.get(i).setName(graph.names[i]);
+        }
+        return outputs;
+    }
+
+    /**
+     * Returns the number of input signatures that have been traced.
+     *
+     * @return the number of input signatures that have been traced
+     */
+    public int getNumTraces() {
+        return graphs.size();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        TfOpCache cache = TfOpCache.get();
+        for (TracedGraph graph : graphs.values()) {
+            tensorflow.TFE_ContextRemoveFunction(
+                    manager.getEagerSession(), graph.name, cache.getStatus());
+            cache.checkStatus();
+        }
+        graphs.clear();
+    }
+
+    private TracedGraph trace(TfNDManager target, NDList inputs) {
+        String name = "djl_traced_function_" + COUNTER.incrementAndGet();
+        try (TfTracer tracer = new TfTracer();
+                TfNDManager scope = target.newSubManager(target.getDevice())) {
+            TfTracedHandle[] placeholders = new TfTracedHandle[inputs.size()];
+            NDList tracedInputs = new NDList(inputs.size());
+            for (int i = 0; i < placeholders.length; ++i) {
+                NDArray input = inputs.get(i);
+                placeholders[i] = tracer.placeholder(input.getShape(), input.getDataType());
+                NDArray array = new TfTracedNDArray(scope, placeholders[i]);
+                array.setName(input.getName());
+                tracedInputs.add(array);
+            }
+
+            NDList tracedOutputs;
+            tracer.begin();
+            try {
+                tracedOutputs = function.apply(tracedInputs);
+            } finally {
+                tracer.end();
+            }
+            TFE_TensorHandle[] outputs = new TFE_TensorHandle[tracedOutputs.size()];
+            String[] names = new String[outputs.length];
+            for (int i = 0; i < outputs.length; ++i) {
+                NDArray output = tracedOutputs.get(i);
+                outputs[i] = scope.from(output).getHandle();
+                names[i] = output.getName();
+            }
+
+            TF_Function fn = tracer.toFunction(name, placeholders, outputs);
+            try {
+                TfOpCache cache = TfOpCache.get();
+                tensorflow.TFE_ContextAddFunction(target.getEagerSession(), fn, cache.getStatus());
+                cache.checkStatus();
+            } finally {
+                tensorflow.TF_DeleteFunction(fn);
+            }
+            return new TracedGraph(name, names);
+        }
+    }
+
+    private static String getSignature(Device device, NDList inputs) {
+        StringBuilder sb = new StringBuilder(device.toString());
+        for (NDArray array : inputs) {
+            sb.append('|').append(array.getDataType()).append(array.getShape());
+        }
+        return sb.toString();
+    }
+
+    private static final class TracedGraph {
+
+        String name;
+        String[] names;
+
+        TracedGraph(String name, String[] names) {
+            this.name = name;
+            this.names = names;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.tensorflow.engine;
+
+import ai.djl.ndarray.types.DataType;
+import ai.djl.ndarray.types.Shape;
+
+import org.tensorflow.internal.c_api.TFE_TensorHandle;
+import org.tensorflow.internal.c_api.TF_Operation;
+
+/**
+ * A symbolic tensor handle that refers to an output of an operation in the graph of a {@link
+ * TfTracer}.
+ *
+ * <p>The handle has no native memory, it only stands in for a {@code TFE_TensorHandle} so traced
+ * arrays can reuse the code paths of eager arrays. The shape and data type are read when the
+ * operation is added, because the graph is deleted once the trace is finished.
+ */
+final class TfTracedHandle extends TFE_TensorHandle {
+
+    private TfTracer tracer;
+    private TF_Operation operation;
+    private int index;
+    private Shape shape;
+    private DataType dataType;
+
+    TfTracedHandle(
+            TfTracer tracer, TF_Operation operation, int index, Shape shape, DataType dataType) {
+        this.tracer = tracer;
+        this.operation = operation;
+        this.index = index;
+        this.shape = shape;
+        this.dataType = dataType;
+    }
+
+    TfTracer getTracer() {
+        return tracer;
+    }
+
+    TF_Operation getOperation() {
+        return operation;
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the shape inferred for the output, or {@code null} if the rank is unknown.
+     *
+     * @return the shape inferred for the output
+     */
+    Shape getShape() {
+        return shape;
+    }
+
+    DataType getDataType() {
+        return dataType;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        // the handle has no address, keep the uid of the arrays unique
+        return "TfTracedHandle@" + Integer.toHexString(System.identityHashCode(this));
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.tensorflow.engine;
+
+import ai.djl.Device;
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.types.DataType;
+import ai.djl.ndarray.types.Shape;
+
+import org.tensorflow.internal.c_api.TFE_TensorHandle;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.function.Function;
+
+/**
+ * A symbolic {@link TfNDArray} that only exists while a function is traced by {@link
+ * TfNDManager#trace(java.util.function.Function)}.
+ *
+ * <p>A traced array knows its shape and data type but holds no data, so methods that read or write
+ * the content throw an {@link IllegalStateException}.
+ */
+final class TfTracedNDArray extends TfNDArray {
+
+    TfTracedNDArray(TfNDManager manager, TfTracedHandle handle) {
+        super(manager, handle);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DataType getDataType() {
+        return getTracedHandle().getDataType();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Device getDevice() {
+        return getManager().getDevice();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Shape getShape() {
+        Shape shape = getTracedHandle().getShape();
+        if (shape == null) {
+            throw new IllegalStateException("The rank of the array is unknown while tracing");
+        }
+        return shape;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public NDArray toDevice(Device device, boolean copy) {
+        if (!device.equals(getDevice())) {
+            throw new UnsupportedOperationException("Can't change the device while tracing");
+        }
+        return copy ? duplicate() : this;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String[] toStringArray(Charset charset) {
+        throw noData();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ByteBuffer toByteBuffer() {
+        throw noData();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ByteBuffer toDirectBuffer() {
+        throw noData();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void set(Buffer buffer) {
+        throw noData();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        if (isReleased()) {
+            return "This array is already closed";
+        }
+        Shape shape = getTracedHandle().getShape();
+        return "ND: "
+                + (shape == null ? "(?)" : shape)
+                + ' '
+                + getDevice()
+                + ' '
+                + getDataType()
+                + " (traced)";
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        onClose();
+        // the handle owns no native memory
+        if (handle.getAndSet(null) != null) {
+            getManager().detachInternal(getUid());
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    <T> T readData(Function<ByteBuffer, T> reader) {
+        throw noData();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void setHandle(TFE_TensorHandle newHandle) {
+        handle.set(newHandle);
+    }
+
+    private TfTracedHandle getTracedHandle() {
+        return (TfTracedHandle) getHandle();
+    }
+
+    private static IllegalStateException noData() {
+        return new IllegalStateException(
+                "A traced array has no data, the function must only use NDArray operations");
+    }
+}
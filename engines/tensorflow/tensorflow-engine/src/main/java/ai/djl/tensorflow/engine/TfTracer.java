@@ -0,0 +1,254 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.tensorflow.engine;
+
+import ai.djl.ndarray.types.DataType;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.tensorflow.engine.javacpp.JavacppUtils;
+
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.javacpp.PointerScope;
+import org.tensorflow.internal.c_api.TFE_TensorHandle;
+import org.tensorflow.internal.c_api.TF_Function;
+import org.tensorflow.internal.c_api.TF_Graph;
+import org.tensorflow.internal.c_api.TF_Operation;
+import org.tensorflow.internal.c_api.TF_OperationDescription;
+import org.tensorflow.internal.c_api.TF_Output;
+import org.tensorflow.internal.c_api.TF_Tensor;
+import org.tensorflow.internal.c_api.global.tensorflow;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Records the operations of a {@link TfOpExecutor} into a {@code TF_Graph} instead of executing
+ * them.
+ *
+ * <p>While a tracer is active on a thread, every executor created on that thread adds a node to the
+ * graph and returns {@link TfTracedHandle}s. Eager tensors used as inputs, including the constants
+ * of the {@link TfConstantCache}, are captured by value as {@code Const} nodes.
+ */
+final class TfTracer implements AutoCloseable {
+
+    private static final ThreadLocal<TfTracer> CURRENT = new ThreadLocal<>();
+
+    private TF_Graph graph;
+    private TfOpCache cache;
+    private Map<TFE_TensorHandle, TfTracedHandle> captures;
+    private int counter;
+
+    TfTracer() {
+        graph = TF_Graph.newGraph().retainReference();
+        cache = TfOpCache.get();
+        captures = new IdentityHashMap<>();
+    }
+
+    /**
+     * Returns the tracer that is active on the current thread.
+     *
+     * @return the active tracer, or {@code null} if operations run eagerly
+     */
+    static TfTracer current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Makes this tracer the active tracer of the current thread.
+     *
+     * @throws IllegalStateException if another trace is in progress on this thread
+     */
+    void begin() {
+        if (CURRENT.get() != null) {
+            throw new IllegalStateException("Another trace is already in progress on this thread");
+        }
+        CURRENT.set(this);
+    }
+
+    /** Stops recording operations on the current thread. */
+    void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Adds an input of the traced function.
+     *
+     * @param shape the shape of the input
+     * @param dataType the data type of the input
+     * @return the handle of the input
+     */
+    TfTracedHandle placeholder(Shape shape, DataType dataType) {
+        TF_OperationDescription desc = newOperation("Placeholder");
+        tensorflow.TF_SetAttrType(desc, "dtype", TfDataType.toTf(dataType));
+        long[] dims = shape.getShape();
+        tensorflow.TF_SetAttrShape(desc, "shape", dims, dims.length);
+        return finish(desc)[0];
+    }
+
+    /**
+     * Starts a new node in the graph.
+     *
+     * @param operation the name of the operation
+     * @return the description of the node
+     */
+    TF_OperationDescription newOperation(String operation) {
+        return tensorflow.TF_NewOperation(graph, operation, operation + '_' + counter++);
+    }
+
+    /**
+     * Adds a node to the graph.
+     *
+     * @param desc the description of the node
+     * @return the handles of all outputs of the node
+     */
+    TfTracedHandle[] finish(TF_OperationDescription desc) {
+        TF_Operation operation = tensorflow.TF_FinishOperation(desc, cache.getStatus());
+        cache.checkStatus();
+        TfTracedHandle[] outputs = new TfTracedHandle[tensorflow.TF_OperationNumOutputs(operation)];
+        try (TF_Output output = new TF_Output()) {
+            output.oper(operation);
+            for (int i = 0; i < outputs.length; ++i) {
+                output.index(i);
+                DataType dataType = TfDataType.fromTf(tensorflow.TF_OperationOutputType(output));
+                outputs[i] = new TfTracedHandle(this, operation, i, getShape(output), dataType);
+            }
+        }
+        return outputs;
+    }
+
+    /**
+     * Adds an input to a node.
+     *
+     * @param desc the description of the node
+     * @param handle a traced handle of this tracer, or an eager handle to capture
+     */
+    void addInput(TF_OperationDescription desc, TFE_TensorHandle handle) {
+        try (TF_Output output = new TF_Output()) {
+            tensorflow.TF_AddInput(desc, toOutput(output, handle));
+        }
+    }
+
+    /**
+     * Adds a list input to a node.
+     *
+     * @param desc the description of the node
+     * @param handles traced handles of this tracer, or eager handles to capture
+     */
+    void addInputList(TF_OperationDescription desc, TFE_TensorHandle[] handles) {
+        try (TF_Output outputs = new TF_Output(handles.length)) {
+            for (int i = 0; i < handles.length; ++i) {
+                toOutput(outputs.getPointer(i), handles[i]);
+            }
+            tensorflow.TF_AddInputList(desc, outputs, handles.length);
+        }
+    }
+
+    /**
+     * Converts the graph into a function.
+     *
+     * @param name the name of the function
+     * @param inputs the placeholders of the function inputs
+     * @param outputs the function outputs
+     * @return the function, the caller must delete it
+     */
+    @SuppressWarnings({"unchecked", "try"})
+    TF_Function toFunction(String name, TfTracedHandle[] inputs, TFE_TensorHandle[] outputs) {
+        try (PointerScope ignore = new PointerScope()) {
+            TF_Output inputArray = new TF_Output(Math.max(inputs.length, 1));
+            for (int i = 0; i < inputs.length; ++i) {
+                toOutput(inputArray.getPointer(i), inputs[i]);
+            }
+            TF_Output outputArray = new TF_Output(Math.max(outputs.length, 1));
+            for (int i = 0; i < outputs.length; ++i) {
+                TFE_TensorHandle output = outputs[i];
+                if (output instanceof TfTracedHandle && isPlaceholder((TfTracedHandle) output)) {
+                    // a function input can't also be one of its outputs
+                    TF_OperationDescription desc = newOperation("Identity");
+                    addInput(desc, output);
+                    output = finish(desc)[0];
+                }
+                toOutput(outputArray.getPointer(i), output);
+            }
+            TF_Function function =
+                    tensorflow.TF_GraphToFunction(
+                            graph,
+                            name,
+                            (byte) 0,
+                            -1,
+                            (TF_Operation) null,
+                            inputs.length,
+                            inputArray,
+                            outputs.length,
+                            outputArray,
+                            (BytePointer) null,
+                            null,
+                            (String) null,
+                            cache.getStatus());
+            cache.checkStatus();
+            return function;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        if (CURRENT.get() == this) {
+            end();
+        }
+        captures.clear();
+        if (graph != null) {
+            graph.close();
+            graph = null;
+        }
+    }
+
+    private TF_Output toOutput(TF_Output output, TFE_TensorHandle handle) {
+        TfTracedHandle traced;
+        if (handle instanceof TfTracedHandle) {
+            traced = (TfTracedHandle) handle;
+            if (traced.getTracer() != this) {
+                throw new IllegalStateException(
+                        "The array belongs to another trace and can't be used here");
+            }
+        } else {
+            traced = captures.computeIfAbsent(handle, this::capture);
+        }
+        return output.oper(traced.getOperation()).index(traced.getIndex());
+    }
+
+    private TfTracedHandle capture(TFE_TensorHandle handle) {
+        TF_OperationDescription desc = newOperation("Const");
+        try (TF_Tensor tensor = JavacppUtils.resolveTFETensor(handle)) {
+            tensorflow.TF_SetAttrTensor(desc, "value", tensor, cache.getStatus());
+            cache.checkStatus();
+            tensorflow.TF_SetAttrType(desc, "dtype", tensorflow.TF_TensorType(tensor));
+        }
+        return finish(desc)[0];
+    }
+
+    private boolean isPlaceholder(TfTracedHandle handle) {
+        return "Placeholder"
+                .equals(tensorflow.TF_OperationOpType(handle.getOperation()).getString());
+    }
+
+    private Shape getShape(TF_Output output) {
+        int numDims = tensorflow.TF_GraphGetTensorNumDims(graph, output, cache.getStatus());
+        cache.checkStatus();
+        if (numDims < 0) {
+            return null;
+        }
+        long[] dims = new long[numDims];
+        tensorflow.TF_GraphGetTensorShape(graph, output, dims, numDims, cache.getStatus());
+        cache.checkStatus();
+        return new Shape(dims);
+    }
+}
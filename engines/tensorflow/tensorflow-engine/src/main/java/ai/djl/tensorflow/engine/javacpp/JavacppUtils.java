@@ -13,10 +13,13 @@
 
 package ai.djl.tensorflow.engine.javacpp;
 
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -30,13 +33,13 @@ import org.tensorflow.internal.c_api.AbstractTFE_Context;
 import org.tensorflow.internal.c_api.AbstractTFE_TensorHandle;
 import org.tensorflow.internal.c_api.AbstractTF_Graph;
 import org.tensorflow.internal.c_api.AbstractTF_Tensor;
+import org.tensorflow.internal.c_api.Deallocator_Pointer_long_Pointer;
 import org.tensorflow.internal.c_api.TFE_Context;
 import org.tensorflow.internal.c_api.TFE_ContextOptions;
 import org.tensorflow.internal.c_api.TFE_TensorHandle;
 import org.tensorflow.internal.c_api.TF_Buffer;
 import org.tensorflow.internal.c_api.TF_Graph;
 import org.tensorflow.internal.c_api.TF_Operation;
-import org.tensorflow.internal.c_api.TF_Output;
 import org.tensorflow.internal.c_api.TF_Session;
 import org.tensorflow.internal.c_api.TF_SessionOptions;
 import org.tensorflow.internal.c_api.TF_Status;
@@ -52,6 +55,7 @@ import com.google.protobuf.InvalidProtocolBufferException;
 
 import ai.djl.Device;
 import ai.djl.engine.EngineException;
+import ai.djl.ndarray.BaseNDManager;
 import ai.djl.ndarray.types.DataType;
 import ai.djl.ndarray.types.Shape;
 import ai.djl.tensorflow.engine.SavedModelBundle;
@@ -61,7 +65,14 @@ import ai.djl.util.Pair;
 /** A class containing utilities to interact with the TensorFlow Engine's Javacpp layer. */
 public final class JavacppUtils {
 
+    /**
+     * The alignment in bytes that TensorFlow expects for tensor memory. {@code TF_NewTensor} copies
+     * buffers that are not aligned.
+     */
+    public static final int TENSOR_ALIGNMENT = 64;
+
     private static final Pattern DEVICE_PATTERN = Pattern.compile(".*device:([A-Z]PU):(\\d+)");
+    private static final BufferDeallocator BUFFER_DEALLOCATOR = new BufferDeallocator();
 
     private JavacppUtils() {}
 
@@ -134,74 +145,6 @@ public final class JavacppUtils {
         }
     }
 
-    @SuppressWarnings({"unchecked", "try"})
-    public static TF_Tensor[] runSession(
-            TF_Session handle,
-            RunOptions runOptions,
-            TF_Tensor[] inputTensorHandles,
-            TF_Operation[] inputOpHandles,
-            int[] inputOpIndices,
-            TF_Operation[] outputOpHandles,
-            int[] outputOpIndices,
-            TF_Operation[] targetOpHandles) {
-        int numInputs = inputTensorHandles.length;
-        int numOutputs = outputOpHandles.length;
-        int numTargets = targetOpHandles.length;
-        try (PointerScope ignored = new PointerScope()) {
-            // TODO: check with sig-jvm if TF_Output here is freed
-            TF_Output inputs = new TF_Output(numInputs);
-            PointerPointer<TF_Tensor> inputValues = new PointerPointer<>(numInputs);
-            TF_Output outputs = new TF_Output(numOutputs);
-            PointerPointer<TF_Tensor> outputValues = new PointerPointer<>(numOutputs);
-            PointerPointer<TF_Operation> targets = new PointerPointer<>(numTargets);
-
-            // set input
-            for (int i = 0; i < numInputs; ++i) {
-                inputValues.put(i, inputTensorHandles[i]);
-            }
-
-            // set TF_Output for inputs
-            for (int i = 0; i < numInputs; ++i) {
-                inputs.position(i).oper(inputOpHandles[i]).index(inputOpIndices[i]);
-            }
-            inputs.position(0);
-
-            // set TF_Output for outputs
-            for (int i = 0; i < numOutputs; ++i) {
-                outputs.position(i).oper(outputOpHandles[i]).index(outputOpIndices[i]);
-            }
-            outputs.position(0);
-
-            // set target
-            for (int i = 0; i < numTargets; ++i) {
-                targets.put(i, targetOpHandles[i]);
-            }
-            TF_Status status = TF_Status.newStatus();
-            TF_Buffer runOpts = TF_Buffer.newBufferFromString(runOptions);
-
-            tensorflow.TF_SessionRun(
-                    handle,
-                    runOpts,
-                    inputs,
-                    inputValues,
-                    numInputs,
-                    outputs,
-                    outputValues,
-                    numOutputs,
-                    targets,
-                    numTargets,
-                    null,
-                    status);
-            status.throwExceptionIfNotOK();
-
-            TF_Tensor[] ret = new TF_Tensor[numOutputs];
-            for (int i = 0; i < numOutputs; ++i) {
-                ret[i] = outputValues.get(TF_Tensor.class, i).withDeallocator().retainReference();
-            }
-            return ret;
-        }
-    }
-
     @SuppressWarnings({"unchecked", "try"})
     public static TFE_Context createEagerSession(
             boolean async, int devicePlacementPolicy, ConfigProto config) {
@@ -308,6 +251,69 @@ public final class JavacppUtils {
         }
     }
 
+    /**
+     * Creates a string tensor from strings that are stored one after another in a buffer.
+     *
+     * <p>The strings are copied into the tensor in one pass from a single native buffer, instead of
+     * a native buffer for each element.
+     *
+     * @param dims the shape of the tensor
+     * @param data the bytes of the strings, starting at the position of the buffer
+     * @param offsets the end offset of each string, relative to the position of the buffer
+     * @return the tensor and its handle
+     * @throws IllegalArgumentException if the offsets are negative, descending or exceed the data
+     */
+    @SuppressWarnings({"unchecked", "try"})
+    public static Pair<TF_Tensor, TFE_TensorHandle> createStringTensor(
+            long[] dims, ByteBuffer data, int[] offsets) {
+        // TF_TString_Copy reads native memory, so the offsets must stay within the data
+        int length = 0;
+        for (int offset : offsets) {
+            if (offset < length) {
+                throw new IllegalArgumentException("Invalid string offset: " + offset);
+            }
+            length = offset;
+        }
+        if (length > data.remaining()) {
+            throw new IllegalArgumentException(
+                    "String offset " + length + " exceeds the data size " + data.remaining());
+        }
+        int dType = TfDataType.toTf(DataType.STRING);
+        long numBytes = (long) Loader.sizeof(TF_TString.class) * offsets.length;
+        try (PointerScope ignored = new PointerScope()) {
+            TF_Tensor tensor = AbstractTF_Tensor.allocateTensor(dType, dims, numBytes);
+            Pointer pointer = tensorflow.TF_TensorData(tensor).capacity(numBytes);
+            long first = pointer.position();
+            TF_TString tstring = new TF_TString(pointer).capacity(first + offsets.length);
+
+            BytePointer src;
+            if (data.isDirect()) {
+                src = new BytePointer(data);
+            } else {
+                ByteBuffer bb = data.duplicate();
+                bb.limit(bb.position() + length);
+                src = new BytePointer(Math.max(length, 1));
+                src.asByteBuffer().put(bb);
+            }
+            long base = src.position();
+            int start = 0;
+            for (int i = 0; i < offsets.length; ++i) {
+                tstring.position(first + i);
+                src.position(base + start);
+                tensorflow.TF_TString_Copy(tstring, src, offsets[i] - start);
+                start = offsets[i];
+            }
+
+            TF_Status status = TF_Status.newStatus();
+            TFE_TensorHandle handle = AbstractTFE_TensorHandle.newTensor(tensor, status);
+            status.throwExceptionIfNotOK();
+
+            handle.retainReference();
+            tensor.retainReference();
+            return new Pair<>(tensor, handle);
+        }
+    }
+
     @SuppressWarnings({"unchecked", "try"})
     public static TFE_TensorHandle createTFETensorFromByteBuffer(
             ByteBuffer buf,
@@ -338,6 +344,38 @@ public final class JavacppUtils {
         }
     }
 
+    /**
+     * Creates a tensor and copies the content of a buffer into its memory.
+     *
+     * @param data the buffer, in native byte order for {@link ByteBuffer}s
+     * @param shape the shape of the tensor
+     * @param dataType the data type of the tensor, must not be {@code STRING}
+     * @param eagerSessionHandle the eager session
+     * @param device the device of the tensor
+     * @return the tensor handle
+     */
+    @SuppressWarnings({"unchecked", "try"})
+    public static TFE_TensorHandle createTFETensorFromBuffer(
+            Buffer data,
+            Shape shape,
+            DataType dataType,
+            TFE_Context eagerSessionHandle,
+            Device device) {
+        long numBytes = shape.size() * dataType.getNumOfBytes();
+        try (PointerScope ignored = new PointerScope()) {
+            TF_Tensor tensor = createEmptyTFTensor(shape, dataType);
+            Pointer pointer = tensorflow.TF_TensorData(tensor).capacity(numBytes);
+            BaseNDManager.copyBuffer(data, pointer.asByteBuffer().order(ByteOrder.nativeOrder()));
+            TF_Status status = TF_Status.newStatus();
+            TFE_TensorHandle handle = AbstractTFE_TensorHandle.newTensor(tensor, status);
+            status.throwExceptionIfNotOK();
+            if (device.isGpu()) {
+                return toDevice(handle, eagerSessionHandle, device);
+            }
+            return handle.retainReference();
+        }
+    }
+
     @SuppressWarnings({"unchecked", "try"})
     public static TF_Tensor resolveTFETensor(TFE_TensorHandle handle) {
         try (PointerScope ignored = new PointerScope()) {
@@ -384,6 +422,131 @@ public final class JavacppUtils {
         }
     }
 
+    /**
+     * Creates a tensor that uses the memory of a direct {@link ByteBuffer} without copying it.
+     *
+     * <p>The tensor takes the bytes from the position to the limit of the buffer, which must be in
+     * native byte order. The buffer is kept reachable until TensorFlow releases the tensor, which can
+     * be later than closing the returned handle because other tensors, for example the output of a
+     * reshape, may share the memory. Changes to the buffer are visible in the tensor.
+     *
+     * <p>The data is copied into a new tensor instead if the buffer is empty or its start address is
+     * not aligned to {@link #TENSOR_ALIGNMENT} bytes, see {@link #isAligned(ByteBuffer)}.
+     *
+     * @param buf the direct buffer
+     * @param shape the shape of the tensor
+     * @param dataType the data type of the tensor, must not be {@code STRING}
+     * @param eagerSessionHandle the eager session
+     * @param device the device of the tensor
+     * @return the tensor handle
+     */
+    public static TFE_TensorHandle createTFETensorFromDirectBuffer(
+            ByteBuffer buf,
+            Shape shape,
+            DataType dataType,
+            TFE_Context eagerSessionHandle,
+            Device device) {
+        return createTFETensorFromDirectBuffer(
+                buf, shape, dataType, eagerSessionHandle, device, null);
+    }
+
+    /**
+     * Creates a tensor that uses the memory of a direct {@link ByteBuffer} without copying it, and
+     * calls a function once TensorFlow no longer uses the memory.
+     *
+     * <p>See {@link #createTFETensorFromDirectBuffer(ByteBuffer, Shape, DataType, TFE_Context,
+     * Device)}. The function is called by the thread that releases the last tensor sharing the
+     * memory, or right away if the data is copied.
+     *
+     * @param buf the direct buffer
+     * @param shape the shape of the tensor
+     * @param dataType the data type of the tensor, must not be {@code STRING}
+     * @param eagerSessionHandle the eager session
+     * @param device the device of the tensor
+     * @param onRelease the function to call when the memory is released, or {@code null}
+     * @return the tensor handle
+     */
+    @SuppressWarnings({"unchecked", "try"})
+    public static TFE_TensorHandle createTFETensorFromDirectBuffer(
+            ByteBuffer buf,
+            Shape shape,
+            DataType dataType,
+            TFE_Context eagerSessionHandle,
+            Device device,
+            Runnable onRelease) {
+        long numBytes = shape.size() * dataType.getNumOfBytes();
+        if (!buf.isDirect() || numBytes == 0 || !isAligned(buf)) {
+            TFE_TensorHandle handle =
+                    createTFETensorFromBuffer(buf, shape, dataType, eagerSessionHandle, device);
+            if (onRelease != null) {
+                onRelease.run();
+            }
+            return handle;
+        }
+        int dType = TfDataType.toTf(dataType);
+        long[] dims = shape.getShape();
+        try (PointerScope ignored = new PointerScope()) {
+            BytePointer data = new BytePointer(buf);
+            long address = data.address() + data.position();
+            BUFFER_DEALLOCATOR.retain(address, buf, onRelease);
+            TF_Tensor tensor =
+                    tensorflow.TF_NewTensor(
+                            dType,
+                            dims,
+                            dims.length,
+                            data,
+                            numBytes,
+                            BUFFER_DEALLOCATOR,
+                            null);
+            if (tensor == null || tensor.isNull()) {
+                BUFFER_DEALLOCATOR.release(address);
+                throw new IllegalStateException("unable to create the Tensor");
+            }
+            tensor.withDeallocator();
+            TF_Status status = TF_Status.newStatus();
+            TFE_TensorHandle handle = AbstractTFE_TensorHandle.newTensor(tensor, status);
+            status.throwExceptionIfNotOK();
+            if (device.isGpu()) {
+                return toDevice(handle, eagerSessionHandle, device);
+            }
+            return handle.retainReference();
+        }
+    }
+
+    /**
+     * Returns whether the data of a direct buffer starts at an address that TensorFlow can use
+     * without copying.
+     *
+     * @param buf the direct buffer
+     * @return {@code true} if the position of the buffer is aligned to {@link #TENSOR_ALIGNMENT}
+     */
+    public static boolean isAligned(ByteBuffer buf) {
+        Pointer pointer = new Pointer(buf);
+        return (pointer.address() + pointer.position()) % TENSOR_ALIGNMENT == 0;
+    }
+
+    /**
+     * Returns whether any part of a direct buffer is currently used by a TensorFlow tensor created
+     * with {@link #createTFETensorFromDirectBuffer}.
+     *
+     * @param buf the direct buffer
+     * @return {@code true} if a tensor still uses the memory of the buffer
+     */
+    public static boolean isWrapped(ByteBuffer buf) {
+        long start = new Pointer(buf).address();
+        Long address = BUFFER_DEALLOCATOR.buffers.ceilingKey(start);
+        return address != null && address < start + buf.capacity();
+    }
+
+    /**
+     * Returns the number of direct buffers whose memory is currently used by TensorFlow tensors.
+     *
+     * @return the number of direct buffers used by TensorFlow tensors
+     */
+    public static int getNumWrappedBuffers() {
+        return BUFFER_DEALLOCATOR.buffers.size();
+    }
+
     @SuppressWarnings({"unchecked", "try"})
     public static void setByteBuffer(TFE_TensorHandle handle, ByteBuffer data) {
         try (PointerScope ignored = new PointerScope()) {
@@ -417,6 +580,41 @@ public final class JavacppUtils {
         }
     }
 
+    /**
+     * Passes a read-only view of the data of a tensor to a function, without copying it into the
+     * Java heap. The view must not be used after the function returns.
+     *
+     * @param handle the tensor handle
+     * @param reader the function that reads the data
+     * @param <T> the type of the result
+     * @return the result of the function
+     */
+    @SuppressWarnings({"unchecked", "try"})
+    public static <T> T readByteBuffer(TFE_TensorHandle handle, Function<ByteBuffer, T> reader) {
+        try (PointerScope ignored = new PointerScope()) {
+            TF_Status status = TF_Status.newStatus();
+            TF_Tensor tensor = tensorflow.TFE_TensorHandleResolve(handle, status).withDeallocator();
+            status.throwExceptionIfNotOK();
+            return reader.apply(getDirectByteBuffer(tensor));
+        }
+    }
+
+    /**
+     * Returns a read-only direct buffer over the data of a tensor. The buffer is only valid until
+     * the tensor is closed.
+     *
+     * @param tensor the tensor
+     * @return a read-only buffer in native byte order
+     */
+    public static ByteBuffer getDirectByteBuffer(TF_Tensor tensor) {
+        long size = tensorflow.TF_TensorByteSize(tensor);
+        if (size == 0) {
+            return ByteBuffer.allocateDirect(0).order(ByteOrder.nativeOrder());
+        }
+        Pointer pointer = tensorflow.TF_TensorData(tensor).capacity(size);
+        return pointer.asByteBuffer().asReadOnlyBuffer().order(ByteOrder.nativeOrder());
+    }
+
     @SuppressWarnings({"unchecked", "try"})
     public static TFE_TensorHandle toDevice(
             TFE_TensorHandle handle, TFE_Context eagerSessionHandle, Device device) {
@@ -483,4 +681,62 @@ public final class JavacppUtils {
             throw new EngineException("Unknown device type to TensorFlow Engine: " + device);
         }
     }
+
+    /**
+     * Keeps the direct buffers used by {@code TF_NewTensor} reachable until TensorFlow calls the
+     * deallocator. The same memory can back several tensors, so the buffers are reference counted
+     * by address. The addresses are sorted, so finding the tensors within a range of memory does
+     * not scan all wrapped buffers.
+     */
+    private static final class BufferDeallocator extends Deallocator_Pointer_long_Pointer {
+
+        ConcurrentSkipListMap<Long, BufferReference> buffers = new ConcurrentSkipListMap<>();
+
+        void retain(long address, ByteBuffer buf, Runnable onRelease) {
+            buffers.compute(
+                    address,
+                    (k, v) -> {
+                        if (v == null) {
+                            return new BufferReference(buf, onRelease);
+                        }
+                        v.count++;
+                        return v;
+                    });
+        }
+
+        void release(long address) {
+            BufferReference[] released = new BufferReference[1];
+            buffers.computeIfPresent(
+                    address,
+                    (k, v) -> {
+                        if (--v.count > 0) {
+                            return v;
+                        }
+                        released[0] = v;
+                        return null;
+                    });
+            if (released[0] != null && released[0].onRelease != null) {
+                released[0].onRelease.run();
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void call(Pointer data, long len, Pointer arg) {
+            release(data.address());
+        }
+    }
+
+    private static final class BufferReference {
+
+        ByteBuffer buffer;
+        Runnable onRelease;
+        int count;
+
+        BufferReference(ByteBuffer buffer, Runnable onRelease) {
+            this.buffer = buffer;
+            this.onRelease = onRelease;
+            count = 1;
+        }
+    }
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.tensorflow.engine;
+
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.testing.TestRequirements;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ReadOnlyBufferException;
+
+public class TfNDArrayTest {
+
+    @Test
+    public void testToDirectBuffer() {
+        TestRequirements.notArm();
+
+        try (NDManager manager = NDManager.newBaseManager()) {
+            float[] data = {1, 2, 3, 4, 5, 6};
+            TfNDArray array = (TfNDArray) manager.create(data, new Shape(2, 3));
+            ByteBuffer view = array.toDirectBuffer();
+            Assert.assertTrue(view.isDirect());
+            Assert.assertTrue(view.isReadOnly());
+            Assert.assertEquals(view.order(), ByteOrder.nativeOrder());
+            Assert.assertEquals(view.remaining(), data.length * 4);
+            Assert.assertEquals(view.getFloat(8), 3f);
+            Assert.assertThrows(ReadOnlyBufferException.class, () -> view.putFloat(0, 0f));
+
+            // later calls share the view until an in-place operation replaces the tensor
+            ByteBuffer shared = array.toDirectBuffer();
+            Assert.assertEquals(shared.getFloat(8), 3f);
+            array.addi(1);
+            Assert.assertEquals(array.toDirectBuffer().getFloat(8), 4f);
+
+            Assert.assertEquals(array.toFloatArray(), new float[] {2, 3, 4, 5, 6, 7});
+            Assert.assertEquals(manager.create(new int[] {1, 2}).toIntArray(), new int[] {1, 2});
+            Assert.assertEquals(manager.create(new long[] {3, 4}).toLongArray(), new long[] {3, 4});
+            Assert.assertEquals(manager.create(new int[0]).toIntArray(), new int[0]);
+            Assert.assertThrows(
+                    IllegalStateException.class, () -> manager.create(1d).toFloatArray());
+        }
+    }
+}
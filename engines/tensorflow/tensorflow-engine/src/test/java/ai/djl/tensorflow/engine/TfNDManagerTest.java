@@ -12,17 +12,26 @@
  */
 package ai.djl.tensorflow.engine;
 
+import ai.djl.ndarray.LeakDetector;
 import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
 import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.NDScope;
 import ai.djl.ndarray.types.DataType;
 import ai.djl.ndarray.types.Shape;
+import ai.djl.tensorflow.engine.javacpp.JavacppUtils;
 import ai.djl.testing.TestRequirements;
 
 import org.testng.Assert;
+import org.testng.SkipException;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 public class TfNDManagerTest {
 
@@ -64,4 +73,232 @@ public class TfNDManagerTest {
                     () -> manager.create(buf1, new Shape(1), DataType.STRING));
         }
     }
+
+    @Test
+    public void testStringSerialization() throws IOException {
+        TestRequirements.notArm();
+
+        try (NDManager manager = NDManager.newBaseManager()) {
+            char[] chars = new char[70_000];
+            Arrays.fill(chars, 'a');
+            String unicode = "h\u00e9llo \u4e16\u754c"; // héllo 世界
+            String[] data = {"", unicode, new String(chars), "\u0000"};
+            NDArray array = manager.create(data, new Shape(2, 2));
+            Assert.assertEquals(array.toStringArray(), data);
+
+            NDArray decoded = NDArray.decode(manager, array.encode());
+            Assert.assertEquals(decoded.getShape(), new Shape(2, 2));
+            Assert.assertEquals(decoded.toStringArray(), data);
+
+            NDList list =
+                    NDList.decode(manager, new ByteArrayInputStream(new NDList(array).encode()));
+            Assert.assertEquals(list.singletonOrThrow().toStringArray(), data);
+
+            ByteBuffer bb = ByteBuffer.allocateDirect(8);
+            bb.put("--abcdef".getBytes(StandardCharsets.UTF_8));
+            bb.position(2);
+            array = manager.create(bb, new int[] {1, 1, 6}, StandardCharsets.UTF_8, new Shape(3));
+            Assert.assertEquals(array.toStringArray(), new String[] {"a", "", "bcdef"});
+            Assert.assertThrows(
+                    IllegalArgumentException.class,
+                    () -> manager.create(bb, new int[] {1}, StandardCharsets.UTF_8, new Shape(2)));
+            int[] descending = {2, 1};
+            Assert.assertThrows(
+                    IllegalArgumentException.class,
+                    () -> manager.create(bb, descending, StandardCharsets.UTF_8, new Shape(2)));
+            Assert.assertThrows(
+                    IllegalArgumentException.class,
+                    () -> manager.create(bb, new int[] {7}, StandardCharsets.UTF_8, new Shape(1)));
+
+            // only string arrays are written with version 4
+            byte[] buf = manager.create(new String[] {"ab", "c"}).encode();
+            Assert.assertEquals(ByteBuffer.wrap(buf).getInt(6), 4);
+            Assert.assertEquals(ByteBuffer.wrap(manager.create(1f).encode()).getInt(6), 3);
+
+            // the offset table is followed by the 3 bytes of "abc"
+            ByteBuffer.wrap(buf).putInt(buf.length - 7, 100);
+            Assert.assertThrows(IllegalArgumentException.class, () -> NDArray.decode(manager, buf));
+            byte[] encoded = new NDList(manager.create(new String[] {"ab", "c"})).encode();
+            ByteBuffer.wrap(encoded).putInt(encoded.length - 7, 1);
+            Assert.assertThrows(
+                    IllegalArgumentException.class,
+                    () -> NDList.decode(manager, new ByteArrayInputStream(encoded)));
+        }
+    }
+
+    @Test
+    public void testCreateFromBuffer() {
+        TestRequirements.notArm();
+
+        try (NDManager manager = NDManager.newBaseManager()) {
+            if (manager.getDevice().isGpu()) {
+                throw new SkipException("Memory is only shared with CPU tensors");
+            }
+            Shape shape = new Shape(2, 2);
+            float[] expected = {1, 2, 3, 4};
+
+            // create always copies the buffer
+            ByteBuffer aligned = manager.allocateDirect(16);
+            Assert.assertTrue(JavacppUtils.isAligned(aligned));
+            aligned.asFloatBuffer().put(expected);
+            int wrapped = JavacppUtils.getNumWrappedBuffers();
+            NDArray copy = manager.create(aligned, shape, DataType.FLOAT32);
+            Assert.assertEquals(JavacppUtils.getNumWrappedBuffers(), wrapped);
+
+            // wrap shares an aligned direct buffer with the tensor
+            NDArray array = manager.wrap(aligned, shape, DataType.FLOAT32);
+            Assert.assertEquals(JavacppUtils.getNumWrappedBuffers(), wrapped + 1);
+            Assert.assertEquals(array.toFloatArray(), expected);
+            aligned.putFloat(0, 5f);
+            Assert.assertEquals(array.toFloatArray()[0], 5f);
+            Assert.assertEquals(copy.toFloatArray(), expected);
+
+            // an unaligned direct buffer is copied
+            ByteBuffer unaligned = manager.allocateDirect(20);
+            unaligned.position(4);
+            unaligned = unaligned.slice().order(aligned.order());
+            unaligned.asFloatBuffer().put(expected);
+            array = manager.wrap(unaligned, shape, DataType.FLOAT32);
+            unaligned.putFloat(0, 5f);
+            Assert.assertEquals(array.toFloatArray(), expected);
+
+            // a heap buffer is copied
+            array = manager.create(FloatBuffer.wrap(expected), shape);
+            Assert.assertEquals(array.toFloatArray(), expected);
+        }
+    }
+
+    @Test
+    public void testBufferPool() {
+        TestRequirements.notArm();
+
+        try (NDManager manager = NDManager.newBaseManager()) {
+            if (!TfBufferPool.ENABLED || manager.getDevice().isGpu()) {
+                throw new SkipException("Buffer pool is disabled or test needs a CPU device");
+            }
+            TfBufferPool pool = TfBufferPool.getInstance();
+            long inUse = pool.getBytesInUse();
+            float[] expected = {1, 2, 3, 4};
+
+            NDArray array;
+            try (NDManager sub = manager.newSubManager()) {
+                ByteBuffer buf = sub.allocateDirect(100);
+                Assert.assertEquals(buf.capacity(), 100);
+                Assert.assertEquals(pool.getBytesInUse(), inUse + 128);
+                buf.asFloatBuffer().put(expected);
+                // the tensor outlives the sub-manager and keeps using the buffer
+                array = sub.wrap(buf, new Shape(4), DataType.FLOAT32);
+                array.attach(manager);
+            }
+            Assert.assertEquals(pool.getBytesInUse(), inUse);
+
+            try (NDManager sub = manager.newSubManager()) {
+                ByteBuffer buf = sub.allocateDirect(100);
+                // the buffer is zeroed, and not the one the array still uses
+                for (int i = 0; i < 100; ++i) {
+                    Assert.assertEquals(buf.get(i), 0);
+                }
+                buf.putFloat(0, 5f);
+                Assert.assertEquals(array.toFloatArray(), expected);
+            }
+            try (NDManager sub = manager.newSubManager()) {
+                double hitRate = pool.getHitRate();
+                sub.allocateDirect(128);
+                Assert.assertTrue(pool.getHitRate() > hitRate);
+            }
+        }
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testArenaBuffers() {
+        TestRequirements.notArm();
+
+        try (NDManager manager = NDManager.newBaseManager()) {
+            if (!TfBufferPool.ENABLED || manager.getDevice().isGpu()) {
+                throw new SkipException("Buffer pool is disabled or test needs a CPU device");
+            }
+            TfBufferPool pool = TfBufferPool.getInstance();
+            long inUse = pool.getBytesInUse();
+            for (int step = 0; step < 3; ++step) {
+                try (NDScope ignore = new NDScope(true)) {
+                    ByteBuffer buf = manager.allocateDirect(1000);
+                    buf.asFloatBuffer().put(0, step);
+                    NDArray array = manager.create(buf.asFloatBuffer(), new Shape(250));
+                    Assert.assertEquals(array.sum().getFloat(), step);
+                    Assert.assertEquals(pool.getBytesInUse(), inUse + 1024);
+                }
+                // returned with the arena, not with the manager
+                Assert.assertEquals(pool.getBytesInUse(), inUse);
+            }
+        }
+    }
+
+    @Test
+    public void testTensorPool() {
+        TestRequirements.notArm();
+
+        try (NDManager manager = NDManager.newBaseManager()) {
+            if (!TfTensorPool.ENABLED) {
+                throw new SkipException("Tensor pool is disabled");
+            }
+            TfTensorPool pool = TfTensorPool.getInstance();
+            pool.clear();
+            Shape shape = new Shape(4, 32);
+            float[] data = new float[128];
+            Arrays.fill(data, 1f);
+
+            NDArray reshaped;
+            try (NDManager sub = manager.newSubManager()) {
+                NDArray array = sub.create(data, shape);
+                // shares the memory of the array and outlives the sub-manager
+                reshaped = array.reshape(128);
+                reshaped.attach(manager);
+            }
+            long misses = pool.getMissCount();
+            Arrays.fill(data, 2f);
+            try (NDManager sub = manager.newSubManager()) {
+                Assert.assertEquals(sub.create(data, shape).toFloatArray(), data);
+            }
+            // the memory is still used by the reshaped array
+            Assert.assertEquals(pool.getMissCount(), misses + 1);
+            Assert.assertEquals(reshaped.toFloatArray()[0], 1f);
+
+            long hits = pool.getHitCount();
+            Arrays.fill(data, 3f);
+            try (NDManager sub = manager.newSubManager()) {
+                Assert.assertEquals(sub.create(data, shape).toFloatArray(), data);
+            }
+            Assert.assertEquals(pool.getHitCount(), hits + 1);
+            Assert.assertTrue(pool.getBytesPooled() > 0);
+            Assert.assertEquals(reshaped.toFloatArray()[0], 1f);
+        }
+    }
+
+    @Test
+    public void testLeakDetector() throws InterruptedException {
+        TestRequirements.notArm();
+
+        LeakDetector leakDetector = LeakDetector.getInstance();
+        leakDetector.setEnabled(true);
+        leakDetector.setReleaseLeaks(true);
+        long leaked = leakDetector.getLeakCount();
+        long released = leakDetector.getReleasedCount();
+        try (NDManager manager = NDManager.newBaseManager()) {
+            NDArray kept = manager.create(new float[] {1f, 2f});
+            manager.create(new float[] {3f, 4f}).close();
+            manager.create(new float[] {5f, 6f}); // leaked
+            for (int i = 0; i < 100 && leakDetector.getReleasedCount() == released; ++i) {
+                System.gc();
+                Thread.sleep(50);
+            }
+            Assert.assertEquals(leakDetector.getLeakCount(), leaked + 1);
+            Assert.assertEquals(leakDetector.getReleasedCount(), released + 1);
+            Assert.assertEquals(manager.getManagedArrays().size(), 1);
+            Assert.assertEquals(kept.toFloatArray(), new float[] {1f, 2f});
+        } finally {
+            leakDetector.setEnabled(false);
+            leakDetector.setReleaseLeaks(false);
+        }
+    }
 }
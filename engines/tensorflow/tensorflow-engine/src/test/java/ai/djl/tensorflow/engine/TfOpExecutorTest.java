@@ -0,0 +1,120 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.tensorflow.engine;
+
+import ai.djl.metric.Metric;
+import ai.djl.metric.Metrics;
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.DataType;
+import ai.djl.testing.TestRequirements;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TfOpExecutorTest {
+
+    @Test
+    public void testRecycledOps() {
+        TestRequirements.notArm();
+
+        try (TfNDManager manager = (TfNDManager) NDManager.newBaseManager()) {
+            NDArray array = manager.create(new float[] {1f, 2f, 3f});
+            for (int i = 0; i < 3; ++i) {
+                // the same op handle is reset and used with different attributes
+                NDArray casted =
+                        manager.opExecutor("Cast")
+                                .addInput(array)
+                                .addParam("DstT", i % 2 == 0 ? DataType.INT32 : DataType.FLOAT64)
+                                .buildSingletonOrThrow();
+                Assert.assertEquals(
+                        casted.getDataType(), i % 2 == 0 ? DataType.INT32 : DataType.FLOAT64);
+                Assert.assertEquals(
+                        casted.toType(DataType.FLOAT32, false).toFloatArray(),
+                        new float[] {1f, 2f, 3f});
+            }
+
+            // a failed call must not leave an error in the reused status
+            Assert.assertThrows(() -> manager.opExecutor("NotAnOperation"));
+            Assert.assertEquals(array.add(array).toFloatArray(), new float[] {2f, 4f, 6f});
+        }
+    }
+
+    @Test
+    public void testConstantOperands() {
+        TestRequirements.notArm();
+
+        try (TfNDManager manager = (TfNDManager) NDManager.newBaseManager()) {
+            // scalars are created in the data type of the array
+            NDArray ints = manager.create(new int[] {1, 5, 9});
+            Assert.assertEquals(ints.mul(2.7).toIntArray(), new int[] {2, 10, 18});
+            Assert.assertEquals(ints.clip(2, 6).toIntArray(), new int[] {2, 5, 6});
+            Assert.assertEquals(
+                    ints.getNDArrayInternal().rsub(10).toIntArray(), new int[] {9, 5, 1});
+
+            NDArray floats = manager.arange(6f).reshape(2, 3);
+            Assert.assertEquals(floats.sum(new int[] {1}).toFloatArray(), new float[] {3f, 12f});
+
+            TfConstantCache cache = ((TfEngine) manager.getEngine()).getConstantCache();
+            floats.add(1).close();
+            int size = cache.size();
+            // the same constants are shared by later calls
+            floats.add(1).close();
+            floats.reshape(2, 3).close();
+            Assert.assertEquals(cache.size(), size);
+        }
+    }
+
+    @Test
+    public void testProfiler() {
+        TestRequirements.notArm();
+
+        TfOpProfiler profiler = TfOpProfiler.getInstance();
+        try (TfNDManager manager = (TfNDManager) NDManager.newBaseManager()) {
+            NDArray array = manager.create(new float[] {1f, 2f, 3f});
+            profiler.reset();
+            profiler.setEnabled(true);
+            array.add(array).toType(DataType.INT32, false);
+            array.add(1);
+            profiler.setEnabled(false);
+            array.add(array);
+
+            Assert.assertEquals(profiler.getCount("Add"), 2);
+            Assert.assertEquals(profiler.getCount("Cast"), 1);
+            Metrics metrics = new Metrics();
+            profiler.addMetrics(metrics);
+            for (Metric metric : metrics.getMetric("OpInputBytes")) {
+                if ("Add".equals(metric.getDimensions()[0].getValue())) {
+                    // two arrays of 3 floats and the scalar operand
+                    Assert.assertEquals(metric.getValue().longValue(), 24 + 12 + 4);
+                }
+            }
+            Assert.assertEquals(metrics.getMetric("OpTimeP99").size(), 2);
+            // the percentile is estimated from the histogram, but never exceeds the total time
+            for (Metric p99 : metrics.getMetric("OpTimeP99")) {
+                String op = p99.getDimensions()[0].getValue();
+                for (Metric time : metrics.getMetric("OpTime")) {
+                    if (op.equals(time.getDimensions()[0].getValue())) {
+                        double total = time.getValue().doubleValue();
+                        Assert.assertTrue(p99.getValue().doubleValue() <= total, op);
+                    }
+                }
+            }
+            String dump = ((TfEngine) manager.getEngine()).dumpOpProfile();
+            Assert.assertTrue(dump.contains("Cast"), dump);
+        } finally {
+            profiler.setEnabled(false);
+            profiler.reset();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.tensorflow.engine;
+
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.testing.TestRequirements;
+import ai.djl.training.ParameterStore;
+
+import org.bytedeco.javacpp.PointerScope;
+import org.tensorflow.internal.c_api.AbstractTF_Session;
+import org.tensorflow.internal.c_api.TF_Graph;
+import org.tensorflow.internal.c_api.TF_Operation;
+import org.tensorflow.internal.c_api.TF_OperationDescription;
+import org.tensorflow.internal.c_api.TF_Output;
+import org.tensorflow.internal.c_api.TF_Session;
+import org.tensorflow.internal.c_api.TF_SessionOptions;
+import org.tensorflow.internal.c_api.TF_Status;
+import org.tensorflow.internal.c_api.global.tensorflow;
+import org.tensorflow.proto.DataType;
+import org.tensorflow.proto.MetaGraphDef;
+import org.tensorflow.proto.SignatureDef;
+import org.tensorflow.proto.TensorInfo;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TfSymbolBlockTest {
+
+    @Test
+    public void testForward() {
+        TestRequirements.notArm();
+
+        try (NDManager manager = NDManager.newBaseManager();
+                TfSymbolBlock block = new TfSymbolBlock(newBundle(), "serving_default")) {
+            NDArray a = manager.create(new float[] {5, 7});
+            NDArray b = manager.create(new float[] {1, 2});
+            ParameterStore ps = new ParameterStore(manager, false);
+            for (int i = 0; i < 2; ++i) {
+                NDList outputs = block.forward(ps, new NDList(a, b), false);
+                Assert.assertEquals(outputs.get(0).getName(), "diff");
+                Assert.assertEquals(outputs.get(0).toFloatArray(), new float[] {4, 5});
+                Assert.assertEquals(outputs.get(1).toFloatArray(), new float[] {6, 9});
+            }
+
+            // named inputs are placed by name
+            a.setName("a");
+            b.setName("b");
+            NDList outputs = block.forward(ps, new NDList(b, a), false);
+            Assert.assertEquals(outputs.get("diff").toFloatArray(), new float[] {4, 5});
+
+            b.setName("c");
+            Assert.assertThrows(
+                    IllegalArgumentException.class,
+                    () -> block.forward(ps, new NDList(b, a), false));
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "try"})
+    private static SavedModelBundle newBundle() {
+        TF_Graph graph = TF_Graph.newGraph().retainReference();
+        TF_Operation a = placeholder(graph, "a");
+        TF_Operation b = placeholder(graph, "b");
+        binary(graph, "Sub", "diff", a, b);
+        binary(graph, "AddV2", "sum", a, b);
+
+        TF_Session session;
+        try (PointerScope ignored = new PointerScope()) {
+            TF_Status status = TF_Status.newStatus();
+            session =
+                    AbstractTF_Session.newSession(
+                            graph, TF_SessionOptions.newSessionOptions(), status);
+            status.throwExceptionIfNotOK();
+            session.retainReference();
+        }
+
+        SignatureDef signature =
+                SignatureDef.newBuilder()
+                        .putInputs("a", tensorInfo("a:0"))
+                        .putInputs("b", tensorInfo("b:0"))
+                        .putOutputs("diff", tensorInfo("diff:0"))
+                        .putOutputs("sum", tensorInfo("sum:0"))
+                        .build();
+        MetaGraphDef metaGraphDef =
+                MetaGraphDef.newBuilder().putSignatureDef("serving_default", signature).build();
+        return new SavedModelBundle(graph, session, metaGraphDef);
+    }
+
+    private static TensorInfo tensorInfo(String name) {
+        return TensorInfo.newBuilder().setName(name).setDtype(DataType.DT_FLOAT).build();
+    }
+
+    private static TF_Operation placeholder(TF_Graph graph, String name) {
+        TF_OperationDescription desc = tensorflow.TF_NewOperation(graph, "Placeholder", name);
+        tensorflow.TF_SetAttrType(desc, "dtype", tensorflow.TF_FLOAT);
+        return finish(desc);
+    }
+
+    private static void binary(
+            TF_Graph graph, String type, String name, TF_Operation x, TF_Operation y) {
+        TF_OperationDescription desc = tensorflow.TF_NewOperation(graph, type, name);
+        try (TF_Output output = new TF_Output()) {
+            tensorflow.TF_AddInput(desc, output.oper(x).index(0));
+            tensorflow.TF_AddInput(desc, output.oper(y).index(0));
+        }
+        finish(desc);
+    }
+
+    private static TF_Operation finish(TF_OperationDescription desc) {
+        try (TF_Status status = TF_Status.newStatus()) {
+            TF_Operation operation = tensorflow.TF_FinishOperation(desc, status);
+            status.throwExceptionIfNotOK();
+            return operation;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.tensorflow.engine;
+
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.DataType;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.testing.TestRequirements;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.function.Function;
+
+public class TfTracedFunctionTest {
+
+    @Test
+    public void testTrace() {
+        TestRequirements.notArm();
+
+        try (TfNDManager manager = (TfNDManager) NDManager.newBaseManager()) {
+            NDArray mean = manager.create(new float[] {1f, 2f, 3f});
+            Function<NDList, NDList> preprocess =
+                    list -> {
+                        NDArray x = list.head().toType(DataType.FLOAT32, false).sub(mean);
+                        x.muli(2);
+                        NDArray sum = x.sum(new int[] {1});
+                        sum.setName("sum");
+                        return new NDList(x.reshape(-1), sum, list.head());
+                    };
+
+            try (TfTracedFunction traced = manager.trace(preprocess)) {
+                NDArray input = manager.create(new int[] {1, 2, 3, 4, 5, 6}, new Shape(2, 3));
+                NDList expected = preprocess.apply(new NDList(input));
+                for (int i = 0; i < 2; ++i) {
+                    NDList actual = traced.apply(new NDList(input));
+                    Assert.assertEquals(actual.size(), 3);
+                    Assert.assertEquals(actual.get(0), expected.get(0));
+                    Assert.assertEquals(actual.get(1), expected.get(1));
+                    Assert.assertEquals(actual.get(2), input);
+                    Assert.assertEquals(actual.get(1).getName(), "sum");
+                }
+                Assert.assertEquals(traced.getNumTraces(), 1);
+
+                // a new input signature is traced again
+                NDArray other = manager.create(new int[] {1, 1, 1}, new Shape(1, 3));
+                Assert.assertEquals(
+                        traced.apply(new NDList(other)).get(1).toFloatArray(), new float[] {-6f});
+                Assert.assertEquals(traced.getNumTraces(), 2);
+            }
+
+            // the content of an array isn't available while tracing
+            TfTracedFunction invalid =
+                    manager.trace(list -> new NDList(mean.add(list.head().toFloatArray()[0])));
+            Assert.assertThrows(IllegalStateException.class, () -> invalid.apply(new NDList(mean)));
+            // eager execution is not affected by the failed trace
+            Assert.assertEquals(mean.add(1).toFloatArray(), new float[] {2f, 3f, 4f});
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.integration.benchmark;
+
+import ai.djl.engine.Engine;
+import ai.djl.integration.util.Arguments;
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.Shape;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.ParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.Supplier;
+
+/**
+ * Measures the throughput of single eager operations on small tensors.
+ *
+ * <p>The per-call overhead of the engine dominates for small tensors, so this benchmark is a good
+ * indicator for pre- and post-processing code. Run it with:
+ *
+ * <pre>
+ * ./gradlew :integration:run -Dmain=ai.djl.integration.benchmark.EagerOpBenchmark --args="-n 100000"
+ * </pre>
+ *
+ * <p>Add {@code -Dai.djl.tensorflow.op_cache=false} to measure the TensorFlow engine without
+ * recycling of op handles, and {@code -Dai.djl.tensorflow.constant_cache=false} to create scalar
+ * and shape operands for every call.
+ */
+public final class EagerOpBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(EagerOpBenchmark.class);
+
+    private EagerOpBenchmark() {}
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args the command line arguments, {@code -n} sets the number of iterations
+     * @throws ParseException if the arguments are invalid
+     */
+    public static void main(String[] args) throws ParseException {
+        CommandLine cmd = new DefaultParser().parse(Arguments.getOptions(), args, null, false);
+        int iteration = new Arguments(cmd).getIteration();
+        if (iteration <= 1) {
+            iteration = 100_000;
+        }
+
+        Engine engine = Engine.getInstance();
+        logger.info(
+                "Engine: {}, op_cache: {}, constant_cache: {}",
+                engine.getEngineName(),
+                System.getProperty("ai.djl.tensorflow.op_cache", "true"),
+                System.getProperty("ai.djl.tensorflow.constant_cache", "true"));
+        try (NDManager manager = engine.newBaseManager()) {
+            NDArray a = manager.arange(16f).reshape(4, 4);
+            NDArray b = manager.ones(new Shape(4, 4));
+            run("add", iteration, () -> a.add(b));
+            run("mul(Number)", iteration, () -> a.mul(2));
+            run("reshape", iteration, () -> a.reshape(2, 8));
+            run("sum(axes)", iteration, () -> a.sum(new int[] {1}));
+        }
+    }
+
+    private static void run(String name, int iteration, Supplier<NDArray> op) {
+        // warm up the engine and the caches before measuring
+        loop(Math.max(iteration / 10, 1), op);
+        long begin = System.nanoTime();
+        loop(iteration, op);
+        long elapsed = System.nanoTime() - begin;
+        double opsPerSec = iteration * 1_000_000_000d / elapsed;
+        logger.info(
+                "{}: {} ops/sec, {} us/op",
+                name,
+                String.format("%.0f", opsPerSec),
+                String.format("%.3f", elapsed / 1000d / iteration));
+    }
+
+    private static void loop(int iteration, Supplier<NDArray> op) {
+        for (int i = 0; i < iteration; ++i) {
+            op.get().close();
+        }
+    }
+}
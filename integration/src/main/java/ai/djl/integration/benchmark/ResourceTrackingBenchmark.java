@@ -0,0 +1,122 @@
+/*
+ * Copyright 2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.integration.benchmark;
+
+import ai.djl.engine.Engine;
+import ai.djl.integration.util.Arguments;
+import ai.djl.ndarray.NDManager;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.ParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Measures how the resource tracking of a shared {@link NDManager} scales with the number of
+ * threads.
+ *
+ * <p>Each thread repeats what a request does to the manager of a model: it opens a sub-manager,
+ * creates arrays in it and in the shared manager, and closes them again. Run it with:
+ *
+ * <pre>
+ * ./gradlew :integration:run -Dmain=ai.djl.integration.benchmark.ResourceTrackingBenchmark --args="-n 100000"
+ * </pre>
+ *
+ * <p>The benchmark runs with 1, 2, 4 and up to as many threads as there are processors. With
+ * contention free tracking the throughput per thread stays about the same.
+ */
+public final class ResourceTrackingBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResourceTrackingBenchmark.class);
+
+    private ResourceTrackingBenchmark() {}
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args the command line arguments, {@code -n} sets the number of iterations per thread
+     * @throws ParseException if the arguments are invalid
+     * @throws InterruptedException if the benchmark is interrupted
+     * @throws ExecutionException if a thread fails
+     */
+    public static void main(String[] args)
+            throws ParseException, InterruptedException, ExecutionException {
+        CommandLine cmd = new DefaultParser().parse(Arguments.getOptions(), args, null, false);
+        int iteration = new Arguments(cmd).getIteration();
+        if (iteration <= 1) {
+            iteration = 100_000;
+        }
+
+        Engine engine = Engine.getInstance();
+        logger.info("Engine: {}", engine.getEngineName());
+        int processors = Runtime.getRuntime().availableProcessors();
+        try (NDManager shared = engine.newBaseManager()) {
+            // warm up the engine before measuring
+            run(shared, 1, Math.max(iteration / 10, 1));
+            for (int threads = 1; threads <= processors; threads *= 2) {
+                long elapsed = run(shared, threads, iteration);
+                long total = (long) threads * iteration;
+                logger.info(
+                        "{} threads: {} requests/sec, {} us/request per thread",
+                        threads,
+                        String.format("%.0f", total * 1_000_000_000d / elapsed),
+                        String.format("%.3f", elapsed / 1000d / iteration));
+            }
+        }
+    }
+
+    private static long run(NDManager shared, int threads, int iteration)
+            throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int i = 0; i < threads; ++i) {
+                futures.add(
+                        executor.submit(
+                                () -> {
+                                    start.await();
+                                    loop(shared, iteration);
+                                    return null;
+                                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return System.nanoTime() - begin;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void loop(NDManager shared, int iteration) {
+        for (int i = 0; i < iteration; ++i) {
+            try (NDManager manager = shared.newSubManager()) {
+                manager.create(1f);
+                manager.create(new float[] {1f, 2f});
+                shared.create(i).close();
+            }
+        }
+    }
+}